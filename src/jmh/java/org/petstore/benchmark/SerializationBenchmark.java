@@ -0,0 +1,215 @@
+package org.petstore.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.petstore.pojo.common.Category;
+import org.petstore.pojo.common.Tag;
+import org.petstore.pojo.request.OrderRequest;
+import org.petstore.pojo.request.PetRequest;
+import org.petstore.pojo.request.UserRequest;
+import org.petstore.pojo.response.OrderResponse;
+import org.petstore.pojo.response.PetResponse;
+import org.petstore.utils.JsonUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization and deserialization throughput of the request and response POJOs
+ * for the mapper strategies available to the suite:
+ * <ul>
+ *     <li>{@code newMapper} - a fresh ObjectMapper per call, the worst case</li>
+ *     <li>{@code sharedMapper} - the suite's shared ObjectMapper, {@link JsonUtils#mapper()}</li>
+ *     <li>{@code readerWriter} - pre-built ObjectReader/ObjectWriter bound to the type</li>
+ *     <li>{@code afterburner} - reader/writer of a mapper with the Afterburner module</li>
+ * </ul>
+ * Run with {@code mvn -Pjmh test}; the default arguments add the GC profiler, which reports
+ * the allocation rate ({@code gc.alloc.rate.norm} is bytes allocated per operation).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    /**
+     * pet: PetRequest out, PetResponse in; order: OrderRequest out, OrderResponse in;
+     * user: UserRequest both ways.
+     */
+    @Param({"pet", "order", "user"})
+    public String payload;
+
+    private Object request;
+    private byte[] responseJson;
+    private Class<?> responseType;
+
+    private ObjectMapper sharedMapper;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private ObjectWriter afterburnerWriter;
+    private ObjectReader afterburnerReader;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        switch (payload) {
+            case "pet":
+                request = petRequest();
+                responseType = PetResponse.class;
+                break;
+            case "order":
+                request = orderRequest();
+                responseType = OrderResponse.class;
+                break;
+            case "user":
+                request = userRequest();
+                responseType = UserRequest.class;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown payload: " + payload);
+        }
+
+        sharedMapper = JsonUtils.mapper();
+        writer = sharedMapper.writerFor(request.getClass());
+        reader = sharedMapper.readerFor(responseType);
+
+        ObjectMapper afterburnerMapper = configure(new ObjectMapper()).registerModule(new AfterburnerModule());
+        afterburnerWriter = afterburnerMapper.writerFor(request.getClass());
+        afterburnerReader = afterburnerMapper.readerFor(responseType);
+
+        responseJson = sharedMapper.writeValueAsBytes(responseFor(request));
+    }
+
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        return mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    // ---- serialize ----
+
+    @Benchmark
+    public byte[] serializeNewMapper() throws Exception {
+        return configure(new ObjectMapper()).writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public byte[] serializeSharedMapper() throws Exception {
+        return sharedMapper.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public byte[] serializeReaderWriter() throws Exception {
+        return writer.writeValueAsBytes(request);
+    }
+
+    @Benchmark
+    public byte[] serializeAfterburner() throws Exception {
+        return afterburnerWriter.writeValueAsBytes(request);
+    }
+
+    // ---- deserialize ----
+
+    @Benchmark
+    public Object deserializeNewMapper() throws Exception {
+        return configure(new ObjectMapper()).readValue(responseJson, responseType);
+    }
+
+    @Benchmark
+    public Object deserializeSharedMapper() throws Exception {
+        return sharedMapper.readValue(responseJson, responseType);
+    }
+
+    @Benchmark
+    public Object deserializeReaderWriter() throws Exception {
+        return reader.readValue(responseJson);
+    }
+
+    @Benchmark
+    public Object deserializeAfterburner() throws Exception {
+        return afterburnerReader.readValue(responseJson);
+    }
+
+    // ---- sample data, shaped like the feature files and known_pet.json ----
+
+    private static PetRequest petRequest() {
+        PetRequest pet = new PetRequest();
+        pet.setName("BerneseMountainDog 2");
+        pet.setStatus("available");
+        pet.setCategory(new Category(0L, "Mountain dog 2"));
+        List<Tag> tags = new ArrayList<>();
+        for (String name : Arrays.asList("bernese", "mountain", "dog")) {
+            Tag tag = new Tag();
+            tag.setId((long) tags.size());
+            tag.setName(name);
+            tags.add(tag);
+        }
+        pet.setTags(tags);
+        return pet;
+    }
+
+    private static OrderRequest orderRequest() {
+        OrderRequest order = new OrderRequest();
+        order.setId(2001L);
+        order.setPetId(1001L);
+        order.setQuantity(2);
+        order.setShipDate("2025-05-26T10:00:00.000+0000");
+        order.setStatus("placed");
+        order.setComplete(false);
+        return order;
+    }
+
+    private static UserRequest userRequest() {
+        UserRequest user = new UserRequest();
+        user.setUsername("mgarzon");
+        user.setFirstName("Maicol");
+        user.setLastName("Garzon");
+        user.setEmail("mgarzon@example.com");
+        user.setPassword("test123");
+        user.setPhone("1234567890");
+        user.setUserStatus(1);
+        return user;
+    }
+
+    private static Object responseFor(Object request) {
+        if (request instanceof PetRequest) {
+            PetRequest pet = (PetRequest) request;
+            PetResponse response = new PetResponse();
+            response.setId(99L);
+            response.setName(pet.getName());
+            response.setCategory(pet.getCategory());
+            response.setPhotoUrls(Arrays.asList("BerneseMountainDogImage"));
+            response.setTags(pet.getTags());
+            response.setStatus(pet.getStatus());
+            return response;
+        }
+        if (request instanceof OrderRequest) {
+            OrderRequest order = (OrderRequest) request;
+            OrderResponse response = new OrderResponse();
+            response.setId(order.getId());
+            response.setPetId(order.getPetId());
+            response.setQuantity(order.getQuantity());
+            response.setShipDate(order.getShipDate());
+            response.setStatus(order.getStatus());
+            response.setComplete(order.getComplete());
+            return response;
+        }
+        return request;
+    }
+}
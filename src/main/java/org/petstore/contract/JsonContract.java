@@ -0,0 +1,440 @@
+package org.petstore.contract;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schema-style contract of a response body, compiled once from a POJO or from a JSON schema.
+ * <p>
+ * A POJO's Jackson properties are compiled into a tree of expected JSON kinds (string,
+ * integer, number, boolean, object, array, map); primitive fields and properties marked
+ * {@code @JsonProperty(required = true)}, such as a pet's id and name, are required
+ * and not nullable. Contracts are cached per type, and validation is a single streaming pass
+ * over the raw bytes with no object mapping, cheap enough for the load engine to check sampled
+ * responses. Properties the POJO does not declare are allowed, as the Petstore adds fields the
+ * tests do not model.
+ * <p>
+ * The load engine has no POJOs; it uses the response schemas bundled in
+ * {@code contracts/petstore-responses.json}, see {@link #forEndpoint(String, String)}.
+ */
+public final class JsonContract {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    /** Only introspects types and reads the bundled schemas; never maps a response */
+    private static final ObjectMapper objectMapper = new ObjectMapper(jsonFactory);
+
+    private static final Map<JavaType, JsonContract> contracts = new ConcurrentHashMap<>();
+
+    private static final String BUNDLED_SCHEMAS = "/contracts/petstore-responses.json";
+
+    private final String name;
+    private final Node root;
+
+    private JsonContract(String name, Node root) {
+        this.name = name;
+        this.root = root;
+    }
+
+    /**
+     * @param type The POJO describing the body
+     * @return The compiled contract, shared by all callers
+     */
+    public static JsonContract of(Class<?> type) {
+        return of(objectMapper.constructType(type));
+    }
+
+    /**
+     * @param type A generic type describing the body, e.g. {@code Map<String, Integer>}
+     * @return The compiled contract, shared by all callers
+     */
+    public static JsonContract of(TypeReference<?> type) {
+        return of(objectMapper.getTypeFactory().constructType(type));
+    }
+
+    private static JsonContract of(JavaType type) {
+        JsonContract contract = contracts.get(type);
+        if (contract == null) {
+            contract = new JsonContract(type.toCanonical(), compile(type, new HashMap<>()));
+            JsonContract existing = contracts.putIfAbsent(type, contract);
+            if (existing != null) {
+                contract = existing;
+            }
+        }
+        return contract;
+    }
+
+    /**
+     * @param method   HTTP method
+     * @param endpoint Endpoint template, as {@code org.petstore.metrics.Endpoints#template} gives it,
+     *                 e.g. {@code /pet/{petId}}
+     * @return The bundled contract of the endpoint's response, or null when there is none
+     */
+    public static JsonContract forEndpoint(String method, String endpoint) {
+        return Bundled.RESPONSES.get(method + " " + endpoint);
+    }
+
+    /**
+     * Compiles the response schemas of a document with {@code definitions} and {@code responses}
+     * objects. A schema has a {@code type} of string, integer, number, boolean, array (with
+     * {@code items}) or object (with {@code properties} and {@code required}, or with
+     * {@code additionalProperties} for a map), or is a {@code $ref} to {@code #/definitions/<name>}.
+     * Properties that are not required may be null or absent.
+     *
+     * @param document The schema document
+     * @return Contracts by response key, e.g. {@code GET /pet/{petId}}
+     */
+    static Map<String, JsonContract> compileResponses(JsonNode document) {
+        JsonNode definitions = document.path("definitions");
+        Map<String, Node> compiled = new HashMap<>();
+        Map<String, JsonContract> responses = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = document.path("responses").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> response = fields.next();
+            responses.put(response.getKey(), new JsonContract(response.getKey(),
+                    compile(response.getValue(), definitions, compiled, new HashSet<>())));
+        }
+        return Collections.unmodifiableMap(responses);
+    }
+
+    /**
+     * @param body The raw JSON body
+     * @return Every violation found with its path, empty when the body honours the contract
+     */
+    public List<String> validate(byte[] body) {
+        List<String> violations = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() == null) {
+                violations.add("/ - Expected " + root.describe() + ", found an empty body");
+            } else {
+                root.validate(parser, violations);
+            }
+        } catch (IOException e) {
+            violations.add("/ - Invalid JSON: " + e.getMessage());
+        }
+        return violations;
+    }
+
+    @Override
+    public String toString() {
+        return "JsonContract[" + name + "]";
+    }
+
+    private static Node compile(JavaType type, Map<JavaType, ObjectNode> inProgress) {
+        Class<?> raw = type.getRawClass();
+        if (CharSequence.class.isAssignableFrom(raw) || raw.isEnum() || raw == Character.class || raw == char.class) {
+            return new ValueNode(Kind.STRING);
+        }
+        if (raw == Boolean.class || raw == boolean.class) {
+            return new ValueNode(Kind.BOOLEAN);
+        }
+        if (raw == Long.class || raw == long.class || raw == Integer.class || raw == int.class
+                || raw == Short.class || raw == short.class || raw == Byte.class || raw == byte.class
+                || raw == BigInteger.class) {
+            return new ValueNode(Kind.INTEGER);
+        }
+        if (Number.class.isAssignableFrom(raw) || raw == double.class || raw == float.class || raw == BigDecimal.class) {
+            return new ValueNode(Kind.NUMBER);
+        }
+        if (type.isContainerType() && !type.isMapLikeType()) {
+            return new ArrayNode(compile(type.getContentType(), inProgress));
+        }
+        if (type.isMapLikeType()) {
+            return new MapNode(compile(type.getContentType(), inProgress));
+        }
+
+        ObjectNode existing = inProgress.get(type);
+        if (existing != null) {
+            return existing; // recursive type: reuse the node being compiled
+        }
+        ObjectNode node = new ObjectNode();
+        inProgress.put(type, node);
+        BeanDescription description = objectMapper.getDeserializationConfig().introspect(type);
+        for (BeanPropertyDefinition property : description.findProperties()) {
+            JavaType propertyType = property.getPrimaryType();
+            boolean required = propertyType.isPrimitive() || property.isRequired();
+            node.add(property.getName(), new Property(compile(propertyType, inProgress), required));
+        }
+        return node;
+    }
+
+    private static Node compile(JsonNode schema, JsonNode definitions, Map<String, Node> compiled,
+                                Set<String> inProgress) {
+        if (schema.has("$ref")) {
+            String ref = schema.get("$ref").asText();
+            if (!ref.startsWith("#/definitions/") || !definitions.has(ref.substring("#/definitions/".length()))) {
+                throw new IllegalArgumentException("Unknown schema reference " + ref);
+            }
+            Node node = compiled.get(ref);
+            if (node == null) {
+                if (!inProgress.add(ref)) {
+                    throw new IllegalArgumentException("Recursive schema reference " + ref);
+                }
+                node = compile(definitions.get(ref.substring("#/definitions/".length())), definitions, compiled,
+                        inProgress);
+                inProgress.remove(ref);
+                compiled.put(ref, node);
+            }
+            return node;
+        }
+        String type = schema.path("type").asText();
+        switch (type) {
+            case "string":
+                return new ValueNode(Kind.STRING);
+            case "integer":
+                return new ValueNode(Kind.INTEGER);
+            case "number":
+                return new ValueNode(Kind.NUMBER);
+            case "boolean":
+                return new ValueNode(Kind.BOOLEAN);
+            case "array":
+                return new ArrayNode(compile(schema.path("items"), definitions, compiled, inProgress));
+            case "object":
+                if (!schema.has("properties") && schema.path("additionalProperties").isObject()) {
+                    return new MapNode(compile(schema.get("additionalProperties"), definitions, compiled,
+                            inProgress));
+                }
+                Set<String> required = new HashSet<>();
+                schema.path("required").forEach(name -> required.add(name.asText()));
+                ObjectNode node = new ObjectNode();
+                Iterator<Map.Entry<String, JsonNode>> properties = schema.path("properties").fields();
+                while (properties.hasNext()) {
+                    Map.Entry<String, JsonNode> property = properties.next();
+                    node.add(property.getKey(), new Property(
+                            compile(property.getValue(), definitions, compiled, inProgress),
+                            required.contains(property.getKey())));
+                }
+                return node;
+            default:
+                throw new IllegalArgumentException("Unsupported schema " + schema);
+        }
+    }
+
+    private enum Kind {
+        STRING("a string"), INTEGER("an integer"), NUMBER("a number"), BOOLEAN("a boolean");
+
+        private final String description;
+
+        Kind(String description) {
+            this.description = description;
+        }
+    }
+
+    private abstract static class Node {
+        abstract String describe();
+
+        abstract void validate(JsonParser parser, List<String> violations) throws IOException;
+
+        /**
+         * Paths are only built for violations, from the parser's own context, as a JSON pointer.
+         */
+        static String path(JsonParser parser) {
+            String pointer = parser.getParsingContext().pathAsPointer().toString();
+            return pointer.isEmpty() ? "/" : pointer;
+        }
+
+        void violation(JsonParser parser, List<String> violations) throws IOException {
+            JsonToken token = parser.currentToken();
+            String found = token == JsonToken.START_OBJECT ? "an object"
+                    : token == JsonToken.START_ARRAY ? "an array"
+                    : "'" + parser.getText() + "'";
+            violations.add(path(parser) + " - Expected " + describe() + ", found " + found);
+            parser.skipChildren();
+        }
+    }
+
+    private static final class ValueNode extends Node {
+        private final Kind kind;
+
+        ValueNode(Kind kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        String describe() {
+            return kind.description;
+        }
+
+        @Override
+        void validate(JsonParser parser, List<String> violations) throws IOException {
+            JsonToken token = parser.currentToken();
+            boolean matches;
+            switch (kind) {
+                case STRING:
+                    matches = token == JsonToken.VALUE_STRING;
+                    break;
+                case INTEGER:
+                    matches = token == JsonToken.VALUE_NUMBER_INT;
+                    break;
+                case NUMBER:
+                    matches = token.isNumeric();
+                    break;
+                default:
+                    matches = token.isBoolean();
+            }
+            if (!matches && token != JsonToken.VALUE_NULL) {
+                violation(parser, violations);
+            }
+        }
+    }
+
+    private static final class ArrayNode extends Node {
+        private final Node element;
+
+        ArrayNode(Node element) {
+            this.element = element;
+        }
+
+        @Override
+        String describe() {
+            return "an array";
+        }
+
+        @Override
+        void validate(JsonParser parser, List<String> violations) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.START_ARRAY) {
+                if (token != JsonToken.VALUE_NULL) {
+                    violation(parser, violations);
+                }
+                return;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                element.validate(parser, violations);
+            }
+        }
+    }
+
+    private static final class MapNode extends Node {
+        private final Node value;
+
+        MapNode(Node value) {
+            this.value = value;
+        }
+
+        @Override
+        String describe() {
+            return "an object";
+        }
+
+        @Override
+        void validate(JsonParser parser, List<String> violations) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.START_OBJECT) {
+                if (token != JsonToken.VALUE_NULL) {
+                    violation(parser, violations);
+                }
+                return;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                parser.nextToken();
+                value.validate(parser, violations);
+            }
+        }
+    }
+
+    private static final class ObjectNode extends Node {
+        private final Map<String, Property> properties = new LinkedHashMap<>();
+        private int requiredCount;
+
+        void add(String name, Property property) {
+            properties.put(name, property);
+            if (property.required) {
+                requiredCount++;
+            }
+        }
+
+        @Override
+        String describe() {
+            return "an object";
+        }
+
+        @Override
+        void validate(JsonParser parser, List<String> violations) throws IOException {
+            JsonToken token = parser.currentToken();
+            if (token != JsonToken.START_OBJECT) {
+                if (token != JsonToken.VALUE_NULL) {
+                    violation(parser, violations);
+                }
+                return;
+            }
+            Set<String> seen = requiredCount == 0 ? null : new HashSet<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                Property property = properties.get(name);
+                if (property == null) {
+                    parser.skipChildren();
+                    continue;
+                }
+                if (property.required) {
+                    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                        violations.add(path(parser) + " - Required, found null");
+                    }
+                    seen.add(name);
+                }
+                property.node.validate(parser, violations);
+            }
+            if (seen != null && seen.size() < requiredCount) {
+                // at END_OBJECT the parsing context is the parent's, still pointing at this object
+                String path = parser.getParsingContext().pathAsPointer().toString();
+                for (Map.Entry<String, Property> property : properties.entrySet()) {
+                    if (property.getValue().required && !seen.contains(property.getKey())) {
+                        violations.add(path + "/" + property.getKey() + " - Required, missing");
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Property {
+        private final Node node;
+        private final boolean required;
+
+        Property(Node node, boolean required) {
+            this.node = node;
+            this.required = required;
+        }
+    }
+
+    /**
+     * The bundled response schemas, compiled the first time one is asked for.
+     */
+    private static final class Bundled {
+        private static final Map<String, JsonContract> RESPONSES = load();
+
+        private static Map<String, JsonContract> load() {
+            try (InputStream in = JsonContract.class.getResourceAsStream(BUNDLED_SCHEMAS)) {
+                if (in == null) {
+                    throw new IllegalStateException(BUNDLED_SCHEMAS + " is missing from the classpath");
+                }
+                return compileResponses(objectMapper.readTree(in));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read " + BUNDLED_SCHEMAS, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.petstore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of one HTTP request and response, from the suite's client or the
+ * load engine. The event duration is the whole exchange as the caller saw it; the phase
+ * fields split it where the client can tell, and are 0 where it cannot.
+ * <p>
+ * Like every JFR event it costs next to nothing unless a recording is running, so callers
+ * create it unconditionally and only fill it in when {@link #shouldCommit()} says so.
+ */
+@Name(HttpExchangeEvent.NAME)
+@Label("HTTP Exchange")
+@Category({"Petstore", "HTTP"})
+@Description("A request to the Petstore API and its response")
+@StackTrace(false)
+public class HttpExchangeEvent extends Event {
+
+    public static final String NAME = "org.petstore.HttpExchange";
+
+    @Label("Source")
+    @Description("suite or load")
+    public String source;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Endpoint")
+    @Description("Endpoint template, e.g. /pet/{petId}")
+    public String endpoint;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Status")
+    @Description("HTTP status, 0 when no response was received")
+    public int status;
+
+    @Label("Bytes Sent")
+    @DataAmount
+    public long bytesSent;
+
+    @Label("Bytes Received")
+    @DataAmount
+    public long bytesReceived;
+
+    @Label("Schedule Delay")
+    @Description("Open-model load: how late the request was sent after its intended time")
+    @Timespan
+    public long scheduleDelay;
+
+    @Label("Connect")
+    @Description("Opening a new connection, including the TLS handshake; 0 on a reused connection")
+    @Timespan
+    public long connect;
+
+    @Label("Waiting")
+    @Description("From sending the request to receiving the response headers")
+    @Timespan
+    public long waiting;
+
+    @Label("Download")
+    @Description("Reading the response body")
+    @Timespan
+    public long download;
+}
@@ -0,0 +1,222 @@
+package org.petstore.load;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Immutable open-model arrival profile: a sequence of stages, each holding a request rate or
+ * ramping it linearly from one rate to another.
+ * <p>
+ * Arrival times are derived from the cumulative number of arrivals the profile asks for,
+ * {@code A(t)}: the k-th arrival is sent at the time where {@code A(t) = k}. With Poisson
+ * arrivals the targets are a running sum of unit exponential gaps instead, which by time
+ * rescaling gives a Poisson process following the same (possibly ramping) rate. Because the
+ * schedule is computed up front, a slow server cannot lower the offered load.
+ */
+public final class ArrivalProfile {
+
+    private final List<Stage> stages;
+    private final boolean poisson;
+
+    private ArrivalProfile(List<Stage> stages, boolean poisson) {
+        if (stages.isEmpty()) {
+            throw new IllegalArgumentException("An arrival profile needs at least one stage");
+        }
+        this.stages = Collections.unmodifiableList(stages);
+        this.poisson = poisson;
+    }
+
+    /**
+     * @param ratePerSecond   Requests per second
+     * @param durationSeconds How long to keep the rate
+     * @param poisson         Poisson instead of evenly spaced arrivals
+     * @return A single stage profile
+     */
+    public static ArrivalProfile constant(double ratePerSecond, double durationSeconds, boolean poisson) {
+        List<Stage> stages = new ArrayList<>();
+        stages.add(new Stage(ratePerSecond, ratePerSecond, durationSeconds));
+        return new ArrivalProfile(stages, poisson);
+    }
+
+    /**
+     * Parses a comma separated list of stages, each {@code <rate>@<seconds>s} to hold a rate or
+     * {@code <from>-<to>@<seconds>s} to ramp, e.g. {@code 10@30s,10-200@60s,200@120s}.
+     *
+     * @param spec    Stage list
+     * @param poisson Poisson instead of evenly spaced arrivals
+     * @return The profile
+     */
+    public static ArrivalProfile parse(String spec, boolean poisson) {
+        List<Stage> stages = new ArrayList<>();
+        for (String stage : spec.split(",")) {
+            String trimmed = stage.trim().toLowerCase(Locale.ROOT);
+            int at = trimmed.indexOf('@');
+            if (at < 0 || !trimmed.endsWith("s")) {
+                throw new IllegalArgumentException("Stage '" + stage + "' is not <rate>@<seconds>s or <from>-<to>@<seconds>s");
+            }
+            String rates = trimmed.substring(0, at);
+            double seconds = Double.parseDouble(trimmed.substring(at + 1, trimmed.length() - 1));
+            int dash = rates.indexOf('-');
+            double from = Double.parseDouble(dash < 0 ? rates : rates.substring(0, dash));
+            double to = dash < 0 ? from : Double.parseDouble(rates.substring(dash + 1));
+            stages.add(new Stage(from, to, seconds));
+        }
+        return new ArrivalProfile(stages, poisson);
+    }
+
+    /**
+     * @param seed Seed of the Poisson gaps, so a run can be repeated exactly
+     * @return A new schedule of send times; every dispatcher needs its own
+     */
+    public Schedule schedule(long seed) {
+        return new Schedule(seed);
+    }
+
+    /**
+     * @param factor Multiplier of every rate, e.g. {@code 1.0 / workers} to share a profile among workers
+     * @return The profile with its rates scaled
+     */
+    public ArrivalProfile scaled(double factor) {
+        List<Stage> scaled = new ArrayList<>();
+        for (Stage stage : stages) {
+            scaled.add(new Stage(stage.from * factor, stage.to * factor, stage.seconds));
+        }
+        return new ArrivalProfile(scaled, poisson);
+    }
+
+    /**
+     * @return The stages in the format {@link #parse} reads
+     */
+    public String toSpec() {
+        StringBuilder spec = new StringBuilder();
+        for (Stage stage : stages) {
+            if (spec.length() > 0) {
+                spec.append(',');
+            }
+            spec.append(plain(stage.from));
+            if (stage.to != stage.from) {
+                spec.append('-').append(plain(stage.to));
+            }
+            spec.append('@').append(plain(stage.seconds)).append('s');
+        }
+        return spec.toString();
+    }
+
+    // No exponent notation, its minus sign would read as a ramp
+    private static String plain(double value) {
+        return BigDecimal.valueOf(value).toPlainString();
+    }
+
+    public boolean isPoisson() {
+        return poisson;
+    }
+
+    public double getDurationSeconds() {
+        double total = 0;
+        for (Stage stage : stages) {
+            total += stage.seconds;
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Stage stage : stages) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(stage);
+        }
+        return text.append(poisson ? " (Poisson arrivals)" : " (uniform arrivals)").toString();
+    }
+
+    /**
+     * Iterates the intended send times of a profile. Not thread safe.
+     */
+    public final class Schedule {
+
+        private final SplittableRandom random;
+        private double target;
+        private int stageIndex;
+        private double stageStartSeconds;
+        private double arrivalsBeforeStage;
+
+        private Schedule(long seed) {
+            this.random = new SplittableRandom(seed);
+            this.target = poisson ? exponential() : 0;
+        }
+
+        /**
+         * @return Nanoseconds from the start of the run at which the next request is due, or -1 when
+         * the profile is over
+         */
+        public long nextOffsetNanos() {
+            while (stageIndex < stages.size()) {
+                Stage stage = stages.get(stageIndex);
+                double arrivalsInStage = stage.arrivals();
+                double remaining = target - arrivalsBeforeStage;
+                if (remaining < arrivalsInStage) {
+                    double seconds = stageStartSeconds + stage.secondsUntil(remaining);
+                    target += poisson ? exponential() : 1;
+                    return (long) (seconds * 1_000_000_000L);
+                }
+                arrivalsBeforeStage += arrivalsInStage;
+                stageStartSeconds += stage.seconds;
+                stageIndex++;
+            }
+            return -1;
+        }
+
+        private double exponential() {
+            return -Math.log(1 - random.nextDouble());
+        }
+    }
+
+    private static final class Stage {
+        private final double from;
+        private final double to;
+        private final double seconds;
+
+        private Stage(double from, double to, double seconds) {
+            if (from < 0 || to < 0 || seconds <= 0) {
+                throw new IllegalArgumentException("Rates must not be negative and durations must be positive");
+            }
+            this.from = from;
+            this.to = to;
+            this.seconds = seconds;
+        }
+
+        /**
+         * @return Number of arrivals the stage asks for, the area under its rate
+         */
+        double arrivals() {
+            return (from + to) / 2 * seconds;
+        }
+
+        /**
+         * Inverts the cumulative arrivals of the stage, {@code from * x + (to - from) / (2 * seconds) * x^2}.
+         */
+        double secondsUntil(double arrivals) {
+            if (from == to) {
+                return arrivals / from;
+            }
+            double k = (to - from) / (2 * seconds);
+            return (-from + Math.sqrt(from * from + 4 * k * arrivals)) / (2 * k);
+        }
+
+        @Override
+        public String toString() {
+            String rate = from == to ? fmt(from) : fmt(from) + "->" + fmt(to);
+            return rate + " req/s for " + fmt(seconds) + "s";
+        }
+
+        private static String fmt(double value) {
+            return value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package org.petstore.load;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A JSON request body encoded once, with fixed-width slots for the top-level fields that change
+ * from one request to the next (id, petId, status, username).
+ * <p>
+ * Each slot is as wide as its longest value. Shorter values are padded with spaces, which JSON
+ * ignores between tokens: numbers are right-aligned after the colon and strings are followed by
+ * spaces after the closing quote. A body is therefore a copy of the template with a few bytes
+ * overwritten. The values are written as digits and UTF-8 bytes straight into the array, with no
+ * object mapping, reflection or intermediate strings. Fields the template names but the JSON
+ * lacks (such as the id of a pet not created yet) are added at the end of the object.
+ * <pre>
+ * BodyTemplate template = BodyTemplate.builder(json).number("id").text("status", 16).build();
+ * int id = template.slot("id");
+ * int status = template.slot("status");
+ * byte[] body = template.newBody();
+ * template.set(body, id, 42);
+ * template.set(body, status, "sold");
+ * </pre>
+ * Templates are immutable and can be shared between threads; each body belongs to its caller.
+ */
+public final class BodyTemplate {
+
+    /** Enough for any long, sign included */
+    private static final int NUMBER_WIDTH = 20;
+
+    private final byte[] bytes;
+    private final String[] names;
+    private final int[] offsets;
+    private final int[] widths;
+    private final boolean[] text;
+
+    private BodyTemplate(byte[] bytes, String[] names, int[] offsets, int[] widths, boolean[] text) {
+        this.bytes = bytes;
+        this.names = names;
+        this.offsets = offsets;
+        this.widths = widths;
+        this.text = text;
+    }
+
+    /**
+     * @param json JSON object to template, such as a serialized request POJO
+     * @return Builder naming the slots
+     */
+    public static Builder builder(byte[] json) {
+        return new Builder(json);
+    }
+
+    /**
+     * Template for a payload file record: a fresh {@code id}, plus a fresh {@code username} when
+     * the record has one, so every request creates a new resource.
+     *
+     * @param json Payload record, one JSON object
+     * @return Source of bodies with ids counting up from a random base
+     */
+    public static PayloadSource payloadSource(byte[] json) {
+        Builder builder = builder(json).number("id");
+        String username = textValue(json, "username");
+        if (username != null) {
+            builder.text("username", username.length() + NUMBER_WIDTH + 1);
+        }
+        BodyTemplate template = builder.build();
+        int id = template.slot("id");
+        int user = username == null ? -1 : template.slot("username");
+        String prefix = username == null ? null : username + "-";
+        // Random base spaced a million apart, so workers and repeated runs do not reuse ids; below 2^53
+        // so clients reading JSON numbers as doubles keep them exact
+        AtomicLong ids = new AtomicLong((ThreadLocalRandom.current().nextLong(1L << 32) + 1) << 20);
+        return () -> {
+            long next = ids.getAndIncrement();
+            byte[] body = template.newBody();
+            template.set(body, id, next);
+            if (user >= 0) {
+                template.set(body, user, prefix, next);
+            }
+            return body;
+        };
+    }
+
+    /**
+     * @param name Field name given to the builder
+     * @return Handle of the slot, for the {@code set} methods
+     */
+    public int slot(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Template has no slot '" + name + "'");
+    }
+
+    /**
+     * @return A copy of the template, holding the values of the original JSON
+     */
+    public byte[] newBody() {
+        return bytes.clone();
+    }
+
+    /**
+     * @return Length of every body of this template
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * Writes a number into a number slot.
+     */
+    public void set(byte[] body, int slot, long value) {
+        if (text[slot]) {
+            throw new IllegalArgumentException("Slot '" + names[slot] + "' holds text");
+        }
+        int start = offsets[slot];
+        int position = start + widths[slot];
+        long rest = value;
+        do {
+            body[--position] = (byte) ('0' + Math.abs(rest % 10));
+            rest /= 10;
+        } while (rest != 0);
+        if (value < 0) {
+            body[--position] = '-';
+        }
+        Arrays.fill(body, start, position, (byte) ' ');
+    }
+
+    /**
+     * Writes a string into a text slot, escaped as JSON.
+     *
+     * @throws IllegalArgumentException When the encoded value is wider than the slot
+     */
+    public void set(byte[] body, int slot, CharSequence value) {
+        writeText(body, slot, value, false, 0);
+    }
+
+    /**
+     * Writes a string followed by a number into a text slot, such as a username made unique
+     * with a counter.
+     *
+     * @throws IllegalArgumentException When the encoded value is wider than the slot
+     */
+    public void set(byte[] body, int slot, CharSequence prefix, long suffix) {
+        writeText(body, slot, prefix, true, suffix);
+    }
+
+    private void writeText(byte[] body, int slot, CharSequence value, boolean withSuffix, long suffix) {
+        if (!text[slot]) {
+            throw new IllegalArgumentException("Slot '" + names[slot] + "' holds a number");
+        }
+        int start = offsets[slot];
+        int end = start + widths[slot];
+        int position = start;
+        body[position++] = '"';
+        position = writeEscaped(body, position, end - 1, value, slot);
+        if (withSuffix) {
+            int length = suffix < 0 ? 2 : 1;
+            for (long rest = suffix / 10; rest != 0; rest /= 10) {
+                length++;
+            }
+            if (position + length > end - 1) {
+                throw tooWide(slot);
+            }
+            int digit = position + length;
+            long rest = suffix;
+            do {
+                body[--digit] = (byte) ('0' + Math.abs(rest % 10));
+                rest /= 10;
+            } while (rest != 0);
+            if (suffix < 0) {
+                body[position] = '-';
+            }
+            position += length;
+        }
+        body[position++] = '"';
+        Arrays.fill(body, position, end, (byte) ' ');
+    }
+
+    private int writeEscaped(byte[] body, int position, int limit, CharSequence value, int slot) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            int needed;
+            if (c == '"' || c == '\\') {
+                needed = 2;
+            } else if (c < 0x20) {
+                needed = 6;
+            } else if (c < 0x80) {
+                needed = 1;
+            } else if (c < 0x800) {
+                needed = 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()) {
+                needed = 4;
+            } else {
+                needed = 3;
+            }
+            if (position + needed > limit) {
+                throw tooWide(slot);
+            }
+            if (c == '"' || c == '\\') {
+                body[position++] = '\\';
+                body[position++] = (byte) c;
+            } else if (c < 0x20) {
+                body[position++] = '\\';
+                body[position++] = 'u';
+                body[position++] = '0';
+                body[position++] = '0';
+                body[position++] = (byte) Character.forDigit(c >> 4, 16);
+                body[position++] = (byte) Character.forDigit(c & 0xF, 16);
+            } else if (c < 0x80) {
+                body[position++] = (byte) c;
+            } else if (c < 0x800) {
+                body[position++] = (byte) (0xC0 | (c >> 6));
+                body[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (needed == 4) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                body[position++] = (byte) (0xF0 | (codePoint >> 18));
+                body[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                body[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                body[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                body[position++] = (byte) (0xE0 | (c >> 12));
+                body[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                body[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return position;
+    }
+
+    private IllegalArgumentException tooWide(int slot) {
+        return new IllegalArgumentException("Value does not fit the " + (widths[slot] - 2)
+                + " byte slot '" + names[slot] + "'");
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The raw value of a top-level string field, or null when the field is missing or not a string
+     */
+    private static String textValue(byte[] json, String name) {
+        int[] value = Scanner.find(json, name);
+        if (value == null || json[value[0]] != '"') {
+            return null;
+        }
+        return new String(json, value[0] + 1, value[1] - value[0] - 2, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Names the slots of a template.
+     */
+    public static final class Builder {
+
+        private final byte[] json;
+        private final List<String> names = new ArrayList<>();
+        private final List<Integer> widths = new ArrayList<>();
+        private final List<Boolean> text = new ArrayList<>();
+
+        private Builder(byte[] json) {
+            this.json = json;
+        }
+
+        /**
+         * Adds a slot for a number field, wide enough for any long.
+         */
+        public Builder number(String name) {
+            return add(name, NUMBER_WIDTH, false);
+        }
+
+        /**
+         * Adds a slot for a string field.
+         *
+         * @param maxBytes Longest value the slot takes, in UTF-8 bytes once escaped
+         */
+        public Builder text(String name, int maxBytes) {
+            return add(name, maxBytes + 2, true);
+        }
+
+        private Builder add(String name, int width, boolean isText) {
+            if (names.contains(name)) {
+                throw new IllegalArgumentException("Slot '" + name + "' given twice");
+            }
+            names.add(name);
+            widths.add(width);
+            text.add(isText);
+            return this;
+        }
+
+        public BodyTemplate build() {
+            int slots = names.size();
+            int[][] values = new int[slots][];
+            for (int i = 0; i < slots; i++) {
+                values[i] = Scanner.find(json, names.get(i));
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length + slots * (NUMBER_WIDTH + 16));
+            int[] offsets = new int[slots];
+            int copied = 0;
+            // Existing fields are replaced where they are, in document order
+            Integer[] order = new Integer[slots];
+            for (int i = 0; i < slots; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(
+                    values[a] == null ? Integer.MAX_VALUE : values[a][0],
+                    values[b] == null ? Integer.MAX_VALUE : values[b][0]));
+            for (int i : order) {
+                if (values[i] == null) {
+                    continue;
+                }
+                out.write(json, copied, values[i][0] - copied);
+                offsets[i] = out.size();
+                writeSlot(out, i, json, values[i][0], values[i][1]);
+                copied = values[i][1];
+            }
+
+            // Missing fields go before the closing brace of the object
+            int close = Scanner.closingBrace(json);
+            out.write(json, copied, close - copied);
+            boolean empty = Scanner.isEmptyObject(json);
+            for (int i = 0; i < slots; i++) {
+                if (values[i] != null) {
+                    continue;
+                }
+                byte[] key = ((empty ? "" : ",") + "\"" + names.get(i) + "\":").getBytes(StandardCharsets.UTF_8);
+                out.write(key, 0, key.length);
+                empty = false;
+                offsets[i] = out.size();
+                byte[] none = text.get(i) ? new byte[]{'n', 'u', 'l', 'l'} : new byte[]{'0'};
+                writeSlot(out, i, none, 0, none.length);
+            }
+            out.write(json, close, json.length - close);
+
+            int[] widthArray = new int[slots];
+            boolean[] textArray = new boolean[slots];
+            for (int i = 0; i < slots; i++) {
+                widthArray[i] = widths.get(i);
+                textArray[i] = text.get(i);
+            }
+            return new BodyTemplate(out.toByteArray(), names.toArray(new String[0]), offsets, widthArray, textArray);
+        }
+
+        /**
+         * Writes the original value padded to the slot width: numbers right-aligned, anything else
+         * left-aligned.
+         */
+        private void writeSlot(ByteArrayOutputStream out, int slot, byte[] source, int from, int to) {
+            int width = widths.get(slot);
+            int length = to - from;
+            if (length > width) {
+                throw new IllegalArgumentException("Value of '" + names.get(slot) + "' is wider than its slot: "
+                        + new String(source, from, length, StandardCharsets.UTF_8));
+            }
+            boolean rightAligned = !text.get(slot);
+            if (rightAligned) {
+                pad(out, width - length);
+            }
+            out.write(source, from, length);
+            if (!rightAligned) {
+                pad(out, width - length);
+            }
+        }
+
+        private static void pad(ByteArrayOutputStream out, int count) {
+            for (int i = 0; i < count; i++) {
+                out.write(' ');
+            }
+        }
+    }
+
+    /**
+     * Just enough of a JSON reader to locate the values of top-level fields.
+     */
+    private static final class Scanner {
+
+        /**
+         * @return Start (inclusive) and end (exclusive) of the value of a top-level field, or null
+         */
+        static int[] find(byte[] json, String name) {
+            byte[] key = name.getBytes(StandardCharsets.UTF_8);
+            int position = skipWhitespace(json, 0);
+            if (position >= json.length || json[position] != '{') {
+                throw new IllegalArgumentException("Template must be a JSON object");
+            }
+            position = skipWhitespace(json, position + 1);
+            while (position < json.length && json[position] == '"') {
+                int keyEnd = skipString(json, position);
+                boolean match = keyEnd - position - 2 == key.length
+                        && Arrays.equals(json, position + 1, keyEnd - 1, key, 0, key.length);
+                position = skipWhitespace(json, keyEnd);
+                if (position >= json.length || json[position] != ':') {
+                    throw malformed(position);
+                }
+                int valueStart = skipWhitespace(json, position + 1);
+                int valueEnd = skipValue(json, valueStart);
+                if (match) {
+                    return new int[]{valueStart, valueEnd};
+                }
+                position = skipWhitespace(json, valueEnd);
+                if (position < json.length && json[position] == ',') {
+                    position = skipWhitespace(json, position + 1);
+                }
+            }
+            return null;
+        }
+
+        static int closingBrace(byte[] json) {
+            for (int i = json.length - 1; i >= 0; i--) {
+                if (json[i] == '}') {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Template must be a JSON object");
+        }
+
+        static boolean isEmptyObject(byte[] json) {
+            int position = skipWhitespace(json, 0);
+            return skipWhitespace(json, position + 1) == closingBrace(json);
+        }
+
+        private static int skipValue(byte[] json, int position) {
+            if (position >= json.length) {
+                throw malformed(position);
+            }
+            byte first = json[position];
+            if (first == '"') {
+                return skipString(json, position);
+            }
+            if (first == '{' || first == '[') {
+                int depth = 0;
+                while (position < json.length) {
+                    byte b = json[position];
+                    if (b == '"') {
+                        position = skipString(json, position);
+                        continue;
+                    }
+                    if (b == '{' || b == '[') {
+                        depth++;
+                    } else if (b == '}' || b == ']') {
+                        if (--depth == 0) {
+                            return position + 1;
+                        }
+                    }
+                    position++;
+                }
+                throw malformed(position);
+            }
+            while (position < json.length && json[position] != ',' && json[position] != '}'
+                    && json[position] != ' ' && json[position] != '\t' && json[position] != '\r'
+                    && json[position] != '\n') {
+                position++;
+            }
+            return position;
+        }
+
+        /**
+         * @return Position just past the closing quote of the string starting at {@code position}
+         */
+        private static int skipString(byte[] json, int position) {
+            for (int i = position + 1; i < json.length; i++) {
+                if (json[i] == '\\') {
+                    i++;
+                } else if (json[i] == '"') {
+                    return i + 1;
+                }
+            }
+            throw malformed(position);
+        }
+
+        private static int skipWhitespace(byte[] json, int position) {
+            while (position < json.length && (json[position] == ' ' || json[position] == '\t'
+                    || json[position] == '\r' || json[position] == '\n')) {
+                position++;
+            }
+            return position;
+        }
+
+        private static IllegalArgumentException malformed(int position) {
+            return new IllegalArgumentException("Malformed JSON template at byte " + position);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.petstore.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coordinator of a distributed load run.
+ * <p>
+ * Waits for the expected number of {@link Worker}s to connect over plain TCP, pushes each its
+ * share of the {@link RunPlan} and merges the statistics intervals they stream back into one
+ * {@link LabelStats} per label. A live line per label is printed every interval; the merged
+ * statistics are the final report once every worker is done. A run in which any worker fails
+ * or disconnects fails as a whole, rather than reporting the statistics of the others.
+ */
+public final class Coordinator {
+
+    static final byte INTERVAL = 1;
+    static final byte DONE = 2;
+    static final byte FAILED = 3;
+
+    private final int port;
+    private final int workers;
+
+    /**
+     * @param port    TCP port the workers connect to
+     * @param workers Number of workers to wait for before starting
+     */
+    public Coordinator(int port, int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("A distributed run needs at least one worker");
+        }
+        this.port = port;
+        this.workers = workers;
+    }
+
+    /**
+     * Runs the plan on the workers and waits for all of them to finish.
+     *
+     * @param plan The whole run; every worker gets its share
+     * @return Merged statistics per workload label, in workload order
+     * @throws IOException When a worker failed or its connection was lost, after the others finished
+     */
+    Map<String, LabelStats> run(RunPlan plan) throws IOException, InterruptedException {
+        Map<String, LabelStats> results = LoadEngine.statsFor(plan.workloads);
+        List<Socket> sockets = new ArrayList<>();
+        ScheduledExecutorService live = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "petstore-coordinator-live");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.println("Coordinator waiting for " + workers + " worker(s) on port " + server.getLocalPort());
+            while (sockets.size() < workers) {
+                Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                System.out.println("Worker " + sockets.size() + "/" + workers + " connected from "
+                        + socket.getRemoteSocketAddress());
+            }
+
+            long originNanos = System.nanoTime();
+            for (int i = 0; i < sockets.size(); i++) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(sockets.get(i).getOutputStream()));
+                plan.forWorker(i, workers).writeTo(out);
+                out.flush();
+            }
+
+            live.scheduleAtFixedRate(() -> printLive(results), plan.intervalMillis, plan.intervalMillis,
+                    TimeUnit.MILLISECONDS);
+
+            List<Thread> readers = new ArrayList<>();
+            List<String> failures = new ArrayList<>();
+            for (int i = 0; i < sockets.size(); i++) {
+                Socket socket = sockets.get(i);
+                int worker = i + 1;
+                Thread reader = new Thread(() -> {
+                    String failure = receive(socket, results, originNanos);
+                    if (failure != null) {
+                        synchronized (failures) {
+                            failures.add("Worker " + worker + ": " + failure);
+                        }
+                    }
+                }, "petstore-coordinator-worker-" + worker);
+                reader.start();
+                readers.add(reader);
+            }
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            if (!failures.isEmpty()) {
+                throw new IOException(failures.size() + " of " + workers + " worker(s) did not finish: "
+                        + String.join("; ", failures));
+            }
+        } finally {
+            live.shutdownNow();
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Merges the intervals of one worker until it is done.
+     *
+     * @return Null when the worker finished normally, otherwise why it did not
+     */
+    private static String receive(Socket socket, Map<String, LabelStats> results, long originNanos) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (true) {
+                byte type = in.readByte();
+                if (type == DONE) {
+                    return null;
+                }
+                if (type == FAILED) {
+                    return in.readUTF();
+                }
+                int labels = in.readInt();
+                for (int i = 0; i < labels; i++) {
+                    String label = in.readUTF();
+                    LabelStats.Interval interval = LabelStats.Interval.readFrom(in, originNanos);
+                    LabelStats stats = results.get(label);
+                    if (stats != null) {
+                        stats.add(interval);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            return "connection lost: " + e.getMessage();
+        }
+    }
+
+    private static void printLive(Map<String, LabelStats> results) {
+        for (LabelStats stats : results.values()) {
+            Histogram latency = stats.getLatencyHistogram();
+            System.out.println(String.format(Locale.ROOT,
+                    "[live] %s: %d samples, %.2f%% errors, %.1f/s, p50 %.1f ms, p99 %.1f ms",
+                    stats.getLabel(), stats.getSamples(), stats.getErrorRatio() * 100,
+                    stats.getThroughputPerSecond(),
+                    latency.getValueAtPercentile(50) / 1_000.0,
+                    latency.getValueAtPercentile(99) / 1_000.0));
+        }
+    }
+}
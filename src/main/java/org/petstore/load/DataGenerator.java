@@ -0,0 +1,378 @@
+package org.petstore.load;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates large, reproducible sets of pets, orders and users as JSON lines, ready for the
+ * load engine's payload files and the {@link UserSeeder}.
+ * <p>
+ * Every record is a pure function of the seed and its index: its random numbers come from a
+ * generator seeded with both, so any range can be produced on any thread and the output is
+ * byte-for-byte the same whatever the number of threads. Records are encoded straight to bytes,
+ * never as request objects, in chunks that worker threads fill in parallel and one writer
+ * appends in order; only a few chunks per thread are held at a time.
+ * <p>
+ * Values follow skewed distributions rather than uniform ones: pets are mostly available, some
+ * categories are far more common than others, most pets have one or two tags, and most orders are
+ * for one or two pets. Ids are {@code base + index} and usernames {@code user<index>}, so records
+ * are unique; order pet ids point into the generated pets.
+ * <pre>
+ * java -cp target/classes org.petstore.load.DataGenerator --count=1000000 --seed=42 --out=target/data
+ * </pre>
+ * Options: {@code --kinds} (default pets,orders,users), {@code --count} records of each kind
+ * (default 100000), {@code --seed} (default 42), {@code --out} directory for pets.csv,
+ * orders.csv and users.csv (default target/data) and {@code --threads} (default: cores).
+ */
+public final class DataGenerator {
+
+    /**
+     * Kind of record, with the first id and the output file name.
+     */
+    public enum Kind {
+        PETS(1_000_000_000L, "pets.csv"),
+        ORDERS(2_000_000_000L, "orders.csv"),
+        USERS(3_000_000_000L, "users.csv");
+
+        private final long idBase;
+        private final String fileName;
+
+        Kind(long idBase, String fileName) {
+            this.idBase = idBase;
+            this.fileName = fileName;
+        }
+
+        public long getIdBase() {
+            return idBase;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+    }
+
+    private static final int CHUNK_RECORDS = 16_384;
+
+    private static final String[] STATUSES = {"available", "pending", "sold"};
+    private static final double[] STATUS_WEIGHTS = {0.60, 0.25, 0.15};
+
+    private static final String[] CATEGORIES = {"Dogs", "Cats", "Birds", "Fish", "Rabbits", "Reptiles", "Hamsters", "Horses"};
+    private static final double[] CATEGORY_WEIGHTS = {0.34, 0.27, 0.12, 0.10, 0.07, 0.05, 0.03, 0.02};
+
+    private static final String[] TAGS = {"friendly", "vaccinated", "trained", "young", "senior", "playful",
+            "calm", "indoor", "outdoor", "hypoallergenic", "rescue", "purebred"};
+    private static final double[] TAG_COUNT_WEIGHTS = {0.15, 0.35, 0.25, 0.15, 0.07, 0.03};
+
+    private static final String[] NAMES = {"Rex", "Milo", "Bella", "Luna", "Max", "Coco", "Charlie", "Daisy",
+            "Rocky", "Lola", "Buddy", "Nala", "Oscar", "Ruby", "Simba", "Zoe", "Toby", "Molly", "Leo", "Penny"};
+
+    private static final String[] FIRST_NAMES = {"Alice", "Bob", "Charlie", "Diana", "Ethan", "Fiona", "George",
+            "Hannah", "Ivan", "Julia", "Kevin", "Laura", "Marco", "Nina", "Omar", "Paula", "Quentin", "Rosa"};
+    private static final String[] LAST_NAMES = {"Smith", "Brown", "Davis", "Garcia", "Miller", "Wilson", "Moore",
+            "Taylor", "Anderson", "Thomas", "Martin", "Lee", "Clark", "Lewis", "Walker", "Young"};
+    private static final String[] DOMAINS = {"example.com", "example.org", "mail.test", "petstore.test"};
+
+    private static final String[] ORDER_STATUSES = {"placed", "approved", "delivered"};
+    private static final double[] ORDER_STATUS_WEIGHTS = {0.50, 0.30, 0.20};
+    private static final double[] QUANTITY_WEIGHTS = {0.55, 0.25, 0.10, 0.05, 0.03, 0.02};
+
+    private static final long SHIP_DATE_START = LocalDateTime.of(2025, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final long SHIP_DATE_RANGE_SECONDS = 365L * 24 * 3600;
+
+    private final long seed;
+    private final long petCount;
+
+    /**
+     * @param seed     Seed every record is derived from
+     * @param petCount Number of generated pets, the range order pet ids are drawn from
+     */
+    public DataGenerator(long seed, long petCount) {
+        this.seed = seed;
+        this.petCount = Math.max(petCount, 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Main.parseOptions(args);
+        long count = Long.parseLong(options.getOrDefault("count", "100000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Path out = Paths.get(options.getOrDefault("out", "target/data"));
+        Files.createDirectories(out);
+
+        DataGenerator generator = new DataGenerator(seed, count);
+        for (String name : options.getOrDefault("kinds", "pets,orders,users").split(",")) {
+            Kind kind = Kind.valueOf(name.trim().toUpperCase(Locale.ROOT));
+            Path file = out.resolve(kind.getFileName());
+            long start = System.nanoTime();
+            generator.write(kind, count, file, threads);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            System.out.println(String.format(Locale.ROOT, "%,d %s in %.2fs (%,.0f records/s, %.1f MB) -> %s",
+                    count, name.trim(), seconds, count / seconds, Files.size(file) / 1024.0 / 1024.0, file));
+        }
+    }
+
+    /**
+     * Writes records 0 to count - 1 of a kind to a file, one JSON object per line.
+     *
+     * @param kind    Kind of record
+     * @param count   Number of records
+     * @param file    File to write
+     * @param threads Encoding threads
+     */
+    public void write(Kind kind, long count, Path file, int threads) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "petstore-data-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Chunks are written in submission order; the window bounds how far encoding runs ahead of the disk
+        ArrayDeque<Future<Chunk>> window = new ArrayDeque<>();
+        int maxWindow = Math.max(1, threads) * 2;
+        try (OutputStream out = Files.newOutputStream(file)) {
+            long next = 0;
+            while (next < count || !window.isEmpty()) {
+                while (next < count && window.size() < maxWindow) {
+                    long from = next;
+                    long to = Math.min(count, from + CHUNK_RECORDS);
+                    window.add(executor.submit(() -> encode(kind, from, to)));
+                    next = to;
+                }
+                Chunk chunk = window.poll().get();
+                out.write(chunk.bytes, 0, chunk.length);
+            }
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to generate " + kind, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Encodes a range of records, one JSON object per line.
+     *
+     * @param kind Kind of record
+     * @param from First record index, inclusive
+     * @param to   Last record index, exclusive
+     * @return The encoded records
+     */
+    public Chunk encode(Kind kind, long from, long to) {
+        Chunk chunk = new Chunk((int) Math.min(Integer.MAX_VALUE - 8, (to - from) * 200));
+        Random random = new Random();
+        for (long index = from; index < to; index++) {
+            random.reset(seed, kind.ordinal(), index);
+            switch (kind) {
+                case PETS:
+                    pet(chunk, random, index);
+                    break;
+                case ORDERS:
+                    order(chunk, random, index);
+                    break;
+                default:
+                    user(chunk, random, index);
+                    break;
+            }
+            chunk.append('\n');
+        }
+        return chunk;
+    }
+
+    /**
+     * @return Record {@code index} of a kind, as JSON without the line feed
+     */
+    public byte[] record(Kind kind, long index) {
+        Chunk chunk = encode(kind, index, index + 1);
+        return Arrays.copyOf(chunk.bytes, chunk.length - 1);
+    }
+
+    private void pet(Chunk out, Random random, long index) {
+        int category = random.pick(CATEGORY_WEIGHTS);
+        out.append("{\"id\":").append(Kind.PETS.idBase + index)
+                .append(",\"category\":{\"id\":").append(category + 1)
+                .append(",\"name\":\"").append(CATEGORIES[category]).append("\"}")
+                .append(",\"name\":\"").append(NAMES[random.nextInt(NAMES.length)]).append('-').append(index)
+                .append("\",\"photoUrls\":[");
+        int photos = 1 + random.nextInt(3);
+        for (int i = 0; i < photos; i++) {
+            out.append(i == 0 ? "\"" : ",\"").append("https://img.petstore.test/").append(index).append('/')
+                    .append(i).append(".jpg\"");
+        }
+        out.append("],\"tags\":[");
+        int tags = random.pick(TAG_COUNT_WEIGHTS);
+        int firstTag = random.nextInt(TAGS.length);
+        for (int i = 0; i < tags; i++) {
+            int tag = (firstTag + i * 5) % TAGS.length;
+            out.append(i == 0 ? "{\"id\":" : ",{\"id\":").append(tag + 1)
+                    .append(",\"name\":\"").append(TAGS[tag]).append("\"}");
+        }
+        out.append("],\"status\":\"").append(STATUSES[random.pick(STATUS_WEIGHTS)]).append("\"}");
+    }
+
+    private void order(Chunk out, Random random, long index) {
+        int status = random.pick(ORDER_STATUS_WEIGHTS);
+        LocalDateTime shipDate = LocalDateTime.ofEpochSecond(
+                SHIP_DATE_START + random.nextLong(SHIP_DATE_RANGE_SECONDS), 0, ZoneOffset.UTC);
+        out.append("{\"id\":").append(Kind.ORDERS.idBase + index)
+                .append(",\"petId\":").append(Kind.PETS.idBase + random.nextLong(petCount))
+                .append(",\"quantity\":").append(1 + random.pick(QUANTITY_WEIGHTS))
+                .append(",\"shipDate\":\"");
+        out.appendPadded(shipDate.getYear(), 4).append('-').appendPadded(shipDate.getMonthValue(), 2).append('-')
+                .appendPadded(shipDate.getDayOfMonth(), 2).append('T').appendPadded(shipDate.getHour(), 2).append(':')
+                .appendPadded(shipDate.getMinute(), 2).append(':').appendPadded(shipDate.getSecond(), 2)
+                .append(".000Z\"");
+        out.append(",\"status\":\"").append(ORDER_STATUSES[status])
+                .append("\",\"complete\":").append(status == 2 ? "true" : "false").append('}');
+    }
+
+    private void user(Chunk out, Random random, long index) {
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        out.append("{\"id\":").append(Kind.USERS.idBase + index)
+                .append(",\"username\":\"user").append(index)
+                .append("\",\"firstName\":\"").append(firstName)
+                .append("\",\"lastName\":\"").append(lastName)
+                .append("\",\"email\":\"").append(firstName.toLowerCase(Locale.ROOT)).append('.')
+                .append(lastName.toLowerCase(Locale.ROOT)).append(index).append('@')
+                .append(DOMAINS[random.nextInt(DOMAINS.length)])
+                .append("\",\"password\":\"pw").append(random.nextLong(1L << 40))
+                .append("\",\"phone\":\"").appendPadded(random.nextLong(10_000_000_000L), 10)
+                .append("\",\"userStatus\":").append(random.nextInt(10) < 8 ? 1 : 0).append('}');
+    }
+
+    /**
+     * Growable byte buffer the records are encoded into. Every generated value is ASCII, so
+     * characters are written as bytes without an encoder.
+     */
+    public static final class Chunk {
+        private byte[] bytes;
+        private int length;
+
+        Chunk(int capacity) {
+            bytes = new byte[Math.max(capacity, 64)];
+        }
+
+        /**
+         * @return The buffer; only the first {@link #length()} bytes are records
+         */
+        public byte[] bytes() {
+            return bytes;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        Chunk append(char c) {
+            ensure(1);
+            bytes[length++] = (byte) c;
+            return this;
+        }
+
+        Chunk append(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[length++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        Chunk append(long value) {
+            if (value < 0) {
+                append('-');
+                value = -value;
+            }
+            return appendPadded(value, 1);
+        }
+
+        /**
+         * Appends a non-negative number, left-padded with zeros to at least {@code width} digits.
+         */
+        Chunk appendPadded(long value, int width) {
+            int digits = 1;
+            for (long rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            int size = Math.max(digits, width);
+            ensure(size);
+            for (int i = size - 1; i >= 0; i--) {
+                bytes[length + i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += size;
+            return this;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+        }
+    }
+
+    /**
+     * SplitMix64, reseeded for every record from the seed, the kind and the record index.
+     */
+    private static final class Random {
+        private long state;
+
+        void reset(long seed, int kind, long index) {
+            state = mix(mix(seed ^ (kind * 0x9E3779B97F4A7C15L)) + index);
+        }
+
+        long nextLong() {
+            state += 0x9E3779B97F4A7C15L;
+            return mix(state);
+        }
+
+        long nextLong(long bound) {
+            return Math.floorMod(nextLong(), bound);
+        }
+
+        int nextInt(int bound) {
+            return (int) nextLong(bound);
+        }
+
+        double nextDouble() {
+            return (nextLong() >>> 11) * 0x1.0p-53;
+        }
+
+        /**
+         * @return An index drawn with the given probabilities
+         */
+        int pick(double[] weights) {
+            double r = nextDouble();
+            for (int i = 0; i < weights.length - 1; i++) {
+                r -= weights[i];
+                if (r < 0) {
+                    return i;
+                }
+            }
+            return weights.length - 1;
+        }
+
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,737 @@
+package org.petstore.load;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming analyzer of JMeter result files (JTL/CSV sample logs) of any size.
+ * <p>
+ * The file is cut into chunks at line boundaries; each chunk is memory-mapped and parsed from
+ * the mapped bytes on its own thread, with no String per line (labels are looked up by their
+ * bytes, messages are only decoded for failed samples). Chunk results are merged as they
+ * complete, so memory is bounded by the number of labels, seconds and distinct errors rather than
+ * by the file size. Columns are found by their header names, and the delimiter ({@code ,},
+ * {@code ;} or tab) is detected from the header, as locales with decimal commas write
+ * semicolon-separated logs.
+ * <p>
+ * Records must not span lines, which holds for JMeter CSV logs unless response messages with
+ * newlines are saved. Summary Report CSVs are recognised by their header and normalised instead
+ * (see {@link SummaryReportReader}).
+ * <pre>
+ * java -cp target/classes org.petstore.load.JtlAnalyzer results.jtl --summary=target/jtl-summary.csv
+ * </pre>
+ * Options: {@code --summary} (default target/jtl-summary.csv), {@code --threads} (default: cores),
+ * {@code --chunk-mb} (default 32, at most 1024) and {@code --timestamp-format} for logs saved with a formatted
+ * timeStamp instead of epoch milliseconds, e.g. {@code yyyy/MM/dd HH:mm:ss.SSS}.
+ */
+public final class JtlAnalyzer {
+
+    private static final int NOT_A_NUMBER = Integer.MIN_VALUE;
+    /**
+     * Largest {@code --chunk-mb}; a mapping is limited to 2 GB and a chunk runs on to the end of its last line
+     */
+    private static final int MAX_CHUNK_MB = 1024;
+
+    private final int threads;
+    private final long chunkBytes;
+    private final DateTimeFormatter timestampFormat;
+
+    /**
+     * @param threads         Parser threads
+     * @param chunkBytes      Bytes per mapped chunk
+     * @param timestampFormat Format of the timeStamp column, or null for epoch milliseconds
+     */
+    public JtlAnalyzer(int threads, long chunkBytes, String timestampFormat) {
+        this.threads = threads;
+        this.chunkBytes = Math.max(chunkBytes, 64 * 1024);
+        this.timestampFormat = timestampFormat == null ? null : DateTimeFormatter.ofPattern(timestampFormat);
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> files = new ArrayList<>();
+        List<String> flags = new ArrayList<>();
+        for (String arg : args) {
+            (arg.startsWith("--") ? flags : files).add(arg);
+        }
+        if (files.size() != 1) {
+            throw new IllegalArgumentException("Usage: JtlAnalyzer <results.jtl|summary.csv> [--summary=...]"
+                    + " [--threads=n] [--chunk-mb=n] [--timestamp-format=pattern]");
+        }
+        Map<String, String> options = Main.parseOptions(flags.toArray(new String[0]));
+        Path input = Paths.get(files.get(0));
+
+        if (isSummaryReport(input)) {
+            System.out.println(SummaryReport.HEADER);
+            for (SummaryReportReader.Row row : SummaryReportReader.read(input)) {
+                System.out.println(row.toCsv());
+            }
+            return;
+        }
+
+        int chunkMb = Integer.parseInt(options.getOrDefault("chunk-mb", "32"));
+        if (chunkMb < 1 || chunkMb > MAX_CHUNK_MB) {
+            throw new IllegalArgumentException("--chunk-mb must be between 1 and " + MAX_CHUNK_MB);
+        }
+        JtlAnalyzer analyzer = new JtlAnalyzer(
+                Integer.parseInt(options.getOrDefault("threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                chunkMb * 1024L * 1024, options.get("timestamp-format"));
+        long start = System.nanoTime();
+        Result result = analyzer.analyze(input);
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+        System.out.println(SummaryReport.HEADER);
+        for (LabelStats stats : result.getLabels().values()) {
+            System.out.println(SummaryReport.row(stats));
+        }
+        System.out.println(PercentileReport.HEADER);
+        for (LabelStats stats : result.getLabels().values()) {
+            System.out.println(PercentileReport.row(stats.getLabel(), stats.getLatencyHistogram()));
+        }
+        if (!result.getErrors().isEmpty()) {
+            System.out.println(ERRORS_HEADER);
+            result.getErrors().stream().limit(10).forEach(error -> System.out.println(error.toCsv(result)));
+        }
+        Path summary = Paths.get(options.getOrDefault("summary", "target/jtl-summary.csv"));
+        result.write(summary);
+        System.out.println(String.format(Locale.ROOT,
+                "%d samples (%d malformed lines skipped, %d outside the time series) in %.2fs, %.0f MB/s",
+                result.getSamples(), result.getMalformedLines(), result.getOutliers(), seconds,
+                Files.size(input) / 1024.0 / 1024.0 / Math.max(seconds, 1e-9)));
+        System.out.println("Summary, percentiles, time series and errors written next to " + summary.toAbsolutePath());
+    }
+
+    private static boolean isSummaryReport(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(64);
+            channel.read(head, 0);
+            return new String(head.array(), 0, head.position(), StandardCharsets.UTF_8).startsWith("Label,");
+        }
+    }
+
+    /**
+     * Parses a sample log.
+     *
+     * @param file JTL/CSV sample log with a header line
+     * @return Per-label statistics, the per-second series and the error breakdown
+     */
+    public Result analyze(Path file) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Header header = Header.read(channel);
+            List<long[]> chunks = chunks(channel, header.endOffset, size);
+
+            Result result = new Result();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+                Thread thread = new Thread(runnable, "petstore-jtl-parser");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                CompletionService<ChunkResult> completion = new ExecutorCompletionService<>(executor);
+                for (long[] chunk : chunks) {
+                    completion.submit(() -> parse(channel, chunk[0], chunk[1], header));
+                }
+                for (int i = 0; i < chunks.size(); i++) {
+                    result.merge(completion.take().get());
+                }
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to parse " + file, e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Cuts [start, end) into ranges of about chunkBytes, each ending right after a line feed.
+     */
+    private List<long[]> chunks(FileChannel channel, long start, long end) throws IOException {
+        List<long[]> chunks = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+        long chunkStart = start;
+        while (chunkStart < end) {
+            long boundary = Math.min(chunkStart + chunkBytes, end);
+            while (boundary < end) {
+                probe.clear();
+                int read = channel.read(probe, boundary);
+                int newline = -1;
+                for (int i = 0; i < read && newline < 0; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                    }
+                }
+                if (newline >= 0) {
+                    boundary += newline + 1;
+                    break;
+                }
+                boundary += Math.max(read, 1);
+            }
+            boundary = Math.min(boundary, end);
+            chunks.add(new long[]{chunkStart, boundary});
+            chunkStart = boundary;
+        }
+        return chunks;
+    }
+
+    private ChunkResult parse(FileChannel channel, long start, long end, Header header) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        ChunkResult result = new ChunkResult();
+        int[] fieldStart = new int[header.columns + 1];
+        int[] fieldEnd = new int[header.columns + 1];
+        byte delimiter = header.delimiter;
+        int limit = buffer.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int fields = 0;
+            fieldStart[0] = pos;
+            boolean quoted = false;
+            int i = pos;
+            for (; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && b == '\n') {
+                    break;
+                } else if (!quoted && b == delimiter && fields < header.columns) {
+                    fieldEnd[fields++] = i;
+                    fieldStart[fields] = i + 1;
+                }
+            }
+            int lineEnd = i > pos && buffer.get(i - 1) == '\r' ? i - 1 : i;
+            fieldEnd[fields++] = lineEnd;
+            pos = i + 1;
+            if (lineEnd == fieldStart[0]) {
+                continue; // blank line
+            }
+            if (fields < header.required) {
+                result.malformedLines++;
+                continue;
+            }
+            record(buffer, fieldStart, fieldEnd, header, result);
+        }
+        return result;
+    }
+
+    private void record(ByteBuffer buffer, int[] fieldStart, int[] fieldEnd, Header header, ChunkResult result) {
+        long timestamp = parseLong(buffer, fieldStart[header.timeStamp], fieldEnd[header.timeStamp]);
+        if (timestamp == NOT_A_NUMBER) {
+            timestamp = parseTimestamp(text(buffer, fieldStart[header.timeStamp], fieldEnd[header.timeStamp]));
+        }
+        long elapsed = parseLong(buffer, fieldStart[header.elapsed], fieldEnd[header.elapsed]);
+        if (timestamp == NOT_A_NUMBER || timestamp <= 0 || elapsed == NOT_A_NUMBER) {
+            result.malformedLines++;
+            return;
+        }
+        byte first = fieldStart[header.success] < fieldEnd[header.success]
+                ? buffer.get(unquotedStart(buffer, fieldStart[header.success], fieldEnd[header.success])) : 0;
+        boolean success = first == 't' || first == 'T';
+        long bytes = header.bytes < 0 ? 0 : Math.max(0, parseLong(buffer, fieldStart[header.bytes], fieldEnd[header.bytes]));
+        long sentBytes = header.sentBytes < 0 ? 0
+                : Math.max(0, parseLong(buffer, fieldStart[header.sentBytes], fieldEnd[header.sentBytes]));
+
+        ChunkLabel label = result.label(buffer, fieldStart[header.label], fieldEnd[header.label]);
+        label.stats.record(timestamp * 1_000_000L, (timestamp + elapsed) * 1_000_000L, success, bytes, sentBytes);
+        long second = Math.floorDiv(timestamp, 1000);
+        if (result.total.add(second, success, elapsed)) {
+            label.series.add(second, success, elapsed);
+        }
+        if (!success) {
+            String key = label.stats.getLabel() + '\n'
+                    + (header.responseCode < 0 ? "" : text(buffer, fieldStart[header.responseCode], fieldEnd[header.responseCode])) + '\n'
+                    + (header.responseMessage < 0 ? "" : text(buffer, fieldStart[header.responseMessage], fieldEnd[header.responseMessage]));
+            result.errors.computeIfAbsent(key, ignored -> new long[1])[0]++;
+        }
+        result.samples++;
+    }
+
+    private long parseTimestamp(String text) {
+        if (timestampFormat == null) {
+            return NOT_A_NUMBER;
+        }
+        try {
+            return LocalDateTime.parse(text, timestampFormat).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (RuntimeException e) {
+            return NOT_A_NUMBER;
+        }
+    }
+
+    /**
+     * @return The integer in the field (quotes allowed), or {@link #NOT_A_NUMBER}
+     */
+    private static long parseLong(ByteBuffer buffer, int start, int end) {
+        start = unquotedStart(buffer, start, end);
+        end = unquotedEnd(buffer, start, end);
+        if (start >= end) {
+            return NOT_A_NUMBER;
+        }
+        boolean negative = buffer.get(start) == '-';
+        long value = 0;
+        for (int i = negative ? start + 1 : start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NOT_A_NUMBER;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static int unquotedStart(ByteBuffer buffer, int start, int end) {
+        return end - start >= 2 && buffer.get(start) == '"' ? start + 1 : start;
+    }
+
+    private static int unquotedEnd(ByteBuffer buffer, int start, int end) {
+        return end > start && buffer.get(end - 1) == '"' ? end - 1 : end;
+    }
+
+    /**
+     * Decodes a field, removing CSV quoting.
+     */
+    static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = start; i < end; i++) {
+            bytes[i - start] = buffer.get(i);
+        }
+        String raw = new String(bytes, StandardCharsets.UTF_8);
+        if (raw.length() >= 2 && raw.startsWith("\"") && raw.endsWith("\"")) {
+            return raw.substring(1, raw.length() - 1).replace("\"\"", "\"");
+        }
+        return raw;
+    }
+
+    private static final String ERRORS_HEADER = "Label,Response code,Response message,Count,% of label samples";
+
+    /**
+     * Column positions of a sample log, from its header line.
+     */
+    private static final class Header {
+        private long endOffset;
+        private byte delimiter;
+        private int columns;
+        private int required;
+        private int timeStamp;
+        private int elapsed;
+        private int label;
+        private int responseCode = -1;
+        private int responseMessage = -1;
+        private int success;
+        private int bytes = -1;
+        private int sentBytes = -1;
+
+        static Header read(FileChannel channel) throws IOException {
+            ByteBuffer head = ByteBuffer.allocate(64 * 1024);
+            int read = channel.read(head, 0);
+            int newline = -1;
+            for (int i = 0; i < Math.max(read, 0) && newline < 0; i++) {
+                if (head.get(i) == '\n') {
+                    newline = i;
+                }
+            }
+            if (newline < 0) {
+                throw new IOException("No header line found; save the log with field names (jmeter.save.saveservice.print_field_names)");
+            }
+            String line = new String(head.array(), 0, newline, StandardCharsets.UTF_8).trim();
+
+            Header header = new Header();
+            header.endOffset = newline + 1;
+            for (char delimiter : new char[]{',', ';', '\t', '|'}) {
+                List<String> names = SummaryReportReader.splitCsv(line, delimiter);
+                if (names.contains("timeStamp") && names.contains("elapsed")) {
+                    header.delimiter = (byte) delimiter;
+                    header.columns = names.size();
+                    header.timeStamp = names.indexOf("timeStamp");
+                    header.elapsed = names.indexOf("elapsed");
+                    header.label = names.indexOf("label");
+                    header.success = names.indexOf("success");
+                    header.responseCode = names.indexOf("responseCode");
+                    header.responseMessage = names.indexOf("responseMessage");
+                    header.bytes = names.indexOf("bytes");
+                    header.sentBytes = names.indexOf("sentBytes");
+                    if (header.label < 0 || header.success < 0) {
+                        throw new IOException("The log needs the label and success columns, found: " + line);
+                    }
+                    header.required = 1 + Arrays.stream(new int[]{header.timeStamp, header.elapsed, header.label,
+                            header.success, header.responseCode, header.responseMessage, header.bytes,
+                            header.sentBytes}).max().getAsInt();
+                    return header;
+                }
+            }
+            throw new IOException("Not a JMeter sample log (no timeStamp/elapsed header): " + line);
+        }
+    }
+
+    /**
+     * Samples, errors and summed elapsed time per second, in arrays growing in both directions
+     * from the first second seen, so recording a sample allocates nothing.
+     * <p>
+     * The series covers at most {@link #MAX_SPAN_SECONDS}; a sample that would widen it further,
+     * typically a bad timeStamp, is counted as an outlier instead of growing the arrays to reach it.
+     */
+    static final class SecondSeries {
+        static final long MAX_SPAN_SECONDS = TimeUnit.DAYS.toSeconds(7);
+
+        private long base = Long.MIN_VALUE;
+        private long lowest;
+        private long highest;
+        private long[] samples = new long[0];
+        private long[] errors = new long[0];
+        private long[] elapsedMillis = new long[0];
+        private long outliers;
+
+        /**
+         * @return False when the second lies outside the span and the sample was counted as an outlier
+         */
+        boolean add(long second, boolean success, long elapsed) {
+            int index = index(second);
+            if (index < 0) {
+                outliers++;
+                return false;
+            }
+            samples[index]++;
+            if (!success) {
+                errors[index]++;
+            }
+            elapsedMillis[index] += elapsed;
+            return true;
+        }
+
+        void add(SecondSeries other) {
+            outliers += other.outliers;
+            for (int i = 0; i < other.samples.length; i++) {
+                if (other.samples[i] > 0) {
+                    int index = index(other.base + i);
+                    if (index < 0) {
+                        outliers += other.samples[i];
+                        continue;
+                    }
+                    samples[index] += other.samples[i];
+                    errors[index] += other.errors[i];
+                    elapsedMillis[index] += other.elapsedMillis[i];
+                }
+            }
+        }
+
+        long getOutliers() {
+            return outliers;
+        }
+
+        /**
+         * @return Index of the second, growing the arrays as needed, or -1 when it lies outside the span
+         */
+        private int index(long second) {
+            if (base == Long.MIN_VALUE) {
+                base = second;
+                lowest = second;
+                highest = second;
+                grow(0, 64);
+            }
+            if (Math.max(highest, second) - Math.min(lowest, second) >= MAX_SPAN_SECONDS) {
+                return -1;
+            }
+            lowest = Math.min(lowest, second);
+            highest = Math.max(highest, second);
+            if (second < base) {
+                int shift = (int) Math.max(base - second, samples.length / 2);
+                grow(shift, samples.length + shift);
+                base -= shift;
+            } else if (second - base >= samples.length) {
+                grow(0, (int) Math.max(second - base + 1, samples.length * 2L));
+            }
+            return (int) (second - base);
+        }
+
+        private void grow(int shift, int length) {
+            samples = shifted(samples, shift, length);
+            errors = shifted(errors, shift, length);
+            elapsedMillis = shifted(elapsedMillis, shift, length);
+        }
+
+        private static long[] shifted(long[] values, int shift, int length) {
+            long[] grown = new long[length];
+            System.arraycopy(values, 0, grown, shift, values.length);
+            return grown;
+        }
+    }
+
+    /**
+     * One failure kind of one label.
+     */
+    public static final class ErrorCount {
+        private final String label;
+        private final String responseCode;
+        private final String responseMessage;
+        private final long count;
+
+        ErrorCount(String label, String responseCode, String responseMessage, long count) {
+            this.label = label;
+            this.responseCode = responseCode;
+            this.responseMessage = responseMessage;
+            this.count = count;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getResponseCode() {
+            return responseCode;
+        }
+
+        public String getResponseMessage() {
+            return responseMessage;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        String toCsv(Result result) {
+            LabelStats stats = result.getLabels().get(label);
+            long samples = stats == null ? 0 : stats.getSamples();
+            return String.format(Locale.ROOT, "%s,%s,%s,%d,%.3f%%", csv(label), csv(responseCode),
+                    csv(responseMessage), count, samples == 0 ? 0 : 100.0 * count / samples);
+        }
+    }
+
+    private static String csv(String value) {
+        return value.contains(",") || value.contains("\"")
+                ? "\"" + value.replace("\"", "\"\"") + "\""
+                : value;
+    }
+
+    /**
+     * Merged outcome of all chunks.
+     */
+    public static final class Result {
+        private final Map<String, LabelStats> labels = new TreeMap<>();
+        private final Map<String, SecondSeries> series = new TreeMap<>();
+        private final SecondSeries total = new SecondSeries();
+        private final Map<String, long[]> errors = new HashMap<>();
+        private long samples;
+        private long malformedLines;
+
+        void merge(ChunkResult chunk) {
+            for (ChunkLabel label : chunk.labels.values()) {
+                String name = label.stats.getLabel();
+                labels.computeIfAbsent(name, LabelStats::new).add(label.stats.takeInterval());
+                series.computeIfAbsent(name, ignored -> new SecondSeries()).add(label.series);
+            }
+            total.add(chunk.total);
+            chunk.errors.forEach((key, count) -> errors.computeIfAbsent(key, ignored -> new long[1])[0] += count[0]);
+            samples += chunk.samples;
+            malformedLines += chunk.malformedLines;
+        }
+
+        /**
+         * @return Statistics per label, sorted by label
+         */
+        public Map<String, LabelStats> getLabels() {
+            return labels;
+        }
+
+        /**
+         * @return Failures grouped by label, response code and message, most frequent first
+         */
+        public List<ErrorCount> getErrors() {
+            List<ErrorCount> counts = new ArrayList<>();
+            errors.forEach((key, count) -> {
+                String[] parts = key.split("\n", 3);
+                counts.add(new ErrorCount(parts[0], parts[1], parts[2], count[0]));
+            });
+            counts.sort((a, b) -> Long.compare(b.count, a.count));
+            return counts;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public long getMalformedLines() {
+            return malformedLines;
+        }
+
+        /**
+         * @return Samples counted in the statistics but left out of the time series, their timeStamp
+         * lying too far from the others (see {@link SecondSeries#MAX_SPAN_SECONDS})
+         */
+        public long getOutliers() {
+            return total.getOutliers();
+        }
+
+        /**
+         * Writes the Summary Report CSV and, next to it, the percentiles ({@link PercentileReport}),
+         * {@code <summary>.timeseries.csv} with samples, errors and mean latency per second for
+         * every label and in total, and {@code <summary>.errors.csv}.
+         *
+         * @param summary Summary Report CSV to write
+         */
+        public void write(Path summary) throws IOException {
+            SummaryReport.write(summary, labels.values());
+            PercentileReport.write(summary, labels.values());
+
+            Map<String, SecondSeries> all = new LinkedHashMap<>(series);
+            all.put("TOTAL", total);
+            try (Writer writer = Files.newBufferedWriter(PercentileReport.sibling(summary, ".timeseries.csv"),
+                    StandardCharsets.UTF_8)) {
+                writer.write("Time,Label,Samples,Errors,Average\n");
+                for (Map.Entry<String, SecondSeries> entry : all.entrySet()) {
+                    SecondSeries values = entry.getValue();
+                    for (int i = 0; i < values.samples.length; i++) {
+                        if (values.samples[i] == 0) {
+                            continue;
+                        }
+                        writer.write(String.format(Locale.ROOT, "%s,%s,%d,%d,%d%n",
+                                Instant.ofEpochSecond(values.base + i), csv(entry.getKey()), values.samples[i],
+                                values.errors[i], Math.round((double) values.elapsedMillis[i] / values.samples[i])));
+                    }
+                }
+            }
+
+            try (Writer writer = Files.newBufferedWriter(PercentileReport.sibling(summary, ".errors.csv"),
+                    StandardCharsets.UTF_8)) {
+                writer.write(ERRORS_HEADER);
+                writer.write('\n');
+                for (ErrorCount error : getErrors()) {
+                    writer.write(error.toCsv(this));
+                    writer.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * What one parser thread collected from one chunk.
+     */
+    private static final class ChunkResult {
+        private final Map<String, ChunkLabel> labels = new HashMap<>();
+        private final SecondSeries total = new SecondSeries();
+        private final Map<String, long[]> errors = new HashMap<>();
+        private ChunkLabel[] table = new ChunkLabel[64];
+        private int tableSize;
+        private long samples;
+        private long malformedLines;
+
+        /**
+         * Finds the label by its raw bytes in an open-addressing table, decoding it only the
+         * first time it is seen in the chunk.
+         */
+        ChunkLabel label(ByteBuffer buffer, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = table.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                ChunkLabel entry = table[slot];
+                if (entry == null) {
+                    break;
+                }
+                if (entry.hash == hash && entry.matches(buffer, start, end)) {
+                    return entry;
+                }
+            }
+
+            byte[] raw = new byte[end - start];
+            for (int i = start; i < end; i++) {
+                raw[i - start] = buffer.get(i);
+            }
+            String name = text(buffer, start, end);
+            ChunkLabel label = labels.get(name);
+            if (label == null) {
+                label = new ChunkLabel(new LabelStats(name, 1));
+                labels.put(name, label);
+            }
+            ChunkLabel entry = label.withKey(raw, hash);
+            if (++tableSize * 2 > table.length) {
+                rehash();
+            }
+            insert(entry);
+            return entry;
+        }
+
+        private void insert(ChunkLabel entry) {
+            int mask = table.length - 1;
+            int slot = entry.hash & mask;
+            while (table[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = entry;
+        }
+
+        private void rehash() {
+            ChunkLabel[] old = table;
+            table = new ChunkLabel[old.length * 2];
+            for (ChunkLabel entry : old) {
+                if (entry != null) {
+                    insert(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Accumulators of one label in one chunk. The same label may be reached through several
+     * raw spellings (quoted or not), which share the accumulators.
+     */
+    private static final class ChunkLabel {
+        private final LabelStats stats;
+        private final SecondSeries series;
+        private final byte[] key;
+        private final int hash;
+
+        ChunkLabel(LabelStats stats) {
+            this(stats, new SecondSeries(), null, 0);
+        }
+
+        private ChunkLabel(LabelStats stats, SecondSeries series, byte[] key, int hash) {
+            this.stats = stats;
+            this.series = series;
+            this.key = key;
+            this.hash = hash;
+        }
+
+        ChunkLabel withKey(byte[] key, int hash) {
+            return new ChunkLabel(stats, series, key, hash);
+        }
+
+        boolean matches(ByteBuffer buffer, int start, int end) {
+            if (end - start != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (buffer.get(start + i) != key[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package org.petstore.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running aggregate of the samples of one label, in the shape of a JMeter Summary Report row.
+ * Samples are folded in as they complete, so memory stays constant regardless of run length,
+ * and every latency also goes into an HDR histogram for percentile reporting.
+ * <p>
+ * Open-model samples ({@link #recordScheduled}) are timed from their intended send time, so
+ * queueing behind a slow server counts as latency (coordinated omission correction); the time
+ * from the actual send is kept separately as service time.
+ * <p>
+ * In distributed mode each worker sends {@link #takeInterval() intervals} of its statistics
+ * and the coordinator {@link #add(Interval) adds} them to one LabelStats per label.
+ */
+public final class LabelStats {
+
+    private final String label;
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+    private final LongAdder sentBytes = new LongAdder();
+    private final DoubleAdder elapsedMillis = new DoubleAdder();
+    private final DoubleAdder elapsedMillisSquared = new DoubleAdder();
+    private final AtomicLong minNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLong firstStartNanos = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastEndNanos = new AtomicLong(Long.MIN_VALUE);
+    private final LatencyRecorder latency;
+    private final LatencyRecorder serviceTime;
+    private final LongAdder missedSchedules = new LongAdder();
+
+    // Totals already handed out by takeInterval(), so every interval carries only the change
+    private long reportedSamples;
+    private long reportedErrors;
+    private long reportedReceivedBytes;
+    private long reportedSentBytes;
+    private double reportedElapsedMillis;
+    private double reportedElapsedMillisSquared;
+    private long reportedMissedSchedules;
+
+    public LabelStats(String label) {
+        this(label, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param label       Label of the samples
+     * @param concurrency Expected number of concurrently recording threads, 1 for thread-confined use
+     */
+    LabelStats(String label, int concurrency) {
+        this.label = label;
+        this.latency = new LatencyRecorder(concurrency);
+        this.serviceTime = new LatencyRecorder(concurrency);
+    }
+
+    /**
+     * Records one completed sample.
+     *
+     * @param startNanos    {@link System#nanoTime()} when the request was sent
+     * @param endNanos      {@link System#nanoTime()} when the response body was fully received
+     * @param success       Whether the sample succeeded
+     * @param bytesReceived Response body size
+     * @param bytesSent     Request body size
+     */
+    public void record(long startNanos, long endNanos, boolean success, long bytesReceived, long bytesSent) {
+        long elapsed = endNanos - startNanos;
+        double millis = elapsed / 1_000_000.0;
+        samples.increment();
+        if (!success) {
+            errors.increment();
+        }
+        receivedBytes.add(bytesReceived);
+        sentBytes.add(bytesSent);
+        elapsedMillis.add(millis);
+        elapsedMillisSquared.add(millis * millis);
+        minNanos.accumulateAndGet(elapsed, Math::min);
+        maxNanos.accumulateAndGet(elapsed, Math::max);
+        firstStartNanos.accumulateAndGet(startNanos, Math::min);
+        lastEndNanos.accumulateAndGet(endNanos, Math::max);
+        latency.recordNanos(elapsed);
+    }
+
+    /**
+     * Records one sample of an open-model run.
+     *
+     * @param intendedNanos {@link System#nanoTime()} at which the schedule wanted the request sent
+     * @param sentNanos     {@link System#nanoTime()} when the request was actually sent
+     * @param endNanos      {@link System#nanoTime()} when the response body was fully received
+     * @param success       Whether the sample succeeded
+     * @param bytesReceived Response body size
+     * @param bytesSent     Request body size
+     */
+    public void recordScheduled(long intendedNanos, long sentNanos, long endNanos, boolean success,
+                                long bytesReceived, long bytesSent) {
+        record(intendedNanos, endNanos, success, bytesReceived, bytesSent);
+        serviceTime.recordNanos(endNanos - sentNanos);
+    }
+
+    /**
+     * Counts a request that could not be sent at its intended time.
+     */
+    public void recordMissedSchedule() {
+        missedSchedules.increment();
+    }
+
+    public long getMissedSchedules() {
+        return missedSchedules.sum();
+    }
+
+    /**
+     * Takes the change since the previous interval, with the latencies recorded meanwhile as
+     * HDR histograms.
+     *
+     * @return The interval, to be sent to the coordinator
+     */
+    synchronized Interval takeInterval() {
+        Interval interval = new Interval();
+        interval.samples = samples.sum() - reportedSamples;
+        interval.errors = errors.sum() - reportedErrors;
+        interval.receivedBytes = receivedBytes.sum() - reportedReceivedBytes;
+        interval.sentBytes = sentBytes.sum() - reportedSentBytes;
+        interval.elapsedMillis = elapsedMillis.sum() - reportedElapsedMillis;
+        interval.elapsedMillisSquared = elapsedMillisSquared.sum() - reportedElapsedMillisSquared;
+        interval.missedSchedules = missedSchedules.sum() - reportedMissedSchedules;
+        interval.minNanos = minNanos.get();
+        interval.maxNanos = maxNanos.get();
+        interval.firstStartNanos = firstStartNanos.get();
+        interval.lastEndNanos = lastEndNanos.get();
+        interval.latency = latency.intervalHistogram();
+        interval.serviceTime = serviceTime.intervalHistogram();
+
+        reportedSamples += interval.samples;
+        reportedErrors += interval.errors;
+        reportedReceivedBytes += interval.receivedBytes;
+        reportedSentBytes += interval.sentBytes;
+        reportedElapsedMillis += interval.elapsedMillis;
+        reportedElapsedMillisSquared += interval.elapsedMillisSquared;
+        reportedMissedSchedules += interval.missedSchedules;
+        return interval;
+    }
+
+    /**
+     * Adds an interval taken from another LabelStats, typically in another process.
+     *
+     * @param interval The interval
+     */
+    void add(Interval interval) {
+        samples.add(interval.samples);
+        errors.add(interval.errors);
+        receivedBytes.add(interval.receivedBytes);
+        sentBytes.add(interval.sentBytes);
+        elapsedMillis.add(interval.elapsedMillis);
+        elapsedMillisSquared.add(interval.elapsedMillisSquared);
+        missedSchedules.add(interval.missedSchedules);
+        if (interval.firstStartNanos != Long.MAX_VALUE) {
+            minNanos.accumulateAndGet(interval.minNanos, Math::min);
+            maxNanos.accumulateAndGet(interval.maxNanos, Math::max);
+            firstStartNanos.accumulateAndGet(interval.firstStartNanos, Math::min);
+            lastEndNanos.accumulateAndGet(interval.lastEndNanos, Math::max);
+        }
+        latency.add(interval.latency);
+        serviceTime.add(interval.serviceTime);
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public long getSamples() {
+        return samples.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double getAverageMillis() {
+        long count = getSamples();
+        return count == 0 ? 0 : elapsedMillis.sum() / count;
+    }
+
+    public double getMinMillis() {
+        return getSamples() == 0 ? 0 : minNanos.get() / 1_000_000.0;
+    }
+
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+
+    public double getStdDevMillis() {
+        long count = getSamples();
+        if (count == 0) {
+            return 0;
+        }
+        double mean = elapsedMillis.sum() / count;
+        return Math.sqrt(Math.max(0, elapsedMillisSquared.sum() / count - mean * mean));
+    }
+
+    public double getErrorRatio() {
+        long count = getSamples();
+        return count == 0 ? 0 : (double) getErrors() / count;
+    }
+
+    /**
+     * @return Wall time between the first request sent and the last response received, in seconds
+     */
+    public double getDurationSeconds() {
+        long first = firstStartNanos.get();
+        long last = lastEndNanos.get();
+        return getSamples() == 0 || last <= first ? 0 : (last - first) / 1_000_000_000.0;
+    }
+
+    public double getThroughputPerSecond() {
+        double seconds = getDurationSeconds();
+        return seconds == 0 ? 0 : getSamples() / seconds;
+    }
+
+    public double getReceivedKbPerSecond() {
+        double seconds = getDurationSeconds();
+        return seconds == 0 ? 0 : receivedBytes.sum() / 1024.0 / seconds;
+    }
+
+    public double getSentKbPerSecond() {
+        double seconds = getDurationSeconds();
+        return seconds == 0 ? 0 : sentBytes.sum() / 1024.0 / seconds;
+    }
+
+    /**
+     * @return HDR histogram of all sample latencies, in microseconds
+     */
+    public Histogram getLatencyHistogram() {
+        return latency.cumulativeHistogram();
+    }
+
+    /**
+     * @return HDR histogram of the time from actual send to response, in microseconds; only filled
+     * by open-model samples
+     */
+    public Histogram getServiceTimeHistogram() {
+        return serviceTime.cumulativeHistogram();
+    }
+
+    public double getAverageBytes() {
+        long count = getSamples();
+        return count == 0 ? 0 : (double) receivedBytes.sum() / count;
+    }
+
+    /**
+     * Change of one label's statistics over an interval. The first-start and last-end times are
+     * written relative to an origin, as {@link System#nanoTime()} values mean nothing in another JVM.
+     */
+    static final class Interval {
+        private long samples;
+        private long errors;
+        private long receivedBytes;
+        private long sentBytes;
+        private double elapsedMillis;
+        private double elapsedMillisSquared;
+        private long missedSchedules;
+        private long minNanos;
+        private long maxNanos;
+        private long firstStartNanos;
+        private long lastEndNanos;
+        private Histogram latency;
+        private Histogram serviceTime;
+
+        void writeTo(DataOutputStream out, long originNanos) throws IOException {
+            boolean started = firstStartNanos != Long.MAX_VALUE;
+            out.writeLong(samples);
+            out.writeLong(errors);
+            out.writeLong(receivedBytes);
+            out.writeLong(sentBytes);
+            out.writeDouble(elapsedMillis);
+            out.writeDouble(elapsedMillisSquared);
+            out.writeLong(missedSchedules);
+            out.writeBoolean(started);
+            if (started) {
+                out.writeLong(minNanos);
+                out.writeLong(maxNanos);
+                out.writeLong(firstStartNanos - originNanos);
+                out.writeLong(lastEndNanos - originNanos);
+            }
+            writeHistogram(out, latency);
+            writeHistogram(out, serviceTime);
+        }
+
+        static Interval readFrom(DataInputStream in, long originNanos) throws IOException {
+            Interval interval = new Interval();
+            interval.samples = in.readLong();
+            interval.errors = in.readLong();
+            interval.receivedBytes = in.readLong();
+            interval.sentBytes = in.readLong();
+            interval.elapsedMillis = in.readDouble();
+            interval.elapsedMillisSquared = in.readDouble();
+            interval.missedSchedules = in.readLong();
+            if (in.readBoolean()) {
+                interval.minNanos = in.readLong();
+                interval.maxNanos = in.readLong();
+                interval.firstStartNanos = in.readLong() + originNanos;
+                interval.lastEndNanos = in.readLong() + originNanos;
+            } else {
+                interval.minNanos = Long.MAX_VALUE;
+                interval.maxNanos = 0;
+                interval.firstStartNanos = Long.MAX_VALUE;
+                interval.lastEndNanos = Long.MIN_VALUE;
+            }
+            interval.latency = readHistogram(in);
+            interval.serviceTime = readHistogram(in);
+            return interval;
+        }
+
+        private static void writeHistogram(DataOutputStream out, Histogram histogram) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+            int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+            out.writeInt(length);
+            out.write(buffer.array(), 0, length);
+        }
+
+        private static Histogram readHistogram(DataInputStream in) throws IOException {
+            byte[] encoded = new byte[in.readInt()];
+            in.readFully(encoded);
+            try {
+                return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+            } catch (DataFormatException e) {
+                throw new IOException("Corrupt latency histogram", e);
+            }
+        }
+    }
+}
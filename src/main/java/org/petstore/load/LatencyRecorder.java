@@ -0,0 +1,87 @@
+package org.petstore.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Lock-free HDR latency recorder for one label.
+ * <p>
+ * Writers are spread over a fixed number of stripes, each an HdrHistogram {@link Recorder}
+ * (wait-free on the recording path). A stripe per thread would be the textbook layout, but
+ * with one virtual thread per virtual user that means 100k+ histograms; striping by thread id
+ * keeps contention low while memory stays bounded by the number of cores. Reading merges the
+ * stripes' interval histograms, which is a cheap array add.
+ * <p>
+ * Values are recorded in microseconds with three significant digits and an auto-resizing range.
+ */
+public final class LatencyRecorder {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Recorder[] stripes;
+    private final int mask;
+    private final Histogram accumulated = new Histogram(SIGNIFICANT_DIGITS);
+    private final Histogram[] recycled;
+
+    public LatencyRecorder() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency Expected number of concurrently recording carrier threads
+     */
+    public LatencyRecorder(int concurrency) {
+        int size = Integer.highestOneBit(Math.max(1, concurrency - 1) << 1);
+        this.stripes = new Recorder[size];
+        this.recycled = new Histogram[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Recorder(SIGNIFICANT_DIGITS);
+        }
+        accumulated.setAutoResize(true);
+    }
+
+    /**
+     * Records one latency, safe to call from any number of threads concurrently.
+     *
+     * @param nanos Latency in nanoseconds
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(1, nanos / 1_000);
+        stripes[(int) (Thread.currentThread().getId() & mask)].recordValue(micros);
+    }
+
+    /**
+     * Merges everything recorded since the previous call into a new histogram and into the
+     * cumulative histogram of the run.
+     *
+     * @return Histogram of the values recorded since the last interval, in microseconds
+     */
+    public synchronized Histogram intervalHistogram() {
+        Histogram interval = new Histogram(SIGNIFICANT_DIGITS);
+        interval.setAutoResize(true);
+        for (int i = 0; i < stripes.length; i++) {
+            recycled[i] = stripes[i].getIntervalHistogram(recycled[i]);
+            interval.add(recycled[i]);
+        }
+        accumulated.add(interval);
+        return interval;
+    }
+
+    /**
+     * Adds values recorded elsewhere (e.g. by a distributed worker) to the cumulative histogram.
+     *
+     * @param histogram Values in microseconds
+     */
+    public synchronized void add(Histogram histogram) {
+        accumulated.add(histogram);
+    }
+
+    /**
+     * @return Copy of all values recorded so far, in microseconds
+     */
+    public synchronized Histogram cumulativeHistogram() {
+        intervalHistogram();
+        return accumulated.copy();
+    }
+}
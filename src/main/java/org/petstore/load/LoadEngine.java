@@ -0,0 +1,555 @@
+package org.petstore.load;
+
+import org.petstore.contract.JsonContract;
+import org.petstore.jfr.HttpExchangeEvent;
+import org.petstore.metrics.EndpointMetrics;
+import org.petstore.metrics.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs {@link Workload}s against a Petstore deployment, one (virtual) thread per virtual user.
+ * <p>
+ * All workloads run concurrently, like the thread groups of a JMeter plan. Each virtual user
+ * starts after its share of the ramp-up, sends its iterations back to back and folds every
+ * sample into the {@link LabelStats} of its workload. Response bodies are counted, never
+ * buffered, so heap use does not grow with response size or with the number of users.
+ * <p>
+ * {@link #runOpen} runs the same workloads as an open model instead: requests are sent at the
+ * times an {@link ArrivalProfile} dictates, whatever the server's response times.
+ * <p>
+ * In async mode no thread waits for a response: a virtual user's next request is sent from the
+ * completion of its previous one, and open-model requests are sent straight from the dispatcher,
+ * so a handful of platform threads drive any number of users and requests in flight.
+ * <p>
+ * Sampled successful responses can be checked against the bundled contract of their endpoint
+ * (see {@link JsonContract#forEndpoint(String, String)}); only those bodies are buffered, and a
+ * violation fails the sample.
+ */
+public class LoadEngine {
+
+    private final String baseUri;
+    private final Path payloadDir;
+    private final HttpClient httpClient;
+    private final int fallbackThreads;
+    private final PayloadFeeder.Mode payloadMode;
+    private final boolean templatePayloads;
+    private final boolean partitionPayloads;
+    private final ExecutorService asyncExecutor;
+    private final int contractSampleEvery;
+
+    /**
+     * @param baseUri           Base URI of the API, e.g. https://petstore.swagger.io/v2
+     * @param payloadDir        Directory holding the CSV payload files
+     * @param fallbackThreads   Platform threads to use when virtual threads are not available
+     * @param payloadMode       Whether payload files recycle or stop the virtual user at end of file
+     * @param partitionPayloads Give each virtual user a disjoint share of the payload file instead
+     *                          of one cursor shared by all users
+     */
+    public LoadEngine(String baseUri, Path payloadDir, int fallbackThreads,
+                      PayloadFeeder.Mode payloadMode, boolean partitionPayloads) {
+        this(baseUri, payloadDir, fallbackThreads, payloadMode, false, partitionPayloads, HttpClient.Version.HTTP_1_1,
+                0, 0);
+    }
+
+    /**
+     * @param templatePayloads Send the first record of each payload file every time, with a fresh
+     *                         id (and username), see {@link PayloadFeeder#template()}
+     * @param version          HTTP version to negotiate; HTTP/2 multiplexes requests over fewer connections
+     * @param asyncThreads     Platform threads completing requests in async mode, or 0 to send blocking
+     *                         requests from a (virtual) thread per user
+     * @param contractSampleEvery Check every n-th successful response of a workload against its endpoint's
+     *                            contract, or 0 to check none
+     */
+    public LoadEngine(String baseUri, Path payloadDir, int fallbackThreads, PayloadFeeder.Mode payloadMode,
+                      boolean templatePayloads, boolean partitionPayloads, HttpClient.Version version,
+                      int asyncThreads, int contractSampleEvery) {
+        if (contractSampleEvery < 0) {
+            throw new IllegalArgumentException("contractSampleEvery must not be negative");
+        }
+        this.baseUri = baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri;
+        this.payloadDir = payloadDir;
+        this.fallbackThreads = fallbackThreads;
+        this.payloadMode = payloadMode;
+        this.templatePayloads = templatePayloads;
+        this.partitionPayloads = partitionPayloads;
+        this.asyncExecutor = asyncThreads > 0 ? Executors.newFixedThreadPool(asyncThreads, daemon("async")) : null;
+        this.contractSampleEvery = contractSampleEvery;
+        HttpClient.Builder client = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofSeconds(10));
+        if (asyncExecutor != null) {
+            client.executor(asyncExecutor);
+        }
+        this.httpClient = client.build();
+    }
+
+    /**
+     * Runs the workloads to completion.
+     *
+     * @param workloads Workloads to run concurrently
+     * @return Statistics per workload label, in workload order
+     */
+    public Map<String, LabelStats> run(List<Workload> workloads) throws IOException, InterruptedException {
+        return run(workloads, statsFor(workloads));
+    }
+
+    /**
+     * Runs the workloads to completion, recording into statistics the caller can read while the
+     * run is in progress.
+     *
+     * @param workloads Workloads to run concurrently
+     * @param results   Statistics per workload label, as created by {@link #statsFor(List)}
+     * @return The results map
+     */
+    public Map<String, LabelStats> run(List<Workload> workloads, Map<String, LabelStats> results)
+            throws IOException, InterruptedException {
+        int totalUsers = 0;
+        for (Workload workload : workloads) {
+            totalUsers += workload.getUsers();
+        }
+
+        CountDownLatch finished = new CountDownLatch(totalUsers);
+        if (asyncExecutor != null) {
+            return runAsync(workloads, results, finished);
+        }
+        ExecutorService executor = VirtualThreads.newExecutor(fallbackThreads);
+        try {
+            long startNanos = System.nanoTime();
+            for (Workload workload : workloads) {
+                PayloadSource shared = payloads(workload);
+                Target target = target(workload, results);
+                for (int user = 0; user < workload.getUsers(); user++) {
+                    PayloadSource payloads = userPayloads(shared, user, workload.getUsers());
+                    long startOffsetNanos = TimeUnit.MILLISECONDS.toNanos(workload.getRampUpMillis()) * user
+                            / workload.getUsers();
+                    executor.execute(() -> {
+                        try {
+                            runUser(target, payloads, startNanos + startOffsetNanos);
+                        } finally {
+                            finished.countDown();
+                        }
+                    });
+                }
+            }
+            finished.await();
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * Async variant of the closed model: each user is a chain of requests, every one sent when the
+     * previous one completes, started after the user's share of the ramp-up.
+     */
+    private Map<String, LabelStats> runAsync(List<Workload> workloads, Map<String, LabelStats> results,
+                                             CountDownLatch finished) throws IOException, InterruptedException {
+        ScheduledExecutorService starter = Executors.newSingleThreadScheduledExecutor(daemon("starter"));
+        try {
+            for (Workload workload : workloads) {
+                PayloadSource shared = payloads(workload);
+                Target target = target(workload, results);
+                for (int user = 0; user < workload.getUsers(); user++) {
+                    PayloadSource payloads = userPayloads(shared, user, workload.getUsers());
+                    long startOffsetNanos = TimeUnit.MILLISECONDS.toNanos(workload.getRampUpMillis()) * user
+                            / workload.getUsers();
+                    starter.schedule(() -> nextIteration(target, payloads, 0, finished),
+                            startOffsetNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+            finished.await();
+        } finally {
+            starter.shutdownNow();
+        }
+        return results;
+    }
+
+    private void nextIteration(Target target, PayloadSource payloads, int iteration, CountDownLatch finished) {
+        if (iteration >= target.workload.getIterations() || Thread.currentThread().isInterrupted()) {
+            finished.countDown();
+            return;
+        }
+        byte[] body = null;
+        if (payloads != null) {
+            body = payloads.next();
+            if (body == null) {
+                // Payload file exhausted in stop-at-EOF mode
+                finished.countDown();
+                return;
+            }
+        }
+        // Continued on the executor, so a request that fails at once does not deepen the stack
+        sampleAsync(target, body, false, 0).whenCompleteAsync(
+                (ignored, failure) -> nextIteration(target, payloads, iteration + 1, finished), asyncExecutor);
+    }
+
+    /**
+     * Runs the workloads as an open model. Every workload gets a dispatcher thread that sends
+     * requests at the intended times of its own schedule, each request on its own (virtual)
+     * thread, and times each sample from its intended send time. Users, iterations and ramp-up
+     * of the workloads are not used.
+     *
+     * @param workloads          Workloads to run concurrently, each at the full rate of the profile
+     * @param profile            Arrival profile
+     * @param seed               Seed of the Poisson arrivals
+     * @param maxInFlight        Requests in flight per workload before its dispatcher waits
+     * @param lateToleranceNanos Delay past the intended send time from which a request counts as a
+     *                           missed schedule
+     * @return Statistics per workload label, in workload order
+     */
+    public Map<String, LabelStats> runOpen(List<Workload> workloads, ArrivalProfile profile, long seed,
+                                           int maxInFlight, long lateToleranceNanos)
+            throws IOException, InterruptedException {
+        return runOpen(workloads, statsFor(workloads), profile, seed, maxInFlight, lateToleranceNanos);
+    }
+
+    /**
+     * Open-model variant of {@link #run(List, Map)}, see {@link #runOpen(List, ArrivalProfile, long, int, long)}.
+     */
+    public Map<String, LabelStats> runOpen(List<Workload> workloads, Map<String, LabelStats> results,
+                                           ArrivalProfile profile, long seed, int maxInFlight,
+                                           long lateToleranceNanos) throws IOException, InterruptedException {
+        List<Thread> dispatchers = new ArrayList<>();
+        ExecutorService executor = VirtualThreads.newExecutor(fallbackThreads);
+        try {
+            long startNanos = System.nanoTime();
+            for (int i = 0; i < workloads.size(); i++) {
+                Workload workload = workloads.get(i);
+                PayloadSource payloads = payloads(workload);
+                Target target = target(workload, results);
+                ArrivalProfile.Schedule schedule = profile.schedule(seed + i);
+
+                Thread dispatcher = new Thread(() -> dispatch(target, payloads, schedule, startNanos, executor,
+                        maxInFlight, lateToleranceNanos), "petstore-dispatcher-" + workload.getName());
+                dispatcher.start();
+                dispatchers.add(dispatcher);
+            }
+            for (Thread dispatcher : dispatchers) {
+                dispatcher.join();
+            }
+        } finally {
+            dispatchers.forEach(Thread::interrupt);
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * @param workloads Workloads of a run
+     * @return Empty statistics per workload label, in workload order
+     */
+    public static Map<String, LabelStats> statsFor(List<Workload> workloads) {
+        Map<String, LabelStats> results = new LinkedHashMap<>();
+        for (Workload workload : workloads) {
+            results.put(workload.getLabel(), new LabelStats(workload.getLabel()));
+        }
+        return results;
+    }
+
+    /**
+     * @return Source shared by every user of the workload, or null when it sends no body
+     */
+    private PayloadSource payloads(Workload workload) throws IOException {
+        if (workload.getPayloadFile() == null) {
+            return null;
+        }
+        PayloadFeeder feeder = PayloadFeeder.open(payloadDir.resolve(workload.getPayloadFile()), payloadMode);
+        return templatePayloads ? feeder.template() : feeder;
+    }
+
+    /**
+     * @return The user's own share of a payload file when payloads are partitioned, else the shared source
+     */
+    private PayloadSource userPayloads(PayloadSource shared, int user, int users) {
+        return partitionPayloads && shared instanceof PayloadFeeder
+                ? ((PayloadFeeder) shared).partition(user, users)
+                : shared;
+    }
+
+    private Target target(Workload workload, Map<String, LabelStats> results) {
+        URI uri = URI.create(baseUri + workload.getPath());
+        EndpointMetrics metrics = MetricsRegistry.global().endpoint(workload.getMethod(), uri.getPath());
+        JsonContract contract = contractSampleEvery == 0 ? null
+                : JsonContract.forEndpoint(workload.getMethod(), metrics.getEndpoint());
+        return new Target(workload, uri, results.get(workload.getLabel()), metrics, contract);
+    }
+
+    private void dispatch(Target target, PayloadSource payloads, ArrivalProfile.Schedule schedule, long startNanos,
+                          ExecutorService executor, int maxInFlight, long lateToleranceNanos) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        try {
+            long offset;
+            while ((offset = schedule.nextOffsetNanos()) >= 0) {
+                long intendedNanos = startNanos + offset;
+                long wait;
+                while ((wait = intendedNanos - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+                byte[] body = null;
+                if (payloads != null) {
+                    body = payloads.next();
+                    if (body == null) {
+                        // Payload file exhausted in stop-at-EOF mode
+                        break;
+                    }
+                }
+
+                // A server slower than the rate fills the in-flight budget; the requests that wait here
+                // are sent late but still timed from their intended send time
+                inFlight.acquire();
+                if (System.nanoTime() - intendedNanos > lateToleranceNanos) {
+                    target.stats.recordMissedSchedule();
+                }
+                if (asyncExecutor != null) {
+                    sampleAsync(target, body, true, intendedNanos)
+                            .whenComplete((ignored, failure) -> inFlight.release());
+                    continue;
+                }
+                byte[] requestBody = body;
+                executor.execute(() -> {
+                    try {
+                        sample(target, requestBody, true, intendedNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(maxInFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runUser(Target target, PayloadSource payloads, long startAtNanos) {
+        try {
+            long delay = startAtNanos - System.nanoTime();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            for (int iteration = 0; iteration < target.workload.getIterations(); iteration++) {
+                byte[] body = null;
+                if (payloads != null) {
+                    body = payloads.next();
+                    if (body == null) {
+                        // Payload file exhausted in stop-at-EOF mode
+                        return;
+                    }
+                }
+                sample(target, body, false, 0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sample(Target target, byte[] body, boolean scheduled, long intendedNanos)
+            throws InterruptedException {
+        HttpRequest request = request(target, body);
+        HttpExchangeEvent event = new HttpExchangeEvent();
+        event.begin();
+        long start = target.metrics.start();
+        HttpResponse<ByteCounter> response;
+        try {
+            response = httpClient.send(request, info -> byteCounter(target, info));
+        } catch (IOException e) {
+            response = null;
+        }
+        record(target, body, scheduled, intendedNanos, event, start, response);
+    }
+
+    /**
+     * Sends a request without holding a thread while it is on the wire.
+     *
+     * @return Completes once the sample is recorded, whatever the outcome
+     */
+    private CompletableFuture<Void> sampleAsync(Target target, byte[] body, boolean scheduled, long intendedNanos) {
+        HttpRequest request = request(target, body);
+        HttpExchangeEvent event = new HttpExchangeEvent();
+        event.begin();
+        long start = target.metrics.start();
+        return httpClient.sendAsync(request, info -> byteCounter(target, info))
+                .handle((response, failure) -> {
+                    record(target, body, scheduled, intendedNanos, event, start, response);
+                    return null;
+                });
+    }
+
+    private static HttpRequest request(Target target, byte[] body) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(target.uri)
+                .timeout(Duration.ofSeconds(60))
+                .header("Accept", "application/json");
+        if (body == null) {
+            request.method(target.workload.getMethod(), HttpRequest.BodyPublishers.noBody());
+        } else {
+            request.header("Content-Type", "application/json")
+                    .method(target.workload.getMethod(), HttpRequest.BodyPublishers.ofByteArray(body));
+        }
+        return request.build();
+    }
+
+    /**
+     * Records a sample into the metrics registry, the flight recording and the label statistics.
+     *
+     * @param response The response, or null when none was received
+     */
+    private static void record(Target target, byte[] body, boolean scheduled, long intendedNanos,
+                               HttpExchangeEvent event, long start, HttpResponse<ByteCounter> response) {
+        long bytesSent = body == null ? 0 : body.length;
+        int status = response == null ? EndpointMetrics.NO_RESPONSE : response.statusCode();
+        List<String> violations = response == null ? null : response.body().getViolations();
+        boolean success = response != null && status < 400 && (violations == null || violations.isEmpty());
+        long bytesReceived = response == null ? 0 : response.body().getCount();
+        if (violations != null && !violations.isEmpty()
+                && target.contractViolationReported.compareAndSet(false, true)) {
+            System.err.println("Contract violation in " + target.workload.getLabel() + " (reported once): "
+                    + violations);
+        }
+        long end = target.metrics.stop(start, status);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = "load";
+            event.method = target.workload.getMethod();
+            event.path = target.uri.getPath();
+            event.endpoint = target.metrics.getEndpoint();
+            event.status = status;
+            event.bytesSent = bytesSent;
+            event.bytesReceived = bytesReceived;
+            event.scheduleDelay = scheduled ? Math.max(start - intendedNanos, 0) : 0;
+            event.commit();
+        }
+        if (scheduled) {
+            target.stats.recordScheduled(intendedNanos, start, end, success, bytesReceived, bytesSent);
+        } else {
+            target.stats.record(start, end, success, bytesReceived, bytesSent);
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "petstore-" + name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @return A subscriber counting the body, also buffering it for a contract check when this
+     * successful response is one of the target's sampled ones
+     */
+    private HttpResponse.BodySubscriber<ByteCounter> byteCounter(Target target, HttpResponse.ResponseInfo info) {
+        boolean check = target.contract != null && info.statusCode() < 300
+                && target.responses.incrementAndGet() % contractSampleEvery == 0;
+        ByteCounter counter = new ByteCounter(check ? target.contract : null);
+        return HttpResponse.BodySubscribers.fromSubscriber(counter, subscriber -> subscriber);
+    }
+
+    /**
+     * What the samples of one workload go to, resolved once per workload rather than per sample.
+     */
+    private static final class Target {
+        private final Workload workload;
+        private final URI uri;
+        private final LabelStats stats;
+        private final EndpointMetrics metrics;
+        /** Contract sampled responses are checked against, or null */
+        private final JsonContract contract;
+        private final AtomicLong responses = new AtomicLong();
+        private final AtomicBoolean contractViolationReported = new AtomicBoolean();
+
+        private Target(Workload workload, URI uri, LabelStats stats, EndpointMetrics metrics, JsonContract contract) {
+            this.workload = workload;
+            this.uri = uri;
+            this.stats = stats;
+            this.metrics = metrics;
+            this.contract = contract;
+        }
+    }
+
+    /**
+     * Counts response body bytes as they arrive and discards them, unless the body is to be
+     * checked against a contract once complete.
+     */
+    private static final class ByteCounter implements Flow.Subscriber<List<ByteBuffer>> {
+
+        private final JsonContract contract;
+        private final ByteArrayOutputStream buffered;
+        private long count;
+        private List<String> violations;
+
+        ByteCounter(JsonContract contract) {
+            this.contract = contract;
+            this.buffered = contract == null ? null : new ByteArrayOutputStream();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                count += buffer.remaining();
+                if (buffered != null) {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.get(bytes);
+                    buffered.write(bytes, 0, bytes.length);
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            if (contract != null) {
+                violations = contract.validate(buffered.toByteArray());
+            }
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * @return What the body broke of its contract, or null when it was not checked
+         */
+        List<String> getViolations() {
+            return violations;
+        }
+    }
+}
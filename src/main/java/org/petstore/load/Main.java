@@ -0,0 +1,244 @@
+package org.petstore.load;
+
+import org.petstore.metrics.MetricsExporter;
+import org.petstore.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry point of the Java load engine.
+ * <p>
+ * Runs the workloads of load_tests/load_tests.jmx without a JMeter install:
+ * <pre>
+ * java -cp target/classes org.petstore.load.Main \
+ *     --base-uri=http://127.0.0.1:8080/v2 \
+ *     --workloads=find-pets,post-orders \
+ *     --users=100000 --iterations=10 --ramp-up-seconds=60
+ * </pre>
+ * Options:
+ * <ul>
+ *     <li>{@code --base-uri} - API base URI (default: -Dpetstore.baseUri or the public Petstore)</li>
+ *     <li>{@code --payload-dir} - directory with pets.csv, orders.csv and users.csv (default load_tests/payloads)</li>
+ *     <li>{@code --payload-mode} - {@code recycle} (default) or {@code stop-at-eof}</li>
+ *     <li>{@code --payload-template} - send the first record of each file every time, with a fresh id and
+ *     username per request (see {@link BodyTemplate})</li>
+ *     <li>{@code --partition-payloads} - give every virtual user its own share of the payload file; users
+ *     beyond the number of records send nothing</li>
+ *     <li>{@code --workloads} - comma separated workload names: find-pets, post-pets, put-pets,
+ *     post-orders, post-users (default: all)</li>
+ *     <li>{@code --users}, {@code --iterations}, {@code --ramp-up-seconds} - override the plan values</li>
+ *     <li>{@code --summary} - Summary Report CSV to write (default target/load-summary.csv); the percentile
+ *     table and HDR distribution are written next to it</li>
+ *     <li>{@code --fallback-threads} - platform threads used when virtual threads are unavailable (default 200)</li>
+ *     <li>{@code --client} - {@code blocking} (default, a thread per user or request) or {@code async} (requests
+ *     sent without waiting, completed by {@code --async-threads} platform threads, default: cores)</li>
+ *     <li>{@code --http-version} - {@code 1.1} (default) or {@code 2}</li>
+ *     <li>{@code --check-contracts} - check every n-th successful response of each workload against the
+ *     contract of its endpoint and count violations as errors (default 0, no checks)</li>
+ *     <li>{@code --metrics-port}, {@code --metrics-file}, {@code --metrics-flush-seconds} - serve live request
+ *     metrics on {@code http://127.0.0.1:<port>/metrics} and flush them to a file (see {@link MetricsExporter})</li>
+ * </ul>
+ * Open model (requests sent at a target rate instead of by a fixed number of looping users):
+ * <ul>
+ *     <li>{@code --rate} with {@code --duration-seconds} - constant requests per second for each workload</li>
+ *     <li>{@code --rate-profile} - stages such as {@code 10@30s,10-200@60s,200@120s} (hold 10 req/s for 30s,
+ *     ramp to 200 req/s over 60s, hold for 120s)</li>
+ *     <li>{@code --arrivals} - {@code uniform} (default) or {@code poisson}; {@code --seed} fixes the Poisson gaps</li>
+ *     <li>{@code --max-in-flight} - requests in flight per workload before sending waits (default 10000)</li>
+ *     <li>{@code --late-tolerance-ms} - delay past the intended send time counted as a missed schedule (default 10)</li>
+ * </ul>
+ * Distributed mode (one coordinator, any number of worker processes over plain TCP):
+ * <ul>
+ *     <li>{@code --mode} - {@code standalone} (default), {@code coordinator} or {@code worker}</li>
+ *     <li>{@code --port}, {@code --workers} - coordinator port (default 7070) and number of workers to wait
+ *     for (default 1); the coordinator takes every other option and pushes each worker its share</li>
+ *     <li>{@code --interval-ms} - how often workers send their statistics (default 1000)</li>
+ *     <li>{@code --coordinator} - {@code host:port} a worker connects to (default 127.0.0.1:7070); workers only
+ *     read {@code --fallback-threads}</li>
+ * </ul>
+ */
+public class Main {
+
+    private static final int DEFAULT_PORT = 7070;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        MetricsExporter metrics = startMetrics(options);
+        try {
+            run(options);
+        } finally {
+            if (metrics != null) {
+                metrics.close();
+            }
+        }
+    }
+
+    private static void run(Map<String, String> options) throws Exception {
+        int fallbackThreads = Integer.parseInt(options.getOrDefault("fallback-threads", "200"));
+        String mode = options.getOrDefault("mode", "standalone").toLowerCase(Locale.ROOT);
+        if (mode.equals("worker")) {
+            String coordinator = options.getOrDefault("coordinator", "127.0.0.1:" + DEFAULT_PORT);
+            int colon = coordinator.lastIndexOf(':');
+            new Worker(colon < 0 ? coordinator : coordinator.substring(0, colon),
+                    colon < 0 ? DEFAULT_PORT : Integer.parseInt(coordinator.substring(colon + 1)),
+                    fallbackThreads).run();
+            return;
+        }
+        if (!mode.equals("standalone") && !mode.equals("coordinator")) {
+            throw new IllegalArgumentException("--mode must be standalone, coordinator or worker");
+        }
+
+        String baseUri = options.getOrDefault("base-uri",
+                System.getProperty("petstore.baseUri", "https://petstore.swagger.io/v2"));
+        Path payloadDir = Paths.get(options.getOrDefault("payload-dir", "load_tests/payloads"));
+        Path summary = Paths.get(options.getOrDefault("summary", "target/load-summary.csv"));
+        PayloadFeeder.Mode payloadMode = PayloadFeeder.Mode.valueOf(
+                options.getOrDefault("payload-mode", "recycle").toUpperCase(Locale.ROOT).replace('-', '_'));
+        boolean templatePayloads = Boolean.parseBoolean(options.getOrDefault("payload-template", "false"));
+        boolean partitionPayloads = Boolean.parseBoolean(options.getOrDefault("partition-payloads", "false"));
+        HttpClient.Version httpVersion = options.getOrDefault("http-version", "1.1").startsWith("2")
+                ? HttpClient.Version.HTTP_2
+                : HttpClient.Version.HTTP_1_1;
+        boolean async = options.getOrDefault("client", "blocking").equalsIgnoreCase("async");
+        int asyncThreads = async ? Integer.parseInt(options.getOrDefault("async-threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors()))) : 0;
+        int contractSampleEvery = Integer.parseInt(options.getOrDefault("check-contracts", "0"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "10000"));
+        long lateToleranceNanos = TimeUnit.MILLISECONDS.toNanos(
+                Long.parseLong(options.getOrDefault("late-tolerance-ms", "10")));
+
+        List<Workload> workloads = selectWorkloads(options);
+        ArrivalProfile profile = arrivalProfile(options);
+        for (Workload workload : workloads) {
+            System.out.println("Running " + (profile == null
+                    ? workload.toString()
+                    : workload.getLabel() + " [" + workload.getMethod() + " " + workload.getPath() + "]"));
+        }
+        if (profile != null) {
+            System.out.println("Open model: " + profile);
+        }
+
+        Map<String, LabelStats> results;
+        if (mode.equals("coordinator")) {
+            RunPlan plan = new RunPlan(baseUri, payloadMode, templatePayloads, partitionPayloads, httpVersion,
+                    asyncThreads, contractSampleEvery, workloads, RunPlan.readPayloadFiles(payloadDir, workloads),
+                    profile, seed, maxInFlight, lateToleranceNanos,
+                    Long.parseLong(options.getOrDefault("interval-ms", "1000")));
+            results = new Coordinator(Integer.parseInt(options.getOrDefault("port", String.valueOf(DEFAULT_PORT))),
+                    Integer.parseInt(options.getOrDefault("workers", "1"))).run(plan);
+        } else {
+            if (!async && !VirtualThreads.available()) {
+                System.out.println("Virtual threads are not available on this JVM, virtual users share "
+                        + fallbackThreads + " platform threads");
+            }
+            LoadEngine engine = new LoadEngine(baseUri, payloadDir, fallbackThreads, payloadMode, templatePayloads,
+                    partitionPayloads, httpVersion, asyncThreads, contractSampleEvery);
+            results = profile == null
+                    ? engine.run(workloads)
+                    : engine.runOpen(workloads, profile, seed, maxInFlight, lateToleranceNanos);
+        }
+        report(results, profile != null, summary);
+    }
+
+    static MetricsExporter startMetrics(Map<String, String> options) throws IOException {
+        if (!options.containsKey("metrics-port") && !options.containsKey("metrics-file")) {
+            return null;
+        }
+        MetricsExporter metrics = MetricsExporter.start(MetricsRegistry.global(),
+                Integer.parseInt(options.getOrDefault("metrics-port", "-1")),
+                options.containsKey("metrics-file") ? Paths.get(options.get("metrics-file")) : null,
+                Long.parseLong(options.getOrDefault("metrics-flush-seconds", "5")) * 1_000);
+        System.out.println("Live metrics: " + metrics.describe());
+        return metrics;
+    }
+
+    static void report(Map<String, LabelStats> results, boolean openModel, Path summary) throws IOException {
+        System.out.println(SummaryReport.HEADER);
+        for (LabelStats stats : results.values()) {
+            System.out.println(SummaryReport.row(stats));
+        }
+        System.out.println(PercentileReport.HEADER);
+        for (LabelStats stats : results.values()) {
+            System.out.println(PercentileReport.row(stats.getLabel(), stats.getLatencyHistogram()));
+        }
+        if (openModel) {
+            System.out.println("Latencies above are timed from the intended send time. Service time from the actual send:");
+            System.out.println(PercentileReport.HEADER + ",Missed schedule");
+            for (LabelStats stats : results.values()) {
+                System.out.println(PercentileReport.row(stats.getLabel(), stats.getServiceTimeHistogram())
+                        + "," + stats.getMissedSchedules());
+            }
+        }
+        SummaryReport.write(summary, results.values());
+        PercentileReport.write(summary, results.values());
+        System.out.println("Summary and percentile distribution written next to " + summary.toAbsolutePath());
+    }
+
+    static ArrivalProfile arrivalProfile(Map<String, String> options) {
+        boolean poisson = "poisson".equalsIgnoreCase(options.getOrDefault("arrivals", "uniform"));
+        if (options.containsKey("rate-profile")) {
+            return ArrivalProfile.parse(options.get("rate-profile"), poisson);
+        }
+        if (options.containsKey("rate")) {
+            if (!options.containsKey("duration-seconds")) {
+                throw new IllegalArgumentException("--rate needs --duration-seconds");
+            }
+            return ArrivalProfile.constant(Double.parseDouble(options.get("rate")),
+                    Double.parseDouble(options.get("duration-seconds")), poisson);
+        }
+        return null;
+    }
+
+    static List<Workload> selectWorkloads(Map<String, String> options) {
+        List<Workload> selected = new ArrayList<>();
+        List<String> names = options.containsKey("workloads")
+                ? Arrays.asList(options.get("workloads").toLowerCase(Locale.ROOT).split(","))
+                : null;
+        for (Workload workload : Workload.defaults()) {
+            if (names != null && !names.contains(workload.getName())) {
+                continue;
+            }
+            if (options.containsKey("users")) {
+                workload = workload.withUsers(Integer.parseInt(options.get("users")));
+            }
+            if (options.containsKey("iterations")) {
+                workload = workload.withIterations(Integer.parseInt(options.get("iterations")));
+            }
+            if (options.containsKey("ramp-up-seconds")) {
+                workload = workload.withRampUpMillis(Long.parseLong(options.get("ramp-up-seconds")) * 1_000);
+            }
+            selected.add(workload);
+        }
+        if (selected.isEmpty()) {
+            throw new IllegalArgumentException("No workload matches --workloads=" + options.get("workloads"));
+        }
+        return selected;
+    }
+
+    static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            if (eq < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, eq), arg.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,258 @@
+package org.petstore.load;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory-mapped, lock-free feeder for line-oriented payload files (pets.csv, orders.csv,
+ * users.csv, JSONL request logs).
+ * <p>
+ * The file is mapped read-only in segments and scanned once to index the start and end offsets of
+ * every non-empty line. The index lives off-heap and grows as lines are found, so neither the file
+ * nor its index is ever copied onto the heap; only the record handed out by {@link #next()} is.
+ * Records are claimed through an atomic cursor, which makes the feeder safe to share between any
+ * number of threads, the equivalent of JMeter's {@code shareMode.all}. {@link #partition(int, int)}
+ * gives a thread its own disjoint range instead.
+ */
+public final class PayloadFeeder implements PayloadSource {
+
+    /**
+     * What happens once every record has been handed out.
+     */
+    public enum Mode {
+        /** Start again from the first record, like CSVDataSet recycle=true */
+        RECYCLE,
+        /** Return null, like CSVDataSet recycle=false */
+        STOP_AT_EOF
+    }
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+    private static final int INITIAL_RECORDS = 1024;
+    /** Records the index can hold: two offsets each, in a direct buffer of at most 2 GiB */
+    private static final int MAX_RECORDS = Integer.MAX_VALUE / (2 * Long.BYTES);
+    private static final PayloadSource EMPTY = () -> null;
+
+    private final Path file;
+    private final Mode mode;
+    private final MappedByteBuffer[] segments;
+    private final long fileSize;
+    /** Start and end offsets of record i at 2i and 2i + 1 */
+    private final LongBuffer index;
+    private final long records;
+    private final AtomicLong cursor = new AtomicLong();
+
+    private PayloadFeeder(Path file, Mode mode) throws IOException {
+        this.file = file;
+        this.mode = mode;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.fileSize = channel.size();
+            int segmentCount = (int) ((fileSize + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            this.segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long position = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_SIZE, fileSize - position));
+            }
+        }
+        this.index = scan();
+        this.records = index.position() / 2;
+    }
+
+    /**
+     * Maps and indexes a payload file.
+     *
+     * @param file Line-oriented payload file
+     * @param mode Behaviour once all records have been handed out
+     * @return Feeder ready to be shared between threads
+     */
+    public static PayloadFeeder open(Path file, Mode mode) throws IOException {
+        PayloadFeeder feeder = new PayloadFeeder(file, mode);
+        if (feeder.size() == 0) {
+            throw new IOException("Payload file has no records: " + file);
+        }
+        return feeder;
+    }
+
+    /**
+     * @return Number of indexed records
+     */
+    public long size() {
+        return records;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Claims the next record from the shared cursor.
+     *
+     * @return Record bytes, or null once the file is exhausted in {@link Mode#STOP_AT_EOF}
+     */
+    @Override
+    public byte[] next() {
+        long claimed = cursor.getAndIncrement();
+        if (claimed >= records) {
+            if (mode == Mode.STOP_AT_EOF) {
+                return null;
+            }
+            claimed %= records;
+        }
+        return record(claimed);
+    }
+
+    /**
+     * Returns a view over a contiguous, disjoint share of the records for a single owner thread.
+     * Partitions do not touch the shared cursor and honour the feeder's {@link Mode} within their range.
+     * With more partitions than records some partitions are empty, and return null at once.
+     *
+     * @param index Partition number, 0-based
+     * @param count Total number of partitions
+     * @return Single-threaded record source over the partition
+     */
+    public PayloadSource partition(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IllegalArgumentException("Partition " + index + " out of " + count);
+        }
+        long from = records * index / count;
+        long to = records * (index + 1) / count;
+        return from == to ? EMPTY : new Partition(from, to);
+    }
+
+    /**
+     * Templates the first record, for runs that send it every time with a fresh {@code id} (and
+     * {@code username}) instead of walking the file, see {@link BodyTemplate#payloadSource(byte[])}.
+     *
+     * @return Thread-safe source of fresh bodies
+     */
+    public PayloadSource template() throws IOException {
+        try {
+            return BodyTemplate.payloadSource(record(0));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("First record of " + file + " cannot be templated: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Copies one record out of the mapped file.
+     *
+     * @param index Record number, 0-based
+     * @return Record bytes without the line terminator
+     */
+    public byte[] record(long index) {
+        int i = Math.toIntExact(index) * 2;
+        long start = this.index.get(i);
+        long end = this.index.get(i + 1);
+        byte[] bytes = new byte[Math.toIntExact(end - start)];
+        int copied = 0;
+        while (copied < bytes.length) {
+            long position = start + copied;
+            int segment = (int) (position / SEGMENT_SIZE);
+            int offset = (int) (position % SEGMENT_SIZE);
+            int length = Math.min(bytes.length - copied, segments[segment].limit() - offset);
+            segments[segment].get(offset, bytes, copied, length);
+            copied += length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Walks the mapped file once, recording the offsets of every non-empty line.
+     *
+     * @return Index positioned after the last record
+     */
+    private LongBuffer scan() throws IOException {
+        LongBuffer index = offHeapLongs(INITIAL_RECORDS * 2);
+        long lineStart = 0;
+        for (int s = 0; s < segments.length; s++) {
+            MappedByteBuffer segment = segments[s];
+            long base = s * SEGMENT_SIZE;
+            int limit = segment.limit();
+            for (int offset = 0; offset < limit; offset++) {
+                if (segment.get(offset) == '\n') {
+                    long lineEnd = base + offset;
+                    index = addLine(index, lineStart, lineEnd);
+                    lineStart = lineEnd + 1;
+                }
+            }
+        }
+        return addLine(index, lineStart, fileSize);
+    }
+
+    private LongBuffer addLine(LongBuffer index, long start, long end) throws IOException {
+        if (end > start && byteAt(end - 1) == '\r') {
+            end--;
+        }
+        boolean blank = true;
+        for (long position = start; position < end && blank; position++) {
+            byte b = byteAt(position);
+            blank = b == ' ' || b == '\t';
+        }
+        if (blank) {
+            return index;
+        }
+        if (!index.hasRemaining()) {
+            index = grow(index);
+        }
+        return index.put(start).put(end);
+    }
+
+    /**
+     * @return Copy of the index with twice the capacity, up to {@link #MAX_RECORDS}
+     */
+    private LongBuffer grow(LongBuffer index) throws IOException {
+        int capacity = index.capacity() / 2;
+        if (capacity >= MAX_RECORDS) {
+            throw new IOException("Too many records to index in " + file + ": more than " + MAX_RECORDS);
+        }
+        LongBuffer grown = offHeapLongs((int) Math.min(2L * capacity, MAX_RECORDS) * 2);
+        index.flip();
+        return grown.put(index);
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position / SEGMENT_SIZE)].get((int) (position % SEGMENT_SIZE));
+    }
+
+    private static LongBuffer offHeapLongs(int count) {
+        return ByteBuffer.allocateDirect(count * Long.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asLongBuffer();
+    }
+
+    @Override
+    public String toString() {
+        return file + " [" + records + " records, " + mode + "]";
+    }
+
+    private final class Partition implements PayloadSource {
+
+        private final long from;
+        private final long to;
+        private long next;
+
+        private Partition(long from, long to) {
+            this.from = from;
+            this.to = to;
+            this.next = from;
+        }
+
+        @Override
+        public byte[] next() {
+            if (next >= to) {
+                if (mode == Mode.STOP_AT_EOF) {
+                    return null;
+                }
+                next = from;
+            }
+            return record(next++);
+        }
+    }
+}
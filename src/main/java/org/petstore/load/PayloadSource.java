@@ -0,0 +1,12 @@
+package org.petstore.load;
+
+/**
+ * Source of request bodies for a virtual user.
+ */
+public interface PayloadSource {
+
+    /**
+     * @return The next request body, or null when the source is exhausted
+     */
+    byte[] next();
+}
@@ -0,0 +1,74 @@
+package org.petstore.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Writes latency percentiles next to the Summary Report CSV:
+ * <ul>
+ *     <li>{@code <summary>.percentiles.csv} - p50/p90/p95/p99/p99.9/max per label, in milliseconds</li>
+ *     <li>{@code <summary>.hgrm} - the full HdrHistogram percentile distribution of every label</li>
+ * </ul>
+ */
+public final class PercentileReport {
+
+    static final String HEADER = "Label,# Samples,p50,p90,p95,p99,p99.9,Max";
+
+    private static final double MICROS_PER_MILLI = 1_000.0;
+
+    private PercentileReport() {
+    }
+
+    public static void write(Path summaryFile, Collection<LabelStats> stats) throws IOException {
+        Path table = sibling(summaryFile, ".percentiles.csv");
+        Path distribution = sibling(summaryFile, ".hgrm");
+
+        try (Writer writer = Files.newBufferedWriter(table, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (LabelStats label : stats) {
+                writer.write(row(label.getLabel(), label.getLatencyHistogram()));
+                writer.write('\n');
+            }
+        }
+
+        try (PrintStream out = new PrintStream(Files.newOutputStream(distribution), false, "UTF-8")) {
+            for (LabelStats label : stats) {
+                out.println("# Label: " + label.getLabel() + " (values in ms)");
+                label.getLatencyHistogram().outputPercentileDistribution(out, 5, MICROS_PER_MILLI);
+                out.println();
+            }
+        }
+    }
+
+    static String row(String label, Histogram histogram) {
+        return String.format(Locale.ROOT, "%s,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f",
+                label.contains(",") ? "\"" + label + "\"" : label,
+                histogram.getTotalCount(),
+                percentileMillis(histogram, 50),
+                percentileMillis(histogram, 90),
+                percentileMillis(histogram, 95),
+                percentileMillis(histogram, 99),
+                percentileMillis(histogram, 99.9),
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static double percentileMillis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    static Path sibling(Path summaryFile, String suffix) {
+        String name = summaryFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return summaryFile.resolveSibling(base + suffix);
+    }
+}
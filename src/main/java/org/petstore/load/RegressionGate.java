@@ -0,0 +1,525 @@
+package org.petstore.load;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares a load test result with a stored baseline, label by label, and fails when the run
+ * regressed beyond the configured tolerances.
+ * <p>
+ * Both sides are Summary Report CSVs, in any locale ({@link SummaryReportReader}); the
+ * percentiles and HDR distributions written next to them by {@link PercentileReport} are used
+ * when present on both sides. Latency and error checks only fail when the change is both larger
+ * than the tolerance and statistically significant, so noise in a short run does not break the
+ * build: a one-sided Kolmogorov-Smirnov test on the two latency distributions when both have a
+ * {@code .hgrm}, otherwise Welch's t-test on the means, and a two-proportion z-test on the error
+ * rates. Throughput is a single number per run and is compared against its tolerance alone.
+ * <p>
+ * A baseline label matches the current label of the same name, or one it prefixes with a JMeter
+ * thread group ({@code Get Pets Thread Group:Find Pets by Status}). A baseline label missing
+ * from the current run fails the gate.
+ * <pre>
+ * java -cp target/classes org.petstore.load.RegressionGate --baseline=saved_reports/run.csv --current=target/load-summary.csv
+ * </pre>
+ * Options, in percent: {@code --max-throughput-drop} (default 10), {@code --max-mean-increase}
+ * (20), {@code --max-p95-increase} (20), {@code --max-p99-increase} (30); {@code --max-error-increase}
+ * in percentage points (1); {@code --alpha}, the significance level (0.01); {@code --report}, the
+ * diff report (default: {@code <current>.regression.csv}). {@code --update-baseline} copies the
+ * current result and its percentile files over the baseline instead of comparing.
+ */
+public final class RegressionGate {
+
+    static final String HEADER = "Label,Metric,Baseline,Current,Change %,Tolerance %,p-value,Verdict";
+
+    private final double maxThroughputDrop;
+    private final double maxMeanIncrease;
+    private final double maxP95Increase;
+    private final double maxP99Increase;
+    private final double maxErrorIncrease;
+    private final double alpha;
+
+    /**
+     * @param maxThroughputDrop Largest tolerated throughput drop, in percent
+     * @param maxMeanIncrease   Largest tolerated rise of the mean latency, in percent
+     * @param maxP95Increase    Largest tolerated rise of p95, in percent
+     * @param maxP99Increase    Largest tolerated rise of p99, in percent
+     * @param maxErrorIncrease  Largest tolerated rise of the error rate, in percentage points
+     * @param alpha             Significance level below which a change is not put down to noise
+     */
+    public RegressionGate(double maxThroughputDrop, double maxMeanIncrease, double maxP95Increase,
+                          double maxP99Increase, double maxErrorIncrease, double alpha) {
+        this.maxThroughputDrop = maxThroughputDrop;
+        this.maxMeanIncrease = maxMeanIncrease;
+        this.maxP95Increase = maxP95Increase;
+        this.maxP99Increase = maxP99Increase;
+        this.maxErrorIncrease = maxErrorIncrease;
+        this.alpha = alpha;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Main.parseOptions(args);
+        if (!options.containsKey("baseline")) {
+            throw new IllegalArgumentException("--baseline=<summary.csv> is required");
+        }
+        Path baseline = Paths.get(options.get("baseline"));
+        Path current = Paths.get(options.getOrDefault("current", "target/load-summary.csv"));
+
+        if (Boolean.parseBoolean(options.getOrDefault("update-baseline", "false"))) {
+            updateBaseline(current, baseline);
+            return;
+        }
+
+        RegressionGate gate = new RegressionGate(
+                Double.parseDouble(options.getOrDefault("max-throughput-drop", "10")),
+                Double.parseDouble(options.getOrDefault("max-mean-increase", "20")),
+                Double.parseDouble(options.getOrDefault("max-p95-increase", "20")),
+                Double.parseDouble(options.getOrDefault("max-p99-increase", "30")),
+                Double.parseDouble(options.getOrDefault("max-error-increase", "1")),
+                Double.parseDouble(options.getOrDefault("alpha", "0.01")));
+        List<Check> checks = gate.compare(baseline, current);
+        Path report = options.containsKey("report")
+                ? Paths.get(options.get("report"))
+                : PercentileReport.sibling(current, ".regression.csv");
+        write(report, checks);
+
+        System.out.println("Comparing " + current + " with baseline " + baseline);
+        System.out.println(HEADER);
+        long failed = 0;
+        for (Check check : checks) {
+            System.out.println(check.toCsv());
+            if (check.getVerdict() == Verdict.FAIL || check.getVerdict() == Verdict.MISSING) {
+                failed++;
+            }
+        }
+        System.out.println("Diff report written to " + report.toAbsolutePath());
+        if (failed > 0) {
+            System.err.println("Performance regression: " + failed + " check(s) failed");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Copies a result and the percentile files next to it over a baseline.
+     */
+    static void updateBaseline(Path current, Path baseline) throws IOException {
+        if (baseline.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+        }
+        Files.copy(current, baseline, StandardCopyOption.REPLACE_EXISTING);
+        for (String suffix : new String[]{".percentiles.csv", ".hgrm"}) {
+            Path source = PercentileReport.sibling(current, suffix);
+            if (Files.exists(source)) {
+                Files.copy(source, PercentileReport.sibling(baseline, suffix), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        System.out.println("Baseline " + baseline + " updated from " + current);
+    }
+
+    /**
+     * Compares every label of the baseline with the current run.
+     *
+     * @param baseline Summary Report CSV of the baseline
+     * @param current  Summary Report CSV of the run under test
+     * @return One check per label and metric, in baseline order
+     */
+    public List<Check> compare(Path baseline, Path current) throws IOException {
+        Map<String, SummaryReportReader.Row> currentRows = new LinkedHashMap<>();
+        for (SummaryReportReader.Row row : SummaryReportReader.read(current)) {
+            currentRows.put(row.getLabel(), row);
+        }
+        Map<String, double[]> baselinePercentiles = readPercentiles(PercentileReport.sibling(baseline, ".percentiles.csv"));
+        Map<String, double[]> currentPercentiles = readPercentiles(PercentileReport.sibling(current, ".percentiles.csv"));
+        Map<String, double[][]> baselineDistributions = readDistributions(PercentileReport.sibling(baseline, ".hgrm"));
+        Map<String, double[][]> currentDistributions = readDistributions(PercentileReport.sibling(current, ".hgrm"));
+
+        List<Check> checks = new ArrayList<>();
+        for (SummaryReportReader.Row base : SummaryReportReader.read(baseline)) {
+            String label = matchingLabel(base.getLabel(), currentRows);
+            if (label == null) {
+                if (!base.getLabel().equals("TOTAL")) {
+                    checks.add(new Check(base.getLabel(), "Samples", base.getSamples(), Double.NaN, Double.NaN,
+                            Double.NaN, Verdict.MISSING));
+                }
+                continue;
+            }
+            SummaryReportReader.Row run = currentRows.get(label);
+
+            double throughputChange = change(base.getThroughputPerSecond(), run.getThroughputPerSecond());
+            checks.add(new Check(label, "Throughput", base.getThroughputPerSecond(), run.getThroughputPerSecond(),
+                    -maxThroughputDrop, Double.NaN,
+                    throughputChange < -maxThroughputDrop ? Verdict.FAIL : Verdict.PASS));
+
+            double meanP = welchIncreasePValue(base, run);
+            double[][] baseDistribution = baselineDistributions.get(base.getLabel());
+            double[][] runDistribution = currentDistributions.get(label);
+            double latencyP = baseDistribution != null && runDistribution != null
+                    ? ksIncreasePValue(baseDistribution, base.getSamples(), runDistribution, run.getSamples())
+                    : meanP;
+            checks.add(latencyCheck(label, "Mean", base.getAverageMillis(), run.getAverageMillis(),
+                    maxMeanIncrease, meanP));
+
+            double[] basePercentiles = baselinePercentiles.get(base.getLabel());
+            double[] runPercentiles = currentPercentiles.get(label);
+            checks.add(percentileCheck(label, "p95", 2, basePercentiles, runPercentiles, maxP95Increase, latencyP));
+            checks.add(percentileCheck(label, "p99", 3, basePercentiles, runPercentiles, maxP99Increase, latencyP));
+
+            double errorP = errorIncreasePValue(base, run);
+            double errorIncrease = run.getErrorPercent() - base.getErrorPercent();
+            checks.add(new Check(label, "Error %", base.getErrorPercent(), run.getErrorPercent(), maxErrorIncrease,
+                    errorP, errorIncrease > maxErrorIncrease && errorP < alpha ? Verdict.FAIL : Verdict.PASS));
+        }
+        return checks;
+    }
+
+    private Check latencyCheck(String label, String metric, double baseline, double current, double tolerance,
+                               double pValue) {
+        boolean regressed = change(baseline, current) > tolerance && pValue < alpha;
+        return new Check(label, metric, baseline, current, tolerance, pValue, regressed ? Verdict.FAIL : Verdict.PASS);
+    }
+
+    private Check percentileCheck(String label, String metric, int column, double[] baseline, double[] current,
+                                  double tolerance, double pValue) {
+        if (baseline == null || current == null) {
+            return new Check(label, metric, baseline == null ? Double.NaN : baseline[column],
+                    current == null ? Double.NaN : current[column], tolerance, Double.NaN, Verdict.SKIPPED);
+        }
+        return latencyCheck(label, metric, baseline[column], current[column], tolerance, pValue);
+    }
+
+    private static String matchingLabel(String baseline, Map<String, ?> current) {
+        if (current.containsKey(baseline)) {
+            return baseline;
+        }
+        for (String label : current.keySet()) {
+            if (baseline.endsWith(":" + label)) {
+                return label;
+            }
+        }
+        return null;
+    }
+
+    private static double change(double baseline, double current) {
+        if (baseline == 0) {
+            return current == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return (current - baseline) / baseline * 100;
+    }
+
+    /**
+     * @return Percentile rows by label: samples, p50, p95, p99, p99.9, max; empty if the file is absent
+     */
+    static Map<String, double[]> readPercentiles(Path file) throws IOException {
+        Map<String, double[]> rows = new HashMap<>();
+        if (!Files.exists(file)) {
+            return rows;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines.subList(Math.min(1, lines.size()), lines.size())) {
+            List<String> fields = SummaryReportReader.splitCsv(line, ',');
+            if (fields.size() < 8) {
+                continue;
+            }
+            double[] values = new double[6];
+            values[0] = SummaryReportReader.parseNumber(fields.get(1));
+            values[1] = SummaryReportReader.parseNumber(fields.get(2));
+            values[2] = SummaryReportReader.parseNumber(fields.get(4));
+            values[3] = SummaryReportReader.parseNumber(fields.get(5));
+            values[4] = SummaryReportReader.parseNumber(fields.get(6));
+            values[5] = SummaryReportReader.parseNumber(fields.get(7));
+            rows.put(fields.get(0), values);
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the cumulative latency distributions of a {@code .hgrm} file.
+     *
+     * @return Per label, pairs of {value in ms, fraction of samples at or below it}; empty if the file is absent
+     */
+    static Map<String, double[][]> readDistributions(Path file) throws IOException {
+        Map<String, double[][]> distributions = new HashMap<>();
+        if (!Files.exists(file)) {
+            return distributions;
+        }
+        String label = null;
+        List<double[]> points = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (line.startsWith("# Label: ")) {
+                if (label != null) {
+                    distributions.put(label, points.toArray(new double[0][]));
+                }
+                int units = line.lastIndexOf(" (values in ms)");
+                label = line.substring("# Label: ".length(), units < 0 ? line.length() : units);
+                points = new ArrayList<>();
+                continue;
+            }
+            String[] columns = line.trim().split("\\s+");
+            if (label != null && columns.length == 4 && !line.startsWith("#")) {
+                try {
+                    points.add(new double[]{Double.parseDouble(columns[0]), Double.parseDouble(columns[1])});
+                } catch (NumberFormatException e) {
+                    // column titles
+                }
+            }
+        }
+        if (label != null) {
+            distributions.put(label, points.toArray(new double[0][]));
+        }
+        return distributions;
+    }
+
+    /**
+     * One-sided two-sample Kolmogorov-Smirnov test for the current latencies being larger than the
+     * baseline's, on the step CDFs of the two distributions.
+     *
+     * @return Asymptotic p-value, {@code exp(-2 n m / (n + m) D+^2)}
+     */
+    static double ksIncreasePValue(double[][] baseline, long baselineSamples, double[][] current, long currentSamples) {
+        if (baseline.length == 0 || current.length == 0 || baselineSamples == 0 || currentSamples == 0) {
+            return 1;
+        }
+        double[] values = new double[baseline.length + current.length];
+        for (int i = 0; i < baseline.length; i++) {
+            values[i] = baseline[i][0];
+        }
+        for (int i = 0; i < current.length; i++) {
+            values[baseline.length + i] = current[i][0];
+        }
+        Arrays.sort(values);
+        double distance = 0;
+        for (double value : values) {
+            distance = Math.max(distance, cdf(baseline, value) - cdf(current, value));
+        }
+        double effective = (double) baselineSamples * currentSamples / (baselineSamples + currentSamples);
+        return Math.min(1, Math.exp(-2 * effective * distance * distance));
+    }
+
+    private static double cdf(double[][] distribution, double value) {
+        double fraction = 0;
+        for (double[] point : distribution) {
+            if (point[0] > value) {
+                break;
+            }
+            fraction = point[1];
+        }
+        return fraction;
+    }
+
+    /**
+     * One-sided Welch t-test for the current mean latency being larger than the baseline's.
+     */
+    static double welchIncreasePValue(SummaryReportReader.Row baseline, SummaryReportReader.Row current) {
+        long n1 = baseline.getSamples();
+        long n2 = current.getSamples();
+        if (n1 < 2 || n2 < 2) {
+            return current.getAverageMillis() > baseline.getAverageMillis() ? 0 : 1;
+        }
+        double v1 = baseline.getStdDevMillis() * baseline.getStdDevMillis() / n1;
+        double v2 = current.getStdDevMillis() * current.getStdDevMillis() / n2;
+        double difference = current.getAverageMillis() - baseline.getAverageMillis();
+        if (v1 + v2 == 0) {
+            return difference > 0 ? 0 : 1;
+        }
+        double t = difference / Math.sqrt(v1 + v2);
+        double df = (v1 + v2) * (v1 + v2) / (v1 * v1 / (n1 - 1) + v2 * v2 / (n2 - 1));
+        double tail = 0.5 * regularizedBeta(df / (df + t * t), df / 2, 0.5);
+        return t > 0 ? tail : 1 - tail;
+    }
+
+    /**
+     * One-sided two-proportion z-test for the current error rate being higher than the baseline's.
+     */
+    static double errorIncreasePValue(SummaryReportReader.Row baseline, SummaryReportReader.Row current) {
+        long n1 = baseline.getSamples();
+        long n2 = current.getSamples();
+        if (n1 == 0 || n2 == 0) {
+            return 1;
+        }
+        double p1 = baseline.getErrorPercent() / 100;
+        double p2 = current.getErrorPercent() / 100;
+        double pooled = (p1 * n1 + p2 * n2) / (n1 + n2);
+        double se = Math.sqrt(pooled * (1 - pooled) * (1.0 / n1 + 1.0 / n2));
+        if (se == 0) {
+            return p2 > p1 ? 0 : 1;
+        }
+        return 0.5 * erfc((p2 - p1) / se / Math.sqrt(2));
+    }
+
+    /**
+     * Complementary error function, with a fractional error below 1.2e-7 (Numerical Recipes erfcc).
+     */
+    private static double erfc(double x) {
+        double z = Math.abs(x);
+        double t = 1 / (1 + 0.5 * z);
+        double r = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+                + t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+                + t * (-0.82215223 + t * 0.17087277)))))))));
+        return x >= 0 ? r : 2 - r;
+    }
+
+    /**
+     * Regularized incomplete beta function I_x(a, b), by continued fraction.
+     */
+    private static double regularizedBeta(double x, double a, double b) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x >= 1) {
+            return 1;
+        }
+        double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+        return x < (a + 1) / (a + b + 2)
+                ? front * betaContinuedFraction(x, a, b) / a
+                : 1 - front * betaContinuedFraction(1 - x, b, a) / b;
+    }
+
+    private static double betaContinuedFraction(double x, double a, double b) {
+        double tiny = 1e-300;
+        double c = 1;
+        double d = 1 - (a + b) * x / (a + 1);
+        d = 1 / (Math.abs(d) < tiny ? tiny : d);
+        double h = d;
+        for (int m = 1; m <= 300; m++) {
+            for (int step = 0; step < 2; step++) {
+                double numerator = step == 0
+                        ? m * (b - m) * x / ((a + 2 * m - 1) * (a + 2 * m))
+                        : -(a + m) * (a + b + m) * x / ((a + 2 * m) * (a + 2 * m + 1));
+                d = 1 + numerator * d;
+                d = 1 / (Math.abs(d) < tiny ? tiny : d);
+                c = 1 + numerator / c;
+                c = Math.abs(c) < tiny ? tiny : c;
+                h *= d * c;
+                if (step == 1 && Math.abs(d * c - 1) < 1e-12) {
+                    return h;
+                }
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Lanczos approximation of ln Gamma(x).
+     */
+    private static double logGamma(double x) {
+        double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+
+    static void write(Path report, List<Check> checks) throws IOException {
+        if (report.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(report.toAbsolutePath().getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(report, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (Check check : checks) {
+                writer.write(check.toCsv());
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Outcome of one check.
+     */
+    public enum Verdict {
+        PASS,
+        FAIL,
+        /** Not enough data on one side, e.g. a baseline without percentiles */
+        SKIPPED,
+        /** The baseline label did not run */
+        MISSING
+    }
+
+    /**
+     * One metric of one label, compared.
+     */
+    public static final class Check {
+        private final String label;
+        private final String metric;
+        private final double baseline;
+        private final double current;
+        private final double tolerancePercent;
+        private final double pValue;
+        private final Verdict verdict;
+
+        Check(String label, String metric, double baseline, double current, double tolerancePercent, double pValue,
+              Verdict verdict) {
+            this.label = label;
+            this.metric = metric;
+            this.baseline = baseline;
+            this.current = current;
+            this.tolerancePercent = tolerancePercent;
+            this.pValue = pValue;
+            this.verdict = verdict;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public String getMetric() {
+            return metric;
+        }
+
+        public double getBaseline() {
+            return baseline;
+        }
+
+        public double getCurrent() {
+            return current;
+        }
+
+        /**
+         * @return Relative change in percent, or for the error rate the change in percentage points
+         */
+        public double getChange() {
+            return metric.equals("Error %") ? current - baseline : change(baseline, current);
+        }
+
+        public double getTolerancePercent() {
+            return tolerancePercent;
+        }
+
+        /**
+         * @return p-value of the significance test, NaN where none applies
+         */
+        public double getPValue() {
+            return pValue;
+        }
+
+        public Verdict getVerdict() {
+            return verdict;
+        }
+
+        String toCsv() {
+            return String.join(",", label.contains(",") ? "\"" + label + "\"" : label, metric,
+                    number(baseline, "%.3f"), number(current, "%.3f"), number(getChange(), "%+.2f"),
+                    number(tolerancePercent, "%+.2f"), number(pValue, "%.4g"), verdict.name());
+        }
+
+        private static String number(double value, String format) {
+            return Double.isNaN(value) ? "" : String.format(Locale.ROOT, format, value);
+        }
+    }
+}
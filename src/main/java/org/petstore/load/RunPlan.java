@@ -0,0 +1,243 @@
+package org.petstore.load;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything a distributed worker needs to run its share of a load test, as pushed by the
+ * coordinator: the target, the workloads and the contents of their payload files, so workers
+ * need nothing but the load engine itself.
+ */
+final class RunPlan {
+
+    private static final int VERSION = 4;
+
+    final String baseUri;
+    final PayloadFeeder.Mode payloadMode;
+    final boolean templatePayloads;
+    final boolean partitionPayloads;
+    final HttpClient.Version httpVersion;
+    /**
+     * Threads completing async requests, or 0 for blocking requests
+     */
+    final int asyncThreads;
+    /**
+     * Every how many successful responses one is checked against its contract, or 0 for none
+     */
+    final int contractSampleEvery;
+    final List<Workload> workloads;
+    final Map<String, byte[]> payloadFiles;
+    /**
+     * Open-model profile in {@link ArrivalProfile#toSpec()} form, or null for the closed model
+     */
+    final String profileSpec;
+    final boolean poisson;
+    final long seed;
+    final int maxInFlight;
+    final long lateToleranceNanos;
+    final long intervalMillis;
+
+    RunPlan(String baseUri, PayloadFeeder.Mode payloadMode, boolean templatePayloads, boolean partitionPayloads,
+            HttpClient.Version httpVersion, int asyncThreads, int contractSampleEvery, List<Workload> workloads,
+            Map<String, byte[]> payloadFiles, ArrivalProfile profile, long seed, int maxInFlight,
+            long lateToleranceNanos, long intervalMillis) {
+        this(baseUri, payloadMode, templatePayloads, partitionPayloads, httpVersion, asyncThreads,
+                contractSampleEvery, workloads, payloadFiles, profile == null ? null : profile.toSpec(),
+                profile != null && profile.isPoisson(), seed, maxInFlight, lateToleranceNanos, intervalMillis);
+    }
+
+    private RunPlan(String baseUri, PayloadFeeder.Mode payloadMode, boolean templatePayloads,
+                    boolean partitionPayloads, HttpClient.Version httpVersion, int asyncThreads,
+                    int contractSampleEvery, List<Workload> workloads, Map<String, byte[]> payloadFiles,
+                    String profileSpec, boolean poisson, long seed, int maxInFlight, long lateToleranceNanos,
+                    long intervalMillis) {
+        this.baseUri = baseUri;
+        this.payloadMode = payloadMode;
+        this.templatePayloads = templatePayloads;
+        this.partitionPayloads = partitionPayloads;
+        this.httpVersion = httpVersion;
+        this.asyncThreads = asyncThreads;
+        this.contractSampleEvery = contractSampleEvery;
+        this.workloads = Collections.unmodifiableList(workloads);
+        this.payloadFiles = Collections.unmodifiableMap(payloadFiles);
+        this.profileSpec = profileSpec;
+        this.poisson = poisson;
+        this.seed = seed;
+        this.maxInFlight = maxInFlight;
+        this.lateToleranceNanos = lateToleranceNanos;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Reads the payload files the workloads refer to, so they can be pushed to the workers.
+     *
+     * @param payloadDir Directory holding the payload files
+     * @param workloads  Workloads of the run
+     * @return Payload file contents by file name
+     */
+    static Map<String, byte[]> readPayloadFiles(Path payloadDir, List<Workload> workloads) throws IOException {
+        Map<String, byte[]> files = new LinkedHashMap<>();
+        for (Workload workload : workloads) {
+            String file = workload.getPayloadFile();
+            if (file != null && !files.containsKey(file)) {
+                files.put(file, Files.readAllBytes(payloadDir.resolve(file)));
+            }
+        }
+        return files;
+    }
+
+    ArrivalProfile profile() {
+        return profileSpec == null ? null : ArrivalProfile.parse(profileSpec, poisson);
+    }
+
+    /**
+     * Splits the plan among workers: users are dealt out as evenly as possible (a worker left
+     * without users for a workload does not run it) and open-model rates are divided. With
+     * partitioned payloads every worker also gets its own lines of each payload file, so no two
+     * workers send the same record.
+     *
+     * @param worker  Index of the worker
+     * @param workers Number of workers
+     * @return The share of that worker
+     */
+    RunPlan forWorker(int worker, int workers) {
+        List<Workload> share = new ArrayList<>();
+        for (Workload workload : workloads) {
+            int users = workload.getUsers() / workers + (worker < workload.getUsers() % workers ? 1 : 0);
+            if (profileSpec != null) {
+                share.add(workload);
+            } else if (users > 0) {
+                share.add(workload.withUsers(users));
+            }
+        }
+        String spec = profileSpec == null ? null : profile().scaled(1.0 / workers).toSpec();
+        Map<String, byte[]> files = payloadFiles;
+        if (partitionPayloads && workers > 1) {
+            files = new LinkedHashMap<>();
+            for (Map.Entry<String, byte[]> file : payloadFiles.entrySet()) {
+                files.put(file.getKey(), linesFor(file.getValue(), worker, workers));
+            }
+        }
+        return new RunPlan(baseUri, payloadMode, templatePayloads, partitionPayloads, httpVersion, asyncThreads,
+                contractSampleEvery, share, files, spec, poisson, seed + 1_000L * worker, maxInFlight,
+                lateToleranceNanos, intervalMillis);
+    }
+
+    /**
+     * @return Every {@code workers}-th line of the file starting at line {@code worker}, or the
+     * whole file when it has too few lines to give every worker one
+     */
+    private static byte[] linesFor(byte[] content, int worker, int workers) {
+        String[] lines = new String(content, StandardCharsets.UTF_8).split("\\r?\\n");
+        List<String> kept = new ArrayList<>();
+        for (String line : lines) {
+            if (!line.trim().isEmpty()) {
+                kept.add(line);
+            }
+        }
+        if (kept.size() < workers) {
+            return content;
+        }
+        StringBuilder share = new StringBuilder();
+        for (int i = worker; i < kept.size(); i += workers) {
+            share.append(kept.get(i)).append('\n');
+        }
+        return share.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(VERSION);
+        out.writeUTF(baseUri);
+        out.writeUTF(payloadMode.name());
+        out.writeBoolean(templatePayloads);
+        out.writeBoolean(partitionPayloads);
+        out.writeUTF(httpVersion.name());
+        out.writeInt(asyncThreads);
+        out.writeInt(contractSampleEvery);
+        out.writeBoolean(profileSpec != null);
+        if (profileSpec != null) {
+            out.writeUTF(profileSpec);
+        }
+        out.writeBoolean(poisson);
+        out.writeLong(seed);
+        out.writeInt(maxInFlight);
+        out.writeLong(lateToleranceNanos);
+        out.writeLong(intervalMillis);
+
+        out.writeInt(workloads.size());
+        for (Workload workload : workloads) {
+            out.writeUTF(workload.getName());
+            out.writeUTF(workload.getLabel());
+            out.writeUTF(workload.getMethod());
+            out.writeUTF(workload.getPath());
+            out.writeBoolean(workload.getPayloadFile() != null);
+            if (workload.getPayloadFile() != null) {
+                out.writeUTF(workload.getPayloadFile());
+            }
+            out.writeInt(workload.getUsers());
+            out.writeInt(workload.getIterations());
+            out.writeLong(workload.getRampUpMillis());
+        }
+
+        out.writeInt(payloadFiles.size());
+        for (Map.Entry<String, byte[]> file : payloadFiles.entrySet()) {
+            out.writeUTF(file.getKey());
+            out.writeInt(file.getValue().length);
+            out.write(file.getValue());
+        }
+    }
+
+    static RunPlan readFrom(DataInputStream in) throws IOException {
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Coordinator speaks protocol version " + version + ", this worker " + VERSION);
+        }
+        String baseUri = in.readUTF();
+        PayloadFeeder.Mode payloadMode = PayloadFeeder.Mode.valueOf(in.readUTF());
+        boolean templatePayloads = in.readBoolean();
+        boolean partitionPayloads = in.readBoolean();
+        HttpClient.Version httpVersion = HttpClient.Version.valueOf(in.readUTF());
+        int asyncThreads = in.readInt();
+        int contractSampleEvery = in.readInt();
+        String profileSpec = in.readBoolean() ? in.readUTF() : null;
+        boolean poisson = in.readBoolean();
+        long seed = in.readLong();
+        int maxInFlight = in.readInt();
+        long lateToleranceNanos = in.readLong();
+        long intervalMillis = in.readLong();
+
+        int workloadCount = in.readInt();
+        List<Workload> workloads = new ArrayList<>(workloadCount);
+        for (int i = 0; i < workloadCount; i++) {
+            String name = in.readUTF();
+            String label = in.readUTF();
+            String method = in.readUTF();
+            String path = in.readUTF();
+            String payloadFile = in.readBoolean() ? in.readUTF() : null;
+            workloads.add(new Workload(name, label, method, path, payloadFile,
+                    in.readInt(), in.readInt(), in.readLong()));
+        }
+
+        int fileCount = in.readInt();
+        Map<String, byte[]> payloadFiles = new LinkedHashMap<>();
+        for (int i = 0; i < fileCount; i++) {
+            String name = in.readUTF();
+            byte[] content = new byte[in.readInt()];
+            in.readFully(content);
+            payloadFiles.put(name, content);
+        }
+        return new RunPlan(baseUri, payloadMode, templatePayloads, partitionPayloads, httpVersion, asyncThreads,
+                contractSampleEvery, workloads, payloadFiles, profileSpec, poisson, seed, maxInFlight,
+                lateToleranceNanos, intervalMillis);
+    }
+}
@@ -0,0 +1,51 @@
+package org.petstore.load;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Writes label statistics in the JMeter Summary Report CSV layout used by
+ * load_tests/summary.csv, so results of the Java engine and of JMeter can be compared side by side.
+ */
+public final class SummaryReport {
+
+    static final String HEADER = "Label,# Samples,Average,Min,Max,Std. Dev.,Error %,Throughput,"
+            + "Received KB/sec,Sent KB/sec,Avg. Bytes";
+
+    private SummaryReport() {
+    }
+
+    public static void write(Path file, Collection<LabelStats> stats) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (LabelStats label : stats) {
+                writer.write(row(label));
+                writer.write('\n');
+            }
+        }
+    }
+
+    static String row(LabelStats stats) {
+        return String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.2f,%.3f%%,%.5f,%.2f,%.2f,%.1f",
+                stats.getLabel().contains(",") ? "\"" + stats.getLabel() + "\"" : stats.getLabel(),
+                stats.getSamples(),
+                Math.round(stats.getAverageMillis()),
+                Math.round(stats.getMinMillis()),
+                Math.round(stats.getMaxMillis()),
+                stats.getStdDevMillis(),
+                stats.getErrorRatio() * 100,
+                stats.getThroughputPerSecond(),
+                stats.getReceivedKbPerSecond(),
+                stats.getSentKbPerSecond(),
+                stats.getAverageBytes());
+    }
+}
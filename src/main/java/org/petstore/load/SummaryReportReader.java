@@ -0,0 +1,214 @@
+package org.petstore.load;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads JMeter Summary Report CSVs such as load_tests/summary.csv and the files in saved_reports,
+ * whichever locale wrote them: JMeter formats the numbers with the default locale, so a report
+ * may hold {@code 261.85} and {@code 0.000%} or {@code "3823,32"}, {@code "0,802%"} and
+ * {@code ",42570"}.
+ */
+public final class SummaryReportReader {
+
+    private SummaryReportReader() {
+    }
+
+    /**
+     * @param file Summary Report CSV
+     * @return Its rows, including the TOTAL row when present
+     */
+    public static List<Row> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).startsWith("Label,")) {
+            throw new IOException(file + " is not a Summary Report CSV (no 'Label,# Samples,...' header)");
+        }
+        List<String> header = splitCsv(lines.get(0), ',');
+        List<Row> rows = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            List<String> fields = splitCsv(line, ',');
+            if (fields.size() != header.size()) {
+                throw new IOException(file + ": row has " + fields.size() + " fields, header " + header.size()
+                        + ": " + line);
+            }
+            rows.add(new Row(fields.get(0),
+                    (long) parseNumber(fields.get(column(header, "# Samples"))),
+                    parseNumber(fields.get(column(header, "Average"))),
+                    parseNumber(fields.get(column(header, "Min"))),
+                    parseNumber(fields.get(column(header, "Max"))),
+                    parseNumber(fields.get(column(header, "Std. Dev."))),
+                    parseNumber(fields.get(column(header, "Error %"))),
+                    parseNumber(fields.get(column(header, "Throughput"))),
+                    parseNumber(fields.get(column(header, "Received KB/sec"))),
+                    parseNumber(fields.get(column(header, "Sent KB/sec"))),
+                    parseNumber(fields.get(column(header, "Avg. Bytes")))));
+        }
+        return rows;
+    }
+
+    /**
+     * Parses a number written with either decimal separator. When both a comma and a point
+     * occur the last one is the decimal separator and the other groups thousands; a lone comma
+     * is a decimal comma, as JMeter never groups digits. A trailing {@code %} is dropped.
+     *
+     * @param text The number, e.g. {@code 0,802%}, {@code ,42570} or {@code 1.234,5}
+     * @return Its value
+     */
+    public static double parseNumber(String text) {
+        String value = text.trim().replace(" ", "").replace("\u00a0", "").replace("\u202f", "");
+        if (value.endsWith("%")) {
+            value = value.substring(0, value.length() - 1);
+        }
+        int comma = value.lastIndexOf(',');
+        int point = value.lastIndexOf('.');
+        if (comma >= 0 && point >= 0) {
+            value = comma > point
+                    ? value.replace(".", "").replace(',', '.')
+                    : value.replace(",", "");
+        } else if (comma >= 0) {
+            value = value.replace(',', '.');
+        }
+        if (value.isEmpty() || value.equals(".")) {
+            throw new NumberFormatException("Not a number: '" + text + "'");
+        }
+        if (value.startsWith(".")) {
+            value = "0" + value;
+        }
+        return Double.parseDouble(value);
+    }
+
+    private static int column(List<String> header, String name) throws IOException {
+        int index = header.indexOf(name);
+        if (index < 0) {
+            throw new IOException("Summary Report column '" + name + "' is missing");
+        }
+        return index;
+    }
+
+    /**
+     * Splits one CSV line, honouring double quotes.
+     */
+    static List<String> splitCsv(String line, char delimiter) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return Collections.unmodifiableList(fields);
+    }
+
+    /**
+     * One Summary Report row; times in milliseconds, the error rate in percent.
+     */
+    public static final class Row {
+        private final String label;
+        private final long samples;
+        private final double averageMillis;
+        private final double minMillis;
+        private final double maxMillis;
+        private final double stdDevMillis;
+        private final double errorPercent;
+        private final double throughputPerSecond;
+        private final double receivedKbPerSecond;
+        private final double sentKbPerSecond;
+        private final double averageBytes;
+
+        Row(String label, long samples, double averageMillis, double minMillis, double maxMillis,
+            double stdDevMillis, double errorPercent, double throughputPerSecond, double receivedKbPerSecond,
+            double sentKbPerSecond, double averageBytes) {
+            this.label = label;
+            this.samples = samples;
+            this.averageMillis = averageMillis;
+            this.minMillis = minMillis;
+            this.maxMillis = maxMillis;
+            this.stdDevMillis = stdDevMillis;
+            this.errorPercent = errorPercent;
+            this.throughputPerSecond = throughputPerSecond;
+            this.receivedKbPerSecond = receivedKbPerSecond;
+            this.sentKbPerSecond = sentKbPerSecond;
+            this.averageBytes = averageBytes;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public double getAverageMillis() {
+            return averageMillis;
+        }
+
+        public double getMinMillis() {
+            return minMillis;
+        }
+
+        public double getMaxMillis() {
+            return maxMillis;
+        }
+
+        public double getStdDevMillis() {
+            return stdDevMillis;
+        }
+
+        public double getErrorPercent() {
+            return errorPercent;
+        }
+
+        public double getThroughputPerSecond() {
+            return throughputPerSecond;
+        }
+
+        public double getReceivedKbPerSecond() {
+            return receivedKbPerSecond;
+        }
+
+        public double getSentKbPerSecond() {
+            return sentKbPerSecond;
+        }
+
+        public double getAverageBytes() {
+            return averageBytes;
+        }
+
+        /**
+         * @return The row in the Summary Report layout with point decimals, as {@link SummaryReport} writes it
+         */
+        public String toCsv() {
+            return String.format(Locale.ROOT, "%s,%d,%d,%d,%d,%.2f,%.3f%%,%.5f,%.2f,%.2f,%.1f",
+                    label.contains(",") ? "\"" + label + "\"" : label, samples,
+                    Math.round(averageMillis), Math.round(minMillis), Math.round(maxMillis), stdDevMillis,
+                    errorPercent, throughputPerSecond, receivedKbPerSecond, sentKbPerSecond, averageBytes);
+        }
+    }
+}
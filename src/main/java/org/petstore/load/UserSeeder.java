@@ -0,0 +1,366 @@
+package org.petstore.load;
+
+import org.petstore.metrics.EndpointMetrics;
+import org.petstore.metrics.MetricsRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Seeds users in bulk through {@code POST /user/createWithList} and {@code /user/createWithArray}
+ * before a load run, instead of one {@code POST /user} per user.
+ * <p>
+ * Records are read from a line-oriented file through a {@link PayloadFeeder}: JSON objects, one
+ * per line, like load_tests/payloads/users.csv, or a CSV file with a header row naming the
+ * {@code UserRequest} fields. They are copied into JSON array bodies of {@code batchSize} users
+ * without being parsed. Batches are sent concurrently with at most {@code maxInFlight} requests
+ * outstanding; the reader waits for a free slot, so memory stays bounded by
+ * {@code maxInFlight} batches whatever the file size. A batch that gets no response, a 429 or a
+ * 5xx is retried with exponential backoff; once its retries are used up, on any other status,
+ * or when seeding is interrupted while it is in flight, its users are appended to the failed
+ * file, which can be seeded again as it is.
+ * <pre>
+ * java -cp target/classes org.petstore.load.UserSeeder --file=users.jsonl --batch-size=500 --max-in-flight=16
+ * </pre>
+ * Options: {@code --base-uri} (default: -Dpetstore.baseUri or the public Petstore), {@code --file}
+ * (default load_tests/payloads/users.csv), {@code --batch-size} (500), {@code --max-in-flight}
+ * (16), {@code --endpoint} ({@code list}, {@code array} or {@code both} to alternate; default
+ * list), {@code --retries} (3), {@code --retry-backoff-ms} (200), {@code --failed} (default
+ * target/seed-failed.jsonl) and {@code --progress-seconds} (5).
+ */
+public final class UserSeeder {
+
+    /**
+     * Batch endpoint to send users to.
+     */
+    public enum Endpoint {
+        LIST,
+        ARRAY,
+        /** Alternate between the two, batch by batch */
+        BOTH
+    }
+
+    private final String baseUri;
+    private final Endpoint endpoint;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final int retries;
+    private final long retryBackoffMillis;
+    private final Path failedFile;
+    private final HttpClient httpClient;
+
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder seededRows = new LongAdder();
+    private final LongAdder failedRows = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder retriedBatches = new LongAdder();
+    private OutputStream failed;
+
+    /**
+     * @param baseUri            Base URI of the API, e.g. https://petstore.swagger.io/v2
+     * @param endpoint           Batch endpoint to use
+     * @param batchSize          Users per request
+     * @param maxInFlight        Batches sent concurrently
+     * @param retries            Retries of a batch that got no response, a 429 or a 5xx
+     * @param retryBackoffMillis Delay before the first retry, doubled for every further one
+     * @param failedFile         File the users of failed batches are appended to, one per line
+     */
+    public UserSeeder(String baseUri, Endpoint endpoint, int batchSize, int maxInFlight, int retries,
+                      long retryBackoffMillis, Path failedFile) {
+        if (batchSize < 1 || maxInFlight < 1) {
+            throw new IllegalArgumentException("Batch size and in-flight batches must be positive");
+        }
+        this.baseUri = baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri;
+        this.endpoint = endpoint;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.retries = retries;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.failedFile = failedFile;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Main.parseOptions(args);
+        UserSeeder seeder = new UserSeeder(
+                options.getOrDefault("base-uri", System.getProperty("petstore.baseUri", "https://petstore.swagger.io/v2")),
+                Endpoint.valueOf(options.getOrDefault("endpoint", "list").toUpperCase(Locale.ROOT)),
+                Integer.parseInt(options.getOrDefault("batch-size", "500")),
+                Integer.parseInt(options.getOrDefault("max-in-flight", "16")),
+                Integer.parseInt(options.getOrDefault("retries", "3")),
+                Long.parseLong(options.getOrDefault("retry-backoff-ms", "200")),
+                Paths.get(options.getOrDefault("failed", "target/seed-failed.jsonl")));
+        Path file = Paths.get(options.getOrDefault("file", "load_tests/payloads/users.csv"));
+        long progressMillis = TimeUnit.SECONDS.toMillis(Long.parseLong(options.getOrDefault("progress-seconds", "5")));
+
+        System.out.println("Seeding users from " + file + " into " + seeder.baseUri + " (" + seeder.endpoint
+                + ", " + seeder.batchSize + " per batch, " + seeder.maxInFlight + " in flight)");
+        long start = System.nanoTime();
+        Thread progress = new Thread(() -> {
+            try {
+                while (true) {
+                    Thread.sleep(progressMillis);
+                    System.out.println("[seed] " + seeder.describe(System.nanoTime() - start));
+                }
+            } catch (InterruptedException e) {
+                // seeding finished
+            }
+        }, "petstore-seed-progress");
+        progress.setDaemon(true);
+        progress.start();
+        try {
+            seeder.seed(file);
+        } finally {
+            progress.interrupt();
+        }
+        System.out.println("Done: " + seeder.describe(System.nanoTime() - start));
+        if (seeder.failedRows.sum() > 0) {
+            System.out.println("Users of failed batches written to " + seeder.failedFile.toAbsolutePath());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Seeds every user of a file and waits for the last batch.
+     *
+     * @param file JSON lines, or CSV with a header row
+     */
+    public void seed(Path file) throws IOException, InterruptedException {
+        PayloadFeeder feeder = PayloadFeeder.open(file, PayloadFeeder.Mode.STOP_AT_EOF);
+        Files.deleteIfExists(failedFile);
+        ExecutorService executor = VirtualThreads.newExecutor(maxInFlight);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        try {
+            byte[] first = feeder.next();
+            List<String> csvHeader = first != null && first[0] != '{'
+                    ? SummaryReportReader.splitCsv(new String(first, StandardCharsets.UTF_8), ',')
+                    : null;
+            byte[] record = csvHeader == null ? first : feeder.next();
+
+            List<byte[]> batch = new ArrayList<>(batchSize);
+            long batchNumber = 0;
+            while (record != null) {
+                batch.add(csvHeader == null ? record : csvToJson(csvHeader, record));
+                rows.increment();
+                if (batch.size() == batchSize) {
+                    submit(batch, batchNumber++, executor, inFlight);
+                    batch = new ArrayList<>(batchSize);
+                }
+                record = feeder.next();
+            }
+            if (!batch.isEmpty()) {
+                submit(batch, batchNumber, executor, inFlight);
+            }
+            inFlight.acquire(maxInFlight);
+        } finally {
+            executor.shutdownNow();
+            // Interrupted batches still write their users to the failed file, so close it only after them
+            awaitTermination(executor);
+            synchronized (this) {
+                if (failed != null) {
+                    failed.close();
+                    failed = null;
+                }
+            }
+        }
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (!executor.isTerminated()) {
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(List<byte[]> users, long number, ExecutorService executor, Semaphore inFlight)
+            throws InterruptedException {
+        URI uri = URI.create(baseUri + path(number));
+        byte[] body = jsonArray(users);
+        inFlight.acquire();
+        executor.execute(() -> {
+            try {
+                send(uri, body, users);
+            } catch (InterruptedException e) {
+                // Stopped while sending or backing off, so the batch may not have been seeded
+                fail(users);
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private String path(long batchNumber) {
+        boolean list = endpoint == Endpoint.LIST || (endpoint == Endpoint.BOTH && batchNumber % 2 == 0);
+        return list ? "/user/createWithList" : "/user/createWithArray";
+    }
+
+    private void send(URI uri, byte[] body, List<byte[]> users) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(60))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        EndpointMetrics metrics = MetricsRegistry.global().endpoint("POST", uri.getPath());
+        for (int attempt = 0; ; attempt++) {
+            long start = metrics.start();
+            int status;
+            try {
+                status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = EndpointMetrics.NO_RESPONSE;
+            }
+            metrics.stop(start, status);
+
+            if (status >= 200 && status < 300) {
+                seededRows.add(users.size());
+                batches.increment();
+                return;
+            }
+            boolean retryable = status == EndpointMetrics.NO_RESPONSE || status == 429 || status >= 500;
+            if (!retryable || attempt >= retries) {
+                fail(users);
+                return;
+            }
+            if (attempt == 0) {
+                retriedBatches.increment();
+            }
+            // Jittered, so batches that failed together do not all come back at the same moment
+            long backoff = retryBackoffMillis << Math.min(attempt, 16);
+            Thread.sleep(backoff / 2 + ThreadLocalRandom.current().nextLong(backoff + 1));
+        }
+    }
+
+    private void fail(List<byte[]> users) {
+        failedRows.add(users.size());
+        failedBatches.increment();
+        batches.increment();
+        writeFailed(users);
+    }
+
+    private synchronized void writeFailed(List<byte[]> users) {
+        try {
+            if (failed == null) {
+                if (failedFile.toAbsolutePath().getParent() != null) {
+                    Files.createDirectories(failedFile.toAbsolutePath().getParent());
+                }
+                failed = Files.newOutputStream(failedFile);
+            }
+            for (byte[] user : users) {
+                failed.write(user);
+                failed.write('\n');
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write failed users to " + failedFile + ": " + e.getMessage());
+        }
+    }
+
+    private static byte[] jsonArray(List<byte[]> users) {
+        int length = users.size() + 1;
+        for (byte[] user : users) {
+            length += user.length;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        out.write('[');
+        for (int i = 0; i < users.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(users.get(i));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    /**
+     * Turns a CSV row into a user object; id and userStatus are written as numbers, everything
+     * else as strings, and empty fields are left out.
+     */
+    static byte[] csvToJson(List<String> header, byte[] line) {
+        List<String> fields = SummaryReportReader.splitCsv(new String(line, StandardCharsets.UTF_8), ',');
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < Math.min(header.size(), fields.size()); i++) {
+            String name = header.get(i).trim();
+            String value = fields.get(i);
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(name).append("\":");
+            if ((name.equals("id") || name.equals("userStatus")) && value.trim().matches("-?\\d+")) {
+                json.append(value.trim());
+            } else {
+                appendString(json, value);
+            }
+        }
+        return json.append('}').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    /**
+     * @param elapsedNanos Time since seeding started
+     * @return Progress so far, with the rate of seeded users
+     */
+    String describe(long elapsedNanos) {
+        double seconds = Math.max(elapsedNanos / 1_000_000_000.0, 1e-9);
+        return String.format(Locale.ROOT,
+                "%d users read, %d seeded, %d failed in %d batches (%d retried, %d failed) in %.1fs, %.0f users/s",
+                rows.sum(), seededRows.sum(), failedRows.sum(), batches.sum(), retriedBatches.sum(),
+                failedBatches.sum(), seconds, seededRows.sum() / seconds);
+    }
+
+    public long getSeededRows() {
+        return seededRows.sum();
+    }
+
+    public long getFailedRows() {
+        return failedRows.sum();
+    }
+}
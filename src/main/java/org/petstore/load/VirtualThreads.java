@@ -0,0 +1,48 @@
+package org.petstore.load;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executor that runs virtual users.
+ * <p>
+ * On Java 21+ every virtual user gets its own virtual thread, which is what makes 100k+
+ * concurrent users fit on one box: a blocked virtual thread costs a few hundred bytes of
+ * heap instead of a platform thread stack. The build targets an older release, so the
+ * factory is looked up reflectively and falls back to a bounded platform thread pool.
+ */
+final class VirtualThreads {
+
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+    }
+
+    private static Method lookup() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    static boolean available() {
+        return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+    }
+
+    /**
+     * @param fallbackThreads Pool size used when virtual threads are not available
+     * @return A virtual-thread-per-task executor, or a fixed platform pool as a fallback
+     */
+    static ExecutorService newExecutor(int fallbackThreads) {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+            try {
+                return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create a virtual thread executor", e);
+            }
+        }
+        return Executors.newFixedThreadPool(fallbackThreads);
+    }
+}
@@ -0,0 +1,130 @@
+package org.petstore.load;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Worker of a distributed load run.
+ * <p>
+ * Connects to the {@link Coordinator}, receives its share of the {@link RunPlan}, runs it with
+ * a local {@link LoadEngine} and sends the change of every label's statistics (counters plus
+ * compressed HDR interval histograms) each interval, then a final interval and a done marker.
+ * The payload files of the plan are written to a temporary directory, deleted once the run ends.
+ */
+public final class Worker {
+
+    private final String host;
+    private final int port;
+    private final int fallbackThreads;
+
+    /**
+     * @param host            Coordinator host
+     * @param port            Coordinator port
+     * @param fallbackThreads Platform threads to use when virtual threads are not available
+     */
+    public Worker(String host, int port, int fallbackThreads) {
+        this.host = host;
+        this.port = port;
+        this.fallbackThreads = fallbackThreads;
+    }
+
+    /**
+     * Runs the share of the plan the coordinator sends.
+     *
+     * @throws IOException When the run failed; the coordinator is told before this is thrown
+     */
+    public void run() throws IOException, InterruptedException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+            RunPlan plan = RunPlan.readFrom(in);
+            long originNanos = System.nanoTime();
+            System.out.println("Worker received " + plan.workloads.size() + " workload(s) for " + plan.baseUri);
+
+            Path payloadDir = Files.createTempDirectory("petstore-payloads");
+            try {
+                run(plan, payloadDir, out, originNanos);
+            } finally {
+                delete(payloadDir);
+            }
+        }
+    }
+
+    private void run(RunPlan plan, Path payloadDir, DataOutputStream out, long originNanos)
+            throws IOException, InterruptedException {
+        for (Map.Entry<String, byte[]> file : plan.payloadFiles.entrySet()) {
+            Files.write(payloadDir.resolve(file.getKey()), file.getValue());
+        }
+
+        LoadEngine engine = new LoadEngine(plan.baseUri, payloadDir, fallbackThreads, plan.payloadMode,
+                plan.templatePayloads, plan.partitionPayloads, plan.httpVersion, plan.asyncThreads,
+                plan.contractSampleEvery);
+        Map<String, LabelStats> results = LoadEngine.statsFor(plan.workloads);
+        ArrivalProfile profile = plan.profile();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        Thread runner = new Thread(() -> {
+            try {
+                if (profile == null) {
+                    engine.run(plan.workloads, results);
+                } else {
+                    engine.runOpen(plan.workloads, results, profile, plan.seed, plan.maxInFlight,
+                            plan.lateToleranceNanos);
+                }
+            } catch (Exception e) {
+                failure.set(e);
+            }
+        }, "petstore-worker-run");
+        runner.start();
+
+        while (runner.isAlive()) {
+            runner.join(plan.intervalMillis);
+            sendIntervals(out, results, originNanos);
+        }
+        sendIntervals(out, results, originNanos);
+
+        if (failure.get() != null) {
+            out.writeByte(Coordinator.FAILED);
+            out.writeUTF(String.valueOf(failure.get()));
+            out.flush();
+            throw new IOException("Worker run failed", failure.get());
+        }
+        out.writeByte(Coordinator.DONE);
+        out.flush();
+        System.out.println("Worker done");
+    }
+
+    /**
+     * Deletes the payload directory and the files written into it.
+     */
+    private static void delete(Path payloadDir) throws IOException {
+        try (Stream<Path> paths = Files.walk(payloadDir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static void sendIntervals(DataOutputStream out, Map<String, LabelStats> results, long originNanos)
+            throws IOException {
+        out.writeByte(Coordinator.INTERVAL);
+        out.writeInt(results.size());
+        for (LabelStats stats : results.values()) {
+            out.writeUTF(stats.getLabel());
+            stats.takeInterval().writeTo(out, originNanos);
+        }
+        out.flush();
+    }
+}
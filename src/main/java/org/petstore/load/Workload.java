@@ -0,0 +1,108 @@
+package org.petstore.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable definition of one load workload, the equivalent of a JMeter thread group
+ * with a single HTTP sampler.
+ */
+public final class Workload {
+
+    private final String name;
+    private final String label;
+    private final String method;
+    private final String path;
+    private final String payloadFile;
+    private final int users;
+    private final int iterations;
+    private final long rampUpMillis;
+
+    public Workload(String name, String label, String method, String path, String payloadFile,
+                    int users, int iterations, long rampUpMillis) {
+        if (users <= 0 || iterations <= 0) {
+            throw new IllegalArgumentException("Workload '" + label + "' needs at least one user and one iteration");
+        }
+        this.name = name;
+        this.label = label;
+        this.method = method;
+        this.path = path;
+        this.payloadFile = payloadFile;
+        this.users = users;
+        this.iterations = iterations;
+        this.rampUpMillis = rampUpMillis;
+    }
+
+    /**
+     * The workloads defined in load_tests/load_tests.jmx, with the same thread counts,
+     * loop counts and ramp-up times.
+     *
+     * @return Default workload list
+     */
+    public static List<Workload> defaults() {
+        return new ArrayList<>(Arrays.asList(
+                new Workload("find-pets", "Find Pets by Status", "GET", "/pet/findByStatus?status=available", null,
+                        10, 20, 5_000),
+                new Workload("post-pets", "Post Pets from CSV", "POST", "/pet", "pets.csv", 3, 3, 1_000),
+                new Workload("put-pets", "Put Pets from CSV", "PUT", "/pet", "pets.csv", 3, 3, 1_000),
+                new Workload("post-orders", "Post Orders from CSV", "POST", "/store/order", "orders.csv", 3, 3, 1_000),
+                new Workload("post-users", "Post Users from CSV", "POST", "/user", "users.csv", 3, 3, 1_000)));
+    }
+
+    public Workload withUsers(int users) {
+        return new Workload(name, label, method, path, payloadFile, users, iterations, rampUpMillis);
+    }
+
+    public Workload withIterations(int iterations) {
+        return new Workload(name, label, method, path, payloadFile, users, iterations, rampUpMillis);
+    }
+
+    public Workload withRampUpMillis(long rampUpMillis) {
+        return new Workload(name, label, method, path, payloadFile, users, iterations, rampUpMillis);
+    }
+
+    /**
+     * @return Short identifier used to select the workload on the command line
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * @return Payload file name relative to the payload directory, or null for requests without a body
+     */
+    public String getPayloadFile() {
+        return payloadFile;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    public long getRampUpMillis() {
+        return rampUpMillis;
+    }
+
+    @Override
+    public String toString() {
+        return label + " [" + method + " " + path + ", users=" + users + ", iterations=" + iterations
+                + ", rampUp=" + rampUpMillis + "ms]";
+    }
+}
@@ -0,0 +1,197 @@
+package org.petstore.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters, latency timer and in-flight gauge of one method and endpoint, split by
+ * response status.
+ * <p>
+ * Everything on the recording path is a {@link LongAdder} or {@link LongAccumulator}, which
+ * stripe their cells across contending threads, so recording never takes a lock.
+ */
+public final class EndpointMetrics {
+
+    /**
+     * Status recorded when no response was received (connect or read failure)
+     */
+    public static final int NO_RESPONSE = 0;
+
+    /**
+     * Upper bounds of the latency buckets, in seconds (the Prometheus client defaults)
+     */
+    static final double[] BUCKET_SECONDS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKET_SECONDS[i] * TimeUnit.SECONDS.toNanos(1));
+        }
+    }
+
+    private final String method;
+    private final String endpoint;
+    private final LongAdder inFlight = new LongAdder();
+    private final AtomicReferenceArray<StatusMetrics> byStatus = new AtomicReferenceArray<>(600);
+
+    EndpointMetrics(String method, String endpoint) {
+        this.method = method;
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Marks a request as in flight.
+     *
+     * @return Start time to pass to {@link #stop(long, int)}
+     */
+    public long start() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a request started with {@link #start()}.
+     *
+     * @param startNanos Value returned by {@link #start()}
+     * @param status     HTTP status, or {@link #NO_RESPONSE}
+     * @return End time of the request
+     */
+    public long stop(long startNanos, int status) {
+        long end = System.nanoTime();
+        inFlight.decrement();
+        record(status, end - startNanos);
+        return end;
+    }
+
+    /**
+     * Records a request timed by the caller.
+     *
+     * @param status HTTP status, or {@link #NO_RESPONSE}
+     * @param nanos  Time from sending the request to the complete response
+     */
+    public void record(int status, long nanos) {
+        int index = status > 0 && status < byStatus.length() ? status : NO_RESPONSE;
+        StatusMetrics metrics = byStatus.get(index);
+        if (metrics == null) {
+            byStatus.compareAndSet(index, null, new StatusMetrics(index));
+            metrics = byStatus.get(index);
+        }
+        metrics.record(nanos);
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public long getRequests() {
+        long total = 0;
+        for (int i = 0; i < byStatus.length(); i++) {
+            StatusMetrics metrics = byStatus.get(i);
+            if (metrics != null) {
+                total += metrics.count.sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return Requests without a response or answered with a 4xx/5xx status
+     */
+    public long getErrors() {
+        long total = 0;
+        for (int i = 0; i < byStatus.length(); i++) {
+            StatusMetrics metrics = byStatus.get(i);
+            if (metrics != null && metrics.isError()) {
+                total += metrics.count.sum();
+            }
+        }
+        return total;
+    }
+
+    public long getTotalNanos() {
+        long total = 0;
+        for (int i = 0; i < byStatus.length(); i++) {
+            StatusMetrics metrics = byStatus.get(i);
+            if (metrics != null) {
+                total += metrics.sumNanos.sum();
+            }
+        }
+        return total;
+    }
+
+    void appendTo(StringBuilder counters, StringBuilder histograms, StringBuilder maxima) {
+        for (int i = 0; i < byStatus.length(); i++) {
+            StatusMetrics metrics = byStatus.get(i);
+            if (metrics == null) {
+                continue;
+            }
+            String labels = "method=\"" + MetricsRegistry.escape(method)
+                    + "\",endpoint=\"" + MetricsRegistry.escape(endpoint)
+                    + "\",status=\"" + metrics.statusLabel() + "\"";
+            long count = metrics.count.sum();
+            counters.append("petstore_http_requests_total{").append(labels).append("} ").append(count).append('\n');
+
+            long cumulative = 0;
+            for (int b = 0; b < BUCKET_SECONDS.length; b++) {
+                cumulative += metrics.buckets[b].sum();
+                histograms.append("petstore_http_request_duration_seconds_bucket{").append(labels)
+                        .append(",le=\"").append(BUCKET_SECONDS[b]).append("\"} ").append(cumulative).append('\n');
+            }
+            histograms.append("petstore_http_request_duration_seconds_bucket{").append(labels)
+                    .append(",le=\"+Inf\"} ").append(count).append('\n');
+            histograms.append("petstore_http_request_duration_seconds_sum{").append(labels).append("} ")
+                    .append(MetricsRegistry.seconds(metrics.sumNanos.sum())).append('\n');
+            histograms.append("petstore_http_request_duration_seconds_count{").append(labels).append("} ")
+                    .append(count).append('\n');
+
+            maxima.append("petstore_http_request_duration_seconds_max{").append(labels).append("} ")
+                    .append(MetricsRegistry.seconds(metrics.maxNanos.get())).append('\n');
+        }
+    }
+
+    private static final class StatusMetrics {
+        private final int status;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] buckets = new LongAdder[BUCKET_NANOS.length];
+
+        StatusMetrics(int status) {
+            this.status = status;
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            for (int i = 0; i < BUCKET_NANOS.length; i++) {
+                if (nanos <= BUCKET_NANOS[i]) {
+                    buckets[i].increment();
+                    return;
+                }
+            }
+        }
+
+        boolean isError() {
+            return status == NO_RESPONSE || status >= 400;
+        }
+
+        String statusLabel() {
+            return status == NO_RESPONSE ? "none" : Integer.toString(status);
+        }
+    }
+}
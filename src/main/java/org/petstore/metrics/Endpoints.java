@@ -0,0 +1,70 @@
+package org.petstore.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps request paths to the Petstore endpoint templates used as metric tags, so that
+ * {@code /v2/pet/1001} and {@code /v2/pet/1002} count towards the same {@code /pet/{petId}}.
+ */
+public final class Endpoints {
+
+    private Endpoints() {
+    }
+
+    /**
+     * @param path Request path, with or without the base path and query string
+     * @return The endpoint template, e.g. {@code /store/order/{orderId}} or {@code /user/login}
+     */
+    public static String template(String path) {
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        int root = 0;
+        while (root < segments.size() && !isResource(segments.get(root))) {
+            root++;
+        }
+        if (root == segments.size()) {
+            root = 0; // not a Petstore path: only generalise numeric ids
+        }
+
+        StringBuilder template = new StringBuilder();
+        for (int i = root; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            String resource = segments.get(root);
+            if (i == root + 1 && resource.equals("pet")) {
+                segment = segment.equals("findByStatus") || segment.equals("findByTags") ? segment : "{petId}";
+            } else if (i == root + 1 && resource.equals("user")) {
+                segment = segment.equals("login") || segment.equals("logout")
+                        || segment.equals("createWithList") || segment.equals("createWithArray")
+                        ? segment : "{username}";
+            } else if (i == root + 2 && resource.equals("store") && segments.get(root + 1).equals("order")) {
+                segment = "{orderId}";
+            } else if (isNumeric(segment)) {
+                segment = "{id}";
+            }
+            template.append('/').append(segment);
+        }
+        return template.length() == 0 ? "/" : template.toString();
+    }
+
+    private static boolean isResource(String segment) {
+        return segment.equals("pet") || segment.equals("store") || segment.equals("user");
+    }
+
+    private static boolean isNumeric(String segment) {
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
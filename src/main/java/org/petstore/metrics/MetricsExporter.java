@@ -0,0 +1,199 @@
+package org.petstore.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes a {@link MetricsRegistry} visible while a run is in progress:
+ * <ul>
+ *     <li>a local scrape endpoint, {@code http://127.0.0.1:<port>/metrics}, serving {@link MetricsRegistry#scrape()}</li>
+ *     <li>a periodic flush of the same text to a file, replaced atomically, plus one line per endpoint and
+ *     interval with its request rate, error rate and mean latency, appended to a timeline next to it
+ *     ({@code metrics.timeline.csv} for {@code metrics.prom})</li>
+ * </ul>
+ * The functional suite starts it from system properties with {@link #startFromProperties()}:
+ * <ul>
+ *     <li>{@code petstore.metrics.port} - scrape port, 0 for any free port (default: no endpoint)</li>
+ *     <li>{@code petstore.metrics.file} - file to flush to (default: no flush)</li>
+ *     <li>{@code petstore.metrics.flushSeconds} - flush period (default 5)</li>
+ * </ul>
+ */
+public final class MetricsExporter implements AutoCloseable {
+
+    private static final String TIMELINE_HEADER = "timestamp,method,endpoint,requests,requests/s,error %,mean ms,in flight";
+
+    private static MetricsExporter fromProperties;
+
+    private final MetricsRegistry registry;
+    private final HttpServer server;
+    private final Path file;
+    private final ScheduledExecutorService flusher;
+    private final Map<String, long[]> previous = new HashMap<>();
+    private long previousFlushNanos = System.nanoTime();
+
+    private MetricsExporter(MetricsRegistry registry, int port, Path file, long flushMillis) throws IOException {
+        this.registry = registry;
+        this.file = file;
+        if (port >= 0) {
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+            server.createContext("/metrics", exchange -> {
+                byte[] body = registry.scrape().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.setExecutor(Executors.newSingleThreadExecutor(daemon("petstore-metrics-http")));
+            server.start();
+        } else {
+            server = null;
+        }
+        if (file != null) {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.write(timeline(), (TIMELINE_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
+            flusher = Executors.newSingleThreadScheduledExecutor(daemon("petstore-metrics-flush"));
+            flusher.scheduleAtFixedRate(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * @param registry    Registry to export
+     * @param port        Scrape port, 0 for any free port, negative for no endpoint
+     * @param file        File to flush to, or null for no flush
+     * @param flushMillis Flush period
+     * @return The running exporter; {@link #close()} flushes once more and stops it
+     */
+    public static MetricsExporter start(MetricsRegistry registry, int port, Path file, long flushMillis)
+            throws IOException {
+        return new MetricsExporter(registry, port, file, flushMillis);
+    }
+
+    /**
+     * Starts the exporter of the global registry configured by the {@code petstore.metrics.*}
+     * properties, once per JVM.
+     *
+     * @return The exporter, or null when neither a port nor a file is configured
+     */
+    public static synchronized MetricsExporter startFromProperties() {
+        if (fromProperties == null) {
+            int port = Integer.getInteger("petstore.metrics.port", -1);
+            String file = System.getProperty("petstore.metrics.file");
+            if (port < 0 && file == null) {
+                return null;
+            }
+            try {
+                fromProperties = start(MetricsRegistry.global(), port, file == null ? null : Paths.get(file),
+                        TimeUnit.SECONDS.toMillis(Integer.getInteger("petstore.metrics.flushSeconds", 5)));
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to start the metrics exporter", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(fromProperties::close));
+            System.out.println("Petstore metrics: " + fromProperties.describe());
+        }
+        return fromProperties;
+    }
+
+    /**
+     * @return Where the metrics can be watched
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder();
+        if (server != null) {
+            text.append("http://127.0.0.1:").append(server.getAddress().getPort()).append("/metrics");
+        }
+        if (file != null) {
+            text.append(text.length() > 0 ? ", " : "").append(file.toAbsolutePath()).append(" and ").append(timeline());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes the current metrics and appends the interval since the previous flush to the timeline.
+     */
+    public synchronized void flush() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, registry.scrape().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long now = System.nanoTime();
+        double seconds = Math.max(now - previousFlushNanos, 1) / 1_000_000_000.0;
+        previousFlushNanos = now;
+        String timestamp = Instant.now().toString();
+        try (Writer writer = Files.newBufferedWriter(timeline(), StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+            for (EndpointMetrics metrics : registry.endpoints()) {
+                long[] totals = {metrics.getRequests(), metrics.getErrors(), metrics.getTotalNanos()};
+                long[] before = previous.getOrDefault(metrics.getMethod() + ' ' + metrics.getEndpoint(), new long[3]);
+                previous.put(metrics.getMethod() + ' ' + metrics.getEndpoint(), totals);
+                long requests = totals[0] - before[0];
+                if (requests == 0 && metrics.getInFlight() == 0) {
+                    continue;
+                }
+                writer.write(String.format(Locale.ROOT, "%s,%s,%s,%d,%.2f,%.3f,%.3f,%d%n",
+                        timestamp, metrics.getMethod(), metrics.getEndpoint(), requests, requests / seconds,
+                        requests == 0 ? 0 : 100.0 * (totals[1] - before[1]) / requests,
+                        requests == 0 ? 0 : (totals[2] - before[2]) / 1_000_000.0 / requests,
+                        metrics.getInFlight()));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            flushQuietly();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    private Path timeline() {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return file.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".timeline.csv");
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("Failed to flush metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,126 @@
+package org.petstore.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * In-process metrics of every HTTP call made by the suite and the load engine.
+ * <p>
+ * Requests are tagged by method, endpoint template (see {@link Endpoints}) and status. Named
+ * gauges can be added for anything else worth watching, such as the connection pool. The
+ * {@link #scrape()} text uses the Prometheus exposition format, so the endpoint served by
+ * {@link MetricsExporter} can be scraped as is.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, Gauge> gauges = new ConcurrentHashMap<>();
+
+    /**
+     * @return The registry shared by the whole JVM
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * @param method HTTP method
+     * @param path   Request path; ids are folded into the endpoint template
+     * @return The metrics of that method and endpoint
+     */
+    public EndpointMetrics endpoint(String method, String path) {
+        String template = Endpoints.template(path);
+        String key = method + ' ' + template;
+        EndpointMetrics metrics = endpoints.get(key);
+        if (metrics == null) {
+            metrics = endpoints.computeIfAbsent(key, ignored -> new EndpointMetrics(method, template));
+        }
+        return metrics;
+    }
+
+    /**
+     * Registers (or replaces) a gauge read at every scrape.
+     *
+     * @param name  Metric name, e.g. {@code petstore_http_pool_leased}
+     * @param help  One-line description
+     * @param value Current value
+     */
+    public void gauge(String name, String help, DoubleSupplier value) {
+        gauges.put(name, new Gauge(help, value));
+    }
+
+    /**
+     * @return Snapshot of all endpoints seen so far
+     */
+    public List<EndpointMetrics> endpoints() {
+        return new ArrayList<>(endpoints.values());
+    }
+
+    /**
+     * @return All metrics in the Prometheus text exposition format
+     */
+    public String scrape() {
+        StringBuilder counters = new StringBuilder();
+        StringBuilder histograms = new StringBuilder();
+        StringBuilder maxima = new StringBuilder();
+        StringBuilder inFlight = new StringBuilder();
+        for (EndpointMetrics metrics : endpoints.values()) {
+            metrics.appendTo(counters, histograms, maxima);
+            inFlight.append("petstore_http_requests_in_flight{method=\"").append(escape(metrics.getMethod()))
+                    .append("\",endpoint=\"").append(escape(metrics.getEndpoint())).append("\"} ")
+                    .append(metrics.getInFlight()).append('\n');
+        }
+
+        StringBuilder text = new StringBuilder();
+        family(text, "petstore_http_requests_total", "counter",
+                "HTTP requests by method, endpoint and status (none: no response)", counters);
+        family(text, "petstore_http_request_duration_seconds", "histogram",
+                "Time from sending a request to its complete response", histograms);
+        family(text, "petstore_http_request_duration_seconds_max", "gauge",
+                "Slowest request so far", maxima);
+        family(text, "petstore_http_requests_in_flight", "gauge",
+                "Requests sent and not answered yet", inFlight);
+        for (Map.Entry<String, Gauge> gauge : gauges.entrySet()) {
+            StringBuilder value = new StringBuilder(gauge.getKey()).append(' ')
+                    .append(format(gauge.getValue().value.getAsDouble())).append('\n');
+            family(text, gauge.getKey(), "gauge", gauge.getValue().help, value);
+        }
+        return text.toString();
+    }
+
+    private static void family(StringBuilder text, String name, String type, String help, CharSequence samples) {
+        if (samples.length() == 0) {
+            return;
+        }
+        text.append("# HELP ").append(name).append(' ').append(help).append('\n')
+                .append("# TYPE ").append(name).append(' ').append(type).append('\n')
+                .append(samples);
+    }
+
+    static String escape(String labelValue) {
+        return labelValue.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    static String seconds(long nanos) {
+        return format(nanos / 1_000_000_000.0);
+    }
+
+    private static String format(double value) {
+        return Double.toString(value);
+    }
+
+    private static final class Gauge {
+        private final String help;
+        private final DoubleSupplier value;
+
+        Gauge(String help, DoubleSupplier value) {
+            this.help = help;
+            this.value = value;
+        }
+    }
+}
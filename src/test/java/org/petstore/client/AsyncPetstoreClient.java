@@ -0,0 +1,249 @@
+package org.petstore.client;
+
+import org.petstore.jfr.HttpExchangeEvent;
+import org.petstore.metrics.EndpointMetrics;
+import org.petstore.metrics.MetricsRegistry;
+import org.petstore.utils.ApiConfig;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.ToLongFunction;
+
+/**
+ * Non-blocking client for steps that send independent requests, built on {@code java.net.http}.
+ * <p>
+ * Requests return a {@link CompletableFuture} at once, so a step can fire several of them and
+ * {@link #join} them before its assertions instead of waiting for each in turn. At most
+ * {@code petstore.http.async.maxInFlight} requests (default 32) are on the wire at a time;
+ * further requests queue inside the client without blocking the caller and start as earlier
+ * ones complete. Every request is recorded into the {@link MetricsRegistry} and as a JFR
+ * event, like the {@link PetstoreClient} requests. {@link #getStream} hands a body over as it
+ * arrives, for responses too large to buffer.
+ * <p>
+ * Tuning is done through system properties:
+ * <ul>
+ *     <li>{@code petstore.http.version} - {@code HTTP_1_1} (default) or {@code HTTP_2}; HTTP/2 multiplexes
+ *     the requests over one connection where the server supports it</li>
+ *     <li>{@code petstore.http.async.maxInFlight} - requests on the wire at a time (default 32)</li>
+ *     <li>{@code petstore.http.connectTimeoutMs}, {@code petstore.http.readTimeoutMs} - as for
+ *     {@link PetstoreClient}</li>
+ * </ul>
+ */
+public class AsyncPetstoreClient {
+
+    private static final class Shared {
+        private static final AsyncPetstoreClient INSTANCE = new AsyncPetstoreClient(ApiConfig.baseUri(),
+                HttpClient.Version.valueOf(System.getProperty("petstore.http.version", "HTTP_1_1")
+                        .toUpperCase(Locale.ROOT)),
+                Integer.getInteger("petstore.http.async.maxInFlight", 32));
+    }
+
+    private final String baseUri;
+    private final HttpClient httpClient;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param baseUri     Base URI of the API
+     * @param version     HTTP version to negotiate
+     * @param maxInFlight Requests on the wire at a time
+     */
+    public AsyncPetstoreClient(String baseUri, HttpClient.Version version, int maxInFlight) {
+        this.baseUri = baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri;
+        this.httpClient = HttpClient.newBuilder()
+                .version(version)
+                .connectTimeout(Duration.ofMillis(Integer.getInteger("petstore.http.connectTimeoutMs", 5_000)))
+                .build();
+        this.timeout = Duration.ofMillis(Integer.getInteger("petstore.http.readTimeoutMs", 30_000));
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.permits = new Semaphore(this.maxInFlight);
+    }
+
+    /**
+     * @return Client shared by every step, configured from system properties
+     */
+    public static AsyncPetstoreClient shared() {
+        return Shared.INSTANCE;
+    }
+
+    /**
+     * @param path    Path below the base URI, e.g. /store/inventory
+     * @param headers Header names and values, alternating
+     * @return Response with its body, once received
+     */
+    public CompletableFuture<HttpResponse<byte[]>> get(String path, String... headers) {
+        return send("GET", path, null, headers);
+    }
+
+    /**
+     * @param body JSON body, e.g. from {@link org.petstore.utils.BodyTemplates}
+     */
+    public CompletableFuture<HttpResponse<byte[]>> post(String path, byte[] body, String... headers) {
+        return send("POST", path, body, headers);
+    }
+
+    /**
+     * @param body JSON body, e.g. from {@link org.petstore.utils.BodyTemplates}
+     */
+    public CompletableFuture<HttpResponse<byte[]>> put(String path, byte[] body, String... headers) {
+        return send("PUT", path, body, headers);
+    }
+
+    public CompletableFuture<HttpResponse<byte[]>> delete(String path, String... headers) {
+        return send("DELETE", path, null, headers);
+    }
+
+    /**
+     * Sends a request as soon as fewer than the maximum are in flight.
+     *
+     * @param method  HTTP method
+     * @param path    Path below the base URI
+     * @param body    JSON body, or null for none
+     * @param headers Header names and values, alternating
+     * @return Response with its body, once received; completes exceptionally when no response came
+     */
+    public CompletableFuture<HttpResponse<byte[]>> send(String method, String path, byte[] body, String... headers) {
+        return enqueue(request(method, path, body, headers), body == null ? 0 : body.length,
+                HttpResponse.BodyHandlers.ofByteArray(), bytes -> bytes.length);
+    }
+
+    /**
+     * Sends a GET whose body is neither buffered nor logged, but read by the caller as it arrives.
+     * The request is timed, and leaves the requests in flight, once its headers are received.
+     *
+     * @param path    Path below the base URI, with its query string
+     * @param headers Header names and values, alternating
+     * @return Response whose body stream the caller reads and closes
+     */
+    public CompletableFuture<HttpResponse<InputStream>> getStream(String path, String... headers) {
+        return enqueue(request("GET", path, null, headers), 0, HttpResponse.BodyHandlers.ofInputStream(),
+                stream -> 0);
+    }
+
+    private HttpRequest request(String method, String path, byte[] body, String... headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUri + path))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        for (int i = 0; i + 1 < headers.length; i += 2) {
+            builder.header(headers[i], headers[i + 1]);
+        }
+        return builder.build();
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> enqueue(HttpRequest request, long bytesSent,
+                                                           HttpResponse.BodyHandler<T> handler,
+                                                           ToLongFunction<T> bytesReceived) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        waiting.add(() -> start(request, bytesSent, handler, bytesReceived, result));
+        drain();
+        return result;
+    }
+
+    /**
+     * @return Requests on the wire right now
+     */
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    /**
+     * @return Requests waiting for one in flight to complete
+     */
+    public int queued() {
+        return waiting.size();
+    }
+
+    /**
+     * Waits for a request and rethrows what made it fail, unwrapped.
+     *
+     * @param future Request future
+     * @return Its response
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    /**
+     * Starts queued requests while permits are left. A request queued while every permit is
+     * taken is started by the drain that follows the next completion.
+     */
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+                continue;
+            }
+            next.run();
+        }
+    }
+
+    private <T> void start(HttpRequest request, long bytesSent, HttpResponse.BodyHandler<T> handler,
+                           ToLongFunction<T> bytesReceived, CompletableFuture<HttpResponse<T>> result) {
+        String path = request.uri().getRawPath();
+        EndpointMetrics metrics = MetricsRegistry.global().endpoint(request.method(), path);
+        HttpExchangeEvent event = new HttpExchangeEvent();
+        event.begin();
+        long start = metrics.start();
+        CompletableFuture<HttpResponse<T>> sent;
+        try {
+            sent = httpClient.sendAsync(request, handler);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((response, failure) -> {
+            int status = response == null ? EndpointMetrics.NO_RESPONSE : response.statusCode();
+            metrics.stop(start, status);
+            event.end();
+            if (event.shouldCommit()) {
+                event.source = "async";
+                event.method = request.method();
+                event.path = path;
+                event.endpoint = metrics.getEndpoint();
+                event.status = status;
+                event.bytesSent = bytesSent;
+                event.bytesReceived = response == null ? 0 : bytesReceived.applyAsLong(response.body());
+                event.commit();
+            }
+            // Even a failed write may have reached the server
+            PetstoreClient.cache().written(request.method(), request.uri().toString());
+            permits.release();
+            drain();
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(response);
+            }
+        });
+    }
+}
@@ -0,0 +1,95 @@
+package org.petstore.client;
+
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-run connection statistics of the shared {@link PetstoreClient}.
+ */
+public class ClientStats {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder reusedConnections = new LongAdder();
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder connectNanos = new LongAdder();
+    private final AtomicLong maxConnectNanos = new AtomicLong();
+    // The pool is the HttpClient 4 legacy connection manager, the API RestAssured requires
+    @SuppressWarnings("deprecation")
+    private volatile PoolingClientConnectionManager pool;
+
+    @SuppressWarnings("deprecation")
+    void bindPool(PoolingClientConnectionManager pool) {
+        this.pool = pool;
+    }
+
+    void recordRequest(boolean reusedConnection) {
+        requests.increment();
+        if (reusedConnection) {
+            reusedConnections.increment();
+        }
+    }
+
+    void recordConnect(long nanos) {
+        connectionsOpened.increment();
+        connectNanos.add(nanos);
+        maxConnectNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getReusedConnections() {
+        return reusedConnections.sum();
+    }
+
+    public long getConnectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * @return Share of requests that were sent over an already open connection (0..1)
+     */
+    public double getReuseRatio() {
+        long total = getRequests();
+        return total == 0 ? 0 : (double) getReusedConnections() / total;
+    }
+
+    /**
+     * @return Total time spent opening connections (connect + TLS handshake), in milliseconds
+     */
+    public double getTotalConnectMillis() {
+        return connectNanos.sum() / 1_000_000.0;
+    }
+
+    public double getAverageConnectMillis() {
+        long opened = getConnectionsOpened();
+        return opened == 0 ? 0 : getTotalConnectMillis() / opened;
+    }
+
+    public double getMaxConnectMillis() {
+        return maxConnectNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * @return One-line summary suitable for logs and reports
+     */
+    @SuppressWarnings("deprecation")
+    public String summary() {
+        StringBuilder summary = new StringBuilder()
+                .append(String.format("requests=%d, reused=%d (%.1f%%), connectionsOpened=%d, "
+                                + "connectTotal=%.1fms, connectAvg=%.2fms, connectMax=%.2fms",
+                        getRequests(), getReusedConnections(), getReuseRatio() * 100, getConnectionsOpened(),
+                        getTotalConnectMillis(), getAverageConnectMillis(), getMaxConnectMillis()));
+        PoolingClientConnectionManager current = pool;
+        if (current != null) {
+            PoolStats poolStats = current.getTotalStats();
+            summary.append(String.format(", pool[leased=%d, available=%d, max=%d]",
+                    poolStats.getLeased(), poolStats.getAvailable(), poolStats.getMax()));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package org.petstore.client;
+
+/**
+ * Phase timestamps of the exchange running on the current thread, filled in by the
+ * interceptors of the {@link PetstoreClient} transport and read by {@link FlightRecorderFilter}.
+ * RestAssured executes a request on the calling thread, so a thread-local is enough.
+ */
+final class ExchangeTimings {
+
+    private static final ThreadLocal<ExchangeTimings> current = ThreadLocal.withInitial(ExchangeTimings::new);
+
+    long connectNanos;
+    long sentNanos;
+    long headersNanos;
+    long bodyNanos;
+    long bytesSent;
+    long bytesReceived;
+
+    static ExchangeTimings current() {
+        return current.get();
+    }
+
+    void reset() {
+        connectNanos = 0;
+        sentNanos = 0;
+        headersNanos = 0;
+        bodyNanos = 0;
+        bytesSent = 0;
+        bytesReceived = 0;
+    }
+}
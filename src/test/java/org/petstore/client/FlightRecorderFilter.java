@@ -0,0 +1,55 @@
+package org.petstore.client;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.petstore.jfr.HttpExchangeEvent;
+import org.petstore.metrics.Endpoints;
+
+/**
+ * Emits an {@link HttpExchangeEvent} for every request sent through the {@link PetstoreClient}
+ * specifications while a flight recording is running. The event spans the whole RestAssured
+ * call; connect, waiting and download come from the transport's interceptors.
+ */
+class FlightRecorderFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        HttpExchangeEvent event = new HttpExchangeEvent();
+        if (!event.isEnabled()) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+        ExchangeTimings timings = ExchangeTimings.current();
+        timings.reset();
+        event.begin();
+        int status = 0;
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            status = response.getStatusCode();
+            return response;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                String path = MetricsFilter.path(requestSpec.getURI());
+                event.source = "suite";
+                event.method = requestSpec.getMethod();
+                event.path = path;
+                event.endpoint = Endpoints.template(path);
+                event.status = status;
+                event.bytesSent = timings.bytesSent;
+                event.bytesReceived = timings.bytesReceived;
+                event.connect = timings.connectNanos;
+                if (timings.sentNanos != 0 && timings.headersNanos != 0) {
+                    event.waiting = timings.headersNanos - timings.sentNanos;
+                }
+                if (timings.headersNanos != 0 && timings.bodyNanos != 0) {
+                    event.download = timings.bodyNanos - timings.headersNanos;
+                }
+                event.commit();
+            }
+        }
+    }
+}
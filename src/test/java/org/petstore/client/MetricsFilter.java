@@ -0,0 +1,41 @@
+package org.petstore.client;
+
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.petstore.metrics.EndpointMetrics;
+import org.petstore.metrics.MetricsRegistry;
+
+/**
+ * Records every request sent through the {@link PetstoreClient} specifications into the
+ * global {@link MetricsRegistry}.
+ */
+class MetricsFilter implements Filter {
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        EndpointMetrics metrics = MetricsRegistry.global().endpoint(requestSpec.getMethod(), path(requestSpec.getURI()));
+        long start = metrics.start();
+        int status = EndpointMetrics.NO_RESPONSE;
+        try {
+            Response response = ctx.next(requestSpec, responseSpec);
+            status = response.getStatusCode();
+            return response;
+        } finally {
+            metrics.stop(start, status);
+        }
+    }
+
+    /**
+     * Strips scheme and host without parsing, as the URI may hold characters
+     * {@link java.net.URI} rejects.
+     */
+    static String path(String uri) {
+        int scheme = uri.indexOf("://");
+        int path = uri.indexOf('/', scheme < 0 ? 0 : scheme + 3);
+        return path < 0 ? "/" : uri.substring(path);
+    }
+}
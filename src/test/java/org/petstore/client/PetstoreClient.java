@@ -0,0 +1,208 @@
+package org.petstore.client;
+
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.http.ContentType;
+import io.restassured.specification.RequestSpecification;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.ClientConnectionOperator;
+import org.apache.http.conn.OperatedClientConnection;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.BufferedHttpEntity;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.DefaultClientConnectionOperator;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.impl.conn.SchemeRegistryFactory;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.ExecutionContext;
+import org.apache.http.protocol.HttpContext;
+import org.petstore.metrics.MetricsRegistry;
+import org.petstore.utils.ApiConfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Central, thread-safe HTTP client layer shared by every step definition.
+ * <p>
+ * A single pooled Apache HttpClient instance (the transport RestAssured uses) is reused
+ * for the whole run, so TCP/TLS connections are kept alive between scenarios instead of
+ * being re-established per request. The request specifications are built once and merged
+ * into each request with {@code given().spec(...)}, and carry filters recording every call
+ * into the {@link MetricsRegistry} and, while a flight recording runs, as a JFR event. With
+ * {@code -Dpetstore.cache=true} they also answer repeated GETs from the {@link ResponseCache}.
+ * <p>
+ * Tuning is done through system properties:
+ * <ul>
+ *     <li>{@code petstore.http.pool.maxTotal} - maximum pooled connections (default 200)</li>
+ *     <li>{@code petstore.http.pool.maxPerRoute} - maximum connections per host (default 100)</li>
+ *     <li>{@code petstore.http.keepAliveMs} - keep-alive when the server sends no hint (default 30000)</li>
+ *     <li>{@code petstore.http.connectTimeoutMs} - connect timeout (default 5000)</li>
+ *     <li>{@code petstore.http.readTimeoutMs} - socket read timeout (default 30000)</li>
+ * </ul>
+ */
+public class PetstoreClient {
+
+    private static final ClientStats stats = new ClientStats();
+
+    private static final class Specs {
+        private static final ResponseCache CACHE = createCache();
+
+        private static final RestAssuredConfig CONFIG = RestAssuredConfig.config()
+                .httpClient(HttpClientConfig.httpClientConfig()
+                        .reuseHttpClientInstance()
+                        .httpClientFactory(PetstoreClient::createHttpClient));
+
+        private static final RequestSpecification BASE = new RequestSpecBuilder()
+                .setConfig(CONFIG)
+                .setBaseUri(ApiConfig.baseUri())
+                // First, so cache hits are not counted or timed as requests
+                .addFilter(CACHE)
+                .addFilter(new MetricsFilter())
+                .addFilter(new FlightRecorderFilter())
+                .build();
+
+        private static final RequestSpecification JSON = new RequestSpecBuilder()
+                .addRequestSpecification(BASE)
+                .setContentType(ContentType.JSON)
+                .setAccept(ContentType.JSON)
+                .build();
+    }
+
+    /**
+     * @return Pre-built specification with the pooled client and base URI
+     */
+    public static RequestSpecification base() {
+        return Specs.BASE;
+    }
+
+    /**
+     * @return Pre-built specification for JSON request bodies
+     */
+    public static RequestSpecification json() {
+        return Specs.JSON;
+    }
+
+    /**
+     * @return Response cache shared by the specifications; disabled unless {@code -Dpetstore.cache=true}
+     */
+    public static ResponseCache cache() {
+        return Specs.CACHE;
+    }
+
+    /**
+     * @return Connection statistics collected since the start of the run
+     */
+    public static ClientStats stats() {
+        return stats;
+    }
+
+    private static ResponseCache createCache() {
+        ResponseCache cache = ResponseCache.fromProperties();
+        if (cache.isEnabled()) {
+            MetricsRegistry.global().gauge("petstore_cache_hits", "Responses served from the response cache",
+                    cache::getHits);
+            MetricsRegistry.global().gauge("petstore_cache_misses", "Cacheable requests sent to the server",
+                    cache::getMisses);
+            MetricsRegistry.global().gauge("petstore_cache_entries", "Responses held in the response cache",
+                    cache::size);
+        }
+        return cache;
+    }
+
+    // RestAssured's HttpClientFactory still expects the HttpClient 4 legacy (pre-4.3) client API
+    @SuppressWarnings("deprecation")
+    private static DefaultHttpClient createHttpClient() {
+        int maxTotal = Integer.getInteger("petstore.http.pool.maxTotal", 200);
+        int maxPerRoute = Integer.getInteger("petstore.http.pool.maxPerRoute", 100);
+        long keepAliveMs = Long.getLong("petstore.http.keepAliveMs", 30_000L);
+        int connectTimeoutMs = Integer.getInteger("petstore.http.connectTimeoutMs", 5_000);
+        int readTimeoutMs = Integer.getInteger("petstore.http.readTimeoutMs", 30_000);
+
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(
+                SchemeRegistryFactory.createDefault(), keepAliveMs, TimeUnit.MILLISECONDS) {
+            @Override
+            protected ClientConnectionOperator createConnectionOperator(SchemeRegistry schemeRegistry) {
+                return new TimedConnectionOperator(schemeRegistry);
+            }
+        };
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+
+        HttpParams params = new BasicHttpParams();
+        HttpConnectionParams.setConnectionTimeout(params, connectTimeoutMs);
+        HttpConnectionParams.setSoTimeout(params, readTimeoutMs);
+        HttpConnectionParams.setTcpNoDelay(params, true);
+        HttpConnectionParams.setStaleCheckingEnabled(params, false);
+
+        DefaultHttpClient client = new DefaultHttpClient(connectionManager, params);
+        client.setKeepAliveStrategy(new DefaultConnectionKeepAliveStrategy() {
+            @Override
+            public long getKeepAliveDuration(org.apache.http.HttpResponse response, HttpContext context) {
+                long serverHint = super.getKeepAliveDuration(response, context);
+                return serverHint > 0 ? serverHint : keepAliveMs;
+            }
+        });
+        client.addRequestInterceptor((request, context) -> {
+            ExchangeTimings timings = ExchangeTimings.current();
+            timings.sentNanos = System.nanoTime();
+            if (request instanceof HttpEntityEnclosingRequest
+                    && ((HttpEntityEnclosingRequest) request).getEntity() != null) {
+                timings.bytesSent = ((HttpEntityEnclosingRequest) request).getEntity().getContentLength();
+            }
+        });
+        client.addResponseInterceptor((response, context) -> {
+            ExchangeTimings timings = ExchangeTimings.current();
+            timings.headersNanos = System.nanoTime();
+            // Buffer the body so the connection goes straight back to the pool, even when
+            // a step only checks the status code and never reads the response
+            if (response.getEntity() != null && response.getEntity().isStreaming()) {
+                response.setEntity(new BufferedHttpEntity(response.getEntity()));
+            }
+            timings.bodyNanos = System.nanoTime();
+            timings.bytesReceived = response.getEntity() == null ? 0 : response.getEntity().getContentLength();
+            HttpConnection connection = (HttpConnection) context.getAttribute(ExecutionContext.HTTP_CONNECTION);
+            if (connection != null && connection.getMetrics() != null) {
+                stats.recordRequest(connection.getMetrics().getRequestCount() > 1);
+            }
+        });
+        stats.bindPool(connectionManager);
+        MetricsRegistry.global().gauge("petstore_http_pool_leased", "Pooled connections in use",
+                () -> connectionManager.getTotalStats().getLeased());
+        MetricsRegistry.global().gauge("petstore_http_pool_available", "Idle pooled connections",
+                () -> connectionManager.getTotalStats().getAvailable());
+        return client;
+    }
+
+    /**
+     * Connection operator that measures how long socket connect plus TLS handshake take.
+     */
+    // Operator of the same HttpClient 4 legacy connection manager
+    @SuppressWarnings("deprecation")
+    private static class TimedConnectionOperator extends DefaultClientConnectionOperator {
+
+        TimedConnectionOperator(SchemeRegistry schemeRegistry) {
+            super(schemeRegistry);
+        }
+
+        @Override
+        public void openConnection(OperatedClientConnection conn, HttpHost target, InetAddress local,
+                                   HttpContext context, HttpParams params) throws IOException {
+            long start = System.nanoTime();
+            try {
+                super.openConnection(conn, target, local, context, params);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                stats.recordConnect(nanos);
+                ExchangeTimings.current().connectNanos += nanos;
+            }
+        }
+    }
+}
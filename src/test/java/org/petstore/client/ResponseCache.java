@@ -0,0 +1,307 @@
+package org.petstore.client;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.Filter;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import org.petstore.utils.ApiConfig;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Opt-in cache of successful GET responses sent through the {@link PetstoreClient} specifications,
+ * shared by every scenario of the run.
+ * <p>
+ * Entries are keyed by method, full URI and the headers that select a response ({@code Accept},
+ * {@code api_key}, {@code Authorization}). They expire after a TTL, and the least recently used
+ * one is evicted once the cache is full. A PUT, POST or DELETE, including one sent through
+ * {@link AsyncPetstoreClient}, drops every entry of the same top-level resource ({@code /pet},
+ * {@code /store}, {@code /user}), so a scenario reads its own writes. Pet writes also drop
+ * {@code /store/inventory}, which counts pets by status. A GET that was in flight while its
+ * resource was written is not stored. Login and logout are never cached.
+ * <p>
+ * Steps that check the server's current state wrap their request in {@link #bypass(Supplier)},
+ * which skips the cache for that request.
+ * <p>
+ * Configured through system properties:
+ * <ul>
+ *     <li>{@code petstore.cache} - enable the cache (default false)</li>
+ *     <li>{@code petstore.cache.ttlMs} - time an entry stays fresh (default 5000)</li>
+ *     <li>{@code petstore.cache.maxEntries} - entries kept before the least recently used is evicted
+ *     (default 1000)</li>
+ * </ul>
+ */
+public class ResponseCache implements Filter {
+
+    private static final String[] KEY_HEADERS = {"Accept", "api_key", "Authorization"};
+
+    private static final ThreadLocal<Boolean> bypassed = ThreadLocal.withInitial(() -> false);
+
+    private final String basePath;
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param baseUri    Base URI of the API, whose path is not part of the resource names
+     * @param enabled    Serve and store responses; when false every request passes through
+     * @param ttlMillis  Time an entry stays fresh
+     * @param maxEntries Entries kept before the least recently used is evicted
+     */
+    public ResponseCache(String baseUri, boolean enabled, long ttlMillis, int maxEntries) {
+        String path = MetricsFilter.path(baseUri);
+        this.basePath = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = Math.max(1, maxEntries);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return Cache configured from the {@code petstore.cache} system properties
+     */
+    static ResponseCache fromProperties() {
+        return new ResponseCache(ApiConfig.baseUri(), Boolean.getBoolean("petstore.cache"),
+                Long.getLong("petstore.cache.ttlMs", 5_000L),
+                Integer.getInteger("petstore.cache.maxEntries", 1_000));
+    }
+
+    /**
+     * Sends the requests of {@code request} to the server, never answering them from the cache.
+     * Their responses still refresh it.
+     *
+     * @param request Request to send, e.g. {@code () -> given().spec(...).get(...)}
+     * @return Its response
+     */
+    public static <T> T bypass(Supplier<T> request) {
+        boolean outer = bypassed.get();
+        bypassed.set(true);
+        try {
+            return request.get();
+        } finally {
+            bypassed.set(outer);
+        }
+    }
+
+    @Override
+    public Response filter(FilterableRequestSpecification requestSpec, FilterableResponseSpecification responseSpec,
+                           FilterContext ctx) {
+        if (!enabled) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+        String method = requestSpec.getMethod().toUpperCase(Locale.ROOT);
+        String path = relative(MetricsFilter.path(requestSpec.getURI()));
+        if (!method.equals("GET")) {
+            try {
+                return ctx.next(requestSpec, responseSpec);
+            } finally {
+                written(method, requestSpec.getURI());
+            }
+        }
+        if (path.startsWith("/user/login") || path.startsWith("/user/logout")) {
+            return ctx.next(requestSpec, responseSpec);
+        }
+
+        String key = key(method, path, requestSpec);
+        if (bypassed.get()) {
+            bypasses.increment();
+        } else {
+            Entry cached = lookup(key);
+            if (cached != null) {
+                hits.increment();
+                return cached.toResponse();
+            }
+            misses.increment();
+        }
+
+        String resource = resource(path);
+        long generation = generation(resource).get();
+        Response response = ctx.next(requestSpec, responseSpec);
+        if (response.getStatusCode() == 200) {
+            store(key, resource, generation, new Entry(response, System.nanoTime() + ttlNanos));
+        }
+        return response;
+    }
+
+    /**
+     * Drops the entries a request may have made stale. Clients that do not send through the
+     * {@link PetstoreClient} specifications call this once their exchange completes.
+     *
+     * @param method HTTP method of the request; GET, HEAD and OPTIONS change nothing
+     * @param uri    Full URI of the request
+     */
+    public void written(String method, String uri) {
+        String upper = method.toUpperCase(Locale.ROOT);
+        if (enabled && !upper.equals("GET") && !upper.equals("HEAD") && !upper.equals("OPTIONS")) {
+            invalidate(relative(MetricsFilter.path(uri)));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Share of cacheable lookups answered from the cache (0..1)
+     */
+    public double getHitRatio() {
+        long lookups = getHits() + getMisses();
+        return lookups == 0 ? 0 : (double) getHits() / lookups;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return One-line summary suitable for logs and reports
+     */
+    public String summary() {
+        if (!enabled) {
+            return "disabled";
+        }
+        return String.format("hits=%d, misses=%d (%.1f%% hit ratio), bypassed=%d, invalidations=%d, "
+                        + "evictions=%d, entries=%d",
+                getHits(), getMisses(), getHitRatio() * 100, bypasses.sum(), invalidations.sum(),
+                evictions.sum(), size());
+    }
+
+    private synchronized Entry lookup(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresNanos >= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private void store(String key, String resource, long generation, Entry entry) {
+        synchronized (this) {
+            // A write to the resource since the request went out may have made the response stale
+            if (generation(resource).get() != generation) {
+                return;
+            }
+            entries.put(key, entry);
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void invalidate(String path) {
+        String resource = resource(path);
+        synchronized (this) {
+            generation(resource).incrementAndGet();
+            entries.keySet().removeIf(key -> affected(resource, resource(pathOf(key)), pathOf(key)));
+        }
+        invalidations.increment();
+    }
+
+    private static boolean affected(String written, String cachedResource, String cachedPath) {
+        return written.equals(cachedResource) || (written.equals("/pet") && cachedPath.startsWith("/store/inventory"));
+    }
+
+    private AtomicLong generation(String resource) {
+        return generations.computeIfAbsent(resource, r -> new AtomicLong());
+    }
+
+    /**
+     * @param relative Path below the base path
+     * @return Its first segment, e.g. /store for /store/order/5
+     */
+    private static String resource(String relative) {
+        int end = relative.indexOf('/', 1);
+        int query = relative.indexOf('?');
+        if (end < 0 || (query >= 0 && query < end)) {
+            end = query;
+        }
+        return end < 0 ? relative : relative.substring(0, end);
+    }
+
+    private String relative(String path) {
+        return !basePath.isEmpty() && path.startsWith(basePath) ? path.substring(basePath.length()) : path;
+    }
+
+    private String key(String method, String path, FilterableRequestSpecification requestSpec) {
+        StringBuilder key = new StringBuilder(method).append(' ').append(path);
+        Headers headers = requestSpec.getHeaders();
+        for (String name : KEY_HEADERS) {
+            Header header = headers.get(name);
+            if (header != null) {
+                key.append('\n').append(name).append(':').append(header.getValue());
+            }
+        }
+        return key.toString();
+    }
+
+    private static String pathOf(String key) {
+        int newline = key.indexOf('\n');
+        return key.substring(key.indexOf(' ') + 1, newline < 0 ? key.length() : newline);
+    }
+
+    /**
+     * A response kept as bytes, rebuilt into a new {@link Response} for every hit so scenarios
+     * never share one.
+     */
+    private static final class Entry {
+        private final int statusCode;
+        private final String statusLine;
+        private final Headers headers;
+        private final String contentType;
+        private final byte[] body;
+        private final long expiresNanos;
+
+        private Entry(Response response, long expiresNanos) {
+            this.statusCode = response.getStatusCode();
+            this.statusLine = response.getStatusLine();
+            this.headers = response.getHeaders();
+            this.contentType = response.getContentType();
+            this.body = response.asByteArray();
+            this.expiresNanos = expiresNanos;
+        }
+
+        private Response toResponse() {
+            return new ResponseBuilder()
+                    .setStatusCode(statusCode)
+                    .setStatusLine(statusLine)
+                    .setHeaders(headers)
+                    .setContentType(contentType)
+                    .setBody(body)
+                    .build();
+        }
+    }
+}
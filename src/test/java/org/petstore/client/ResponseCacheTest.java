@@ -0,0 +1,195 @@
+package org.petstore.client;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.filter.FilterContext;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import io.restassured.specification.FilterableRequestSpecification;
+import io.restassured.specification.FilterableResponseSpecification;
+import io.restassured.specification.RequestSender;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+    private static final String BASE_URI = "http://127.0.0.1:18080/v2";
+
+    private final StubContext server = new StubContext();
+
+    @Test
+    void servesRepeatedGetsFromTheCache() {
+        ResponseCache cache = new ResponseCache(BASE_URI, true, 60_000, 10);
+
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 1");
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 1");
+
+        assertThat(server.calls).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotStoreAResponseFetchedBeforeAWrite() {
+        ResponseCache cache = new ResponseCache(BASE_URI, true, 60_000, 10);
+        server.whileSending = () -> cache.written("PUT", BASE_URI + "/pet");
+
+        get(cache, "/pet/1");
+        server.whileSending = null;
+
+        assertThat(cache.size()).isZero();
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 2");
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 2");
+    }
+
+    @Test
+    void petWritesDropTheInventoryButNotOtherResources() {
+        ResponseCache cache = new ResponseCache(BASE_URI, true, 60_000, 10);
+        get(cache, "/store/inventory");
+        get(cache, "/user/ann");
+
+        cache.filter(request("POST", "/pet"), null, server);
+
+        assertThat(get(cache, "/store/inventory").asString()).isEqualTo("response 4");
+        assertThat(get(cache, "/user/ann").asString()).isEqualTo("response 2");
+    }
+
+    @Test
+    void writesDropEveryEntryOfTheirResource() {
+        ResponseCache cache = new ResponseCache(BASE_URI, true, 60_000, 10);
+        get(cache, "/store/order/5");
+        get(cache, "/store/inventory");
+
+        cache.written("DELETE", BASE_URI + "/store/order/5");
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void expiresEntriesAfterTheTtl() throws InterruptedException {
+        ResponseCache cache = new ResponseCache(BASE_URI, true, 200, 10);
+        get(cache, "/pet/1");
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 1");
+
+        Thread.sleep(300);
+
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 2");
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        ResponseCache cache = new ResponseCache(BASE_URI, true, 60_000, 2);
+        get(cache, "/pet/1");
+        get(cache, "/pet/2");
+        get(cache, "/pet/1");
+
+        get(cache, "/pet/3");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 1");
+        assertThat(get(cache, "/pet/2").asString()).isEqualTo("response 4");
+    }
+
+    @Test
+    void bypassSendsTheRequestAndRefreshesTheEntry() {
+        ResponseCache cache = new ResponseCache(BASE_URI, true, 60_000, 10);
+        get(cache, "/pet/1");
+
+        Response bypassed = ResponseCache.bypass(() -> get(cache, "/pet/1"));
+
+        assertThat(bypassed.asString()).isEqualTo("response 2");
+        assertThat(get(cache, "/pet/1").asString()).isEqualTo("response 2");
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.summary()).contains("bypassed=1");
+    }
+
+    @Test
+    void passesEverythingThroughWhenDisabled() {
+        ResponseCache cache = new ResponseCache(BASE_URI, false, 60_000, 10);
+        get(cache, "/pet/1");
+        get(cache, "/pet/1");
+
+        assertThat(server.calls).isEqualTo(2);
+        assertThat(cache.size()).isZero();
+        assertThat(cache.summary()).isEqualTo("disabled");
+    }
+
+    private Response get(ResponseCache cache, String path) {
+        return cache.filter(request("GET", path), null, server);
+    }
+
+    /**
+     * @return A request specification answering only what the cache asks of it
+     */
+    private static FilterableRequestSpecification request(String method, String path) {
+        return (FilterableRequestSpecification) Proxy.newProxyInstance(ResponseCacheTest.class.getClassLoader(),
+                new Class<?>[]{FilterableRequestSpecification.class}, (proxy, called, args) -> {
+                    switch (called.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getURI":
+                            return BASE_URI + path;
+                        case "getHeaders":
+                            return new Headers();
+                        default:
+                            throw new UnsupportedOperationException(called.getName());
+                    }
+                });
+    }
+
+    /**
+     * Stands in for the server: answers every request with 200 and a body numbering the call.
+     */
+    private static final class StubContext implements FilterContext {
+
+        private final Map<String, Object> values = new HashMap<>();
+        private int calls;
+        /** Runs while a request is in flight, or null */
+        private Runnable whileSending;
+
+        @Override
+        public Response next(FilterableRequestSpecification request, FilterableResponseSpecification response) {
+            calls++;
+            if (whileSending != null) {
+                whileSending.run();
+            }
+            return new ResponseBuilder()
+                    .setStatusCode(200)
+                    .setStatusLine("HTTP/1.1 200 OK")
+                    .setContentType("text/plain")
+                    .setBody("response " + calls)
+                    .build();
+        }
+
+        @Override
+        public Response send(RequestSender requestSender) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void setValue(String name, Object value) {
+            values.put(name, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T getValue(String name) {
+            return (T) values.get(name);
+        }
+
+        @Override
+        public boolean hasValue(String name) {
+            return values.containsKey(name);
+        }
+
+        @Override
+        public boolean hasValue(String name, Object value) {
+            return value != null && value.equals(values.get(name));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.petstore.contract;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.petstore.pojo.response.PetResponse;
+import org.petstore.utils.ResponseContracts;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonContractTest {
+
+    @Test
+    void acceptsABodyHonouringTheContract() {
+        assertThat(validate(ResponseContracts.PET, "{\"id\":1,\"name\":\"Rex\","
+                + "\"category\":{\"id\":2,\"name\":\"Dogs\"},\"photoUrls\":[\"a.jpg\"],"
+                + "\"tags\":[{\"id\":3,\"name\":\"young\"}],\"status\":\"available\","
+                + "\"unknown\":{\"nested\":[1,2]}}")).isEmpty();
+        assertThat(validate(ResponseContracts.PET, "{\"id\":1,\"name\":\"Rex\",\"category\":null,\"tags\":null}"))
+                .as("Optional properties may be null").isEmpty();
+    }
+
+    @Test
+    void reportsMissingAndNullRequiredProperties() {
+        assertThat(validate(ResponseContracts.PET, "{\"status\":\"sold\"}"))
+                .containsExactly("/id - Required, missing", "/name - Required, missing");
+        assertThat(validate(ResponseContracts.PET, "{\"id\":null,\"name\":\"Rex\"}"))
+                .containsExactly("/id - Required, found null");
+    }
+
+    @Test
+    void reportsValuesOfTheWrongKindWithTheirPath() {
+        List<String> violations = validate(ResponseContracts.PET, "{\"id\":1.5,\"name\":7,\"photoUrls\":\"a.jpg\","
+                + "\"tags\":[{\"id\":1},{\"id\":\"two\"}],\"category\":[]}");
+
+        assertThat(violations).containsExactly(
+                "/id - Expected an integer, found '1.5'",
+                "/name - Expected a string, found '7'",
+                "/photoUrls - Expected an array, found 'a.jpg'",
+                "/tags/1/id - Expected an integer, found 'two'",
+                "/category - Expected an object, found an array");
+    }
+
+    @Test
+    void validatesMapValues() {
+        assertThat(validate(ResponseContracts.INVENTORY, "{\"available\":3,\"sold\":0}")).isEmpty();
+        assertThat(validate(ResponseContracts.INVENTORY, "{\"available\":3,\"sold\":\"none\"}"))
+                .containsExactly("/sold - Expected an integer, found 'none'");
+        assertThat(validate(ResponseContracts.INVENTORY, "[]"))
+                .containsExactly("/ - Expected an object, found an array");
+    }
+
+    @Test
+    void reportsEmptyAndInvalidBodies() {
+        assertThat(validate(ResponseContracts.PET, "")).containsExactly("/ - Expected an object, found an empty body");
+        assertThat(validate(ResponseContracts.PET, "{\"id\":1,")).singleElement().asString()
+                .startsWith("/ - Invalid JSON: ");
+    }
+
+    @Test
+    void sharesCompiledContracts() {
+        assertThat(JsonContract.of(PetResponse.class)).isSameAs(ResponseContracts.PET);
+    }
+
+    @Test
+    void bundlesTheSameContractsTheLoadEngineChecks() {
+        String[] pets = {"{\"id\":1,\"name\":\"Rex\",\"tags\":[{\"id\":3}],\"photoUrls\":[]}",
+                "{\"status\":\"sold\"}", "{\"id\":null,\"name\":7,\"category\":[]}", "[]", ""};
+        String[] users = {"{\"username\":\"ann\",\"userStatus\":1,\"phone\":\"555\"}", "{\"username\":\"ann\"}",
+                "{\"userStatus\":\"1\",\"email\":5}"};
+
+        for (String pet : pets) {
+            assertThat(validate(JsonContract.forEndpoint("GET", "/pet/{petId}"), pet)).as(pet)
+                    .isEqualTo(validate(ResponseContracts.PET, pet));
+            assertThat(validate(JsonContract.forEndpoint("POST", "/store/order"), pet)).as(pet)
+                    .isEqualTo(validate(ResponseContracts.ORDER, pet));
+        }
+        for (String user : users) {
+            assertThat(validate(JsonContract.forEndpoint("GET", "/user/{username}"), user)).as(user)
+                    .isEqualTo(validate(ResponseContracts.USER, user));
+        }
+        assertThat(validate(JsonContract.forEndpoint("GET", "/store/inventory"), "{\"sold\":\"none\"}"))
+                .isEqualTo(validate(ResponseContracts.INVENTORY, "{\"sold\":\"none\"}"));
+        String created = "{\"code\":200,\"type\":\"unknown\",\"message\":\"1\"}";
+        assertThat(validate(JsonContract.forEndpoint("POST", "/user"), created))
+                .isEqualTo(validate(ResponseContracts.API_RESPONSE, created))
+                .isEmpty();
+    }
+
+    @Test
+    void checksEveryElementOfAPetArray() {
+        JsonContract found = JsonContract.forEndpoint("GET", "/pet/findByStatus");
+
+        assertThat(validate(found, "[{\"id\":1,\"name\":\"Rex\"},{\"id\":2,\"name\":\"Milo\"}]")).isEmpty();
+        assertThat(validate(found, "[{\"id\":1,\"name\":\"Rex\"},{\"name\":\"Milo\"}]"))
+                .containsExactly("/1/id - Required, missing");
+        assertThat(JsonContract.forEndpoint("GET", "/pet/{id}")).isNull();
+    }
+
+    @Test
+    void rejectsSchemasItCannotCompile() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+
+        assertThatThrownBy(() -> JsonContract.compileResponses(mapper.readTree(
+                "{\"responses\":{\"GET /a\":{\"$ref\":\"#/definitions/Missing\"}}}")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unknown schema reference");
+        assertThatThrownBy(() -> JsonContract.compileResponses(mapper.readTree("{\"definitions\":{\"Node\":"
+                + "{\"type\":\"object\",\"properties\":{\"next\":{\"$ref\":\"#/definitions/Node\"}}}},"
+                + "\"responses\":{\"GET /a\":{\"$ref\":\"#/definitions/Node\"}}}")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Recursive schema reference");
+        assertThatThrownBy(() -> JsonContract.compileResponses(mapper.readTree(
+                "{\"responses\":{\"GET /a\":{\"type\":\"date\"}}}")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Unsupported schema");
+    }
+
+    private static List<String> validate(JsonContract contract, String body) {
+        return contract.validate(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
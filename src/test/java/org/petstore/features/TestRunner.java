@@ -1,16 +1,28 @@
 package org.petstore.features;
 
-import io.cucumber.junit.CucumberOptions;
-import net.serenitybdd.cucumber.CucumberWithSerenity;
-import org.junit.runner.RunWith;
+import org.junit.platform.suite.api.ConfigurationParameter;
+import org.junit.platform.suite.api.IncludeEngines;
+import org.junit.platform.suite.api.SelectClasspathResource;
+import org.junit.platform.suite.api.Suite;
 
-@RunWith(CucumberWithSerenity.class)
-@CucumberOptions(
-        glue = "org.petstore.stepDefinition",
-        features = "src/test/resources/features/store_error_handling.feature",
-        plugin = {"pretty", "junit:target/cucumber-reports/Cucumber.xml", "json:target/cucumber/Cucumber.json"},
-        monochrome = true,
-        snippets = CucumberOptions.SnippetType.CAMELCASE)
+import static io.cucumber.junit.platform.engine.Constants.GLUE_PROPERTY_NAME;
+import static io.cucumber.junit.platform.engine.Constants.PLUGIN_PROPERTY_NAME;
+import static io.cucumber.junit.platform.engine.Constants.SNIPPET_TYPE_PROPERTY_NAME;
 
+/**
+ * Runs every feature on the JUnit Platform Cucumber engine, which executes scenarios and
+ * Scenario Outline rows in parallel (see junit-platform.properties and the
+ * {@code cucumber.parallelism} Maven property). Scenarios, steps and API calls are emitted as
+ * Flight Recorder events; {@code -Dpetstore.jfr=true} records them to target/petstore.jfr.
+ */
+@Suite
+@IncludeEngines("cucumber")
+@SelectClasspathResource("features")
+@ConfigurationParameter(key = GLUE_PROPERTY_NAME, value = "org.petstore.stepDefinition")
+@ConfigurationParameter(key = PLUGIN_PROPERTY_NAME,
+        value = "io.cucumber.core.plugin.SerenityReporterParallel,pretty,"
+                + "junit:target/cucumber-reports/Cucumber.xml,json:target/cucumber/Cucumber.json,"
+                + "org.petstore.jfr.CucumberFlightRecorder")
+@ConfigurationParameter(key = SNIPPET_TYPE_PROPERTY_NAME, value = "camelcase")
 public class TestRunner {
 }
@@ -0,0 +1,31 @@
+package org.petstore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of a check {@code AssertionReporter} reports on its own, including the
+ * time Serenity takes to record it. Checks folded into the per-step passed checks summary are
+ * covered by a single event per flush.
+ */
+@Name("org.petstore.Check")
+@Label("Reported Check")
+@Category({"Petstore", "Cucumber"})
+@Description("An assertion and its Serenity report record")
+@StackTrace(false)
+public class CheckEvent extends Event {
+
+    @Label("Check")
+    public String check;
+
+    @Label("Checks")
+    @Description("Number of checks the record covers")
+    public int checks;
+
+    @Label("Passed")
+    public boolean passed;
+}
@@ -0,0 +1,136 @@
+package org.petstore.jfr;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.HookTestStep;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCase;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestRunStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import io.cucumber.plugin.event.TestStepStarted;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cucumber plugin turning scenarios and steps into Flight Recorder events, so a recording
+ * shows the suite's own timeline next to GC, allocation and I/O data in JMC.
+ * <p>
+ * The events are emitted whenever a recording is running, e.g. one started with
+ * {@code -XX:StartFlightRecording}. With {@code -Dpetstore.jfr=true} the plugin records the run
+ * itself:
+ * <ul>
+ *     <li>{@code petstore.jfr.file} - recording to write (default target/petstore.jfr)</li>
+ *     <li>{@code petstore.jfr.settings} - JFR settings, {@code default} or {@code profile} (default profile)</li>
+ * </ul>
+ */
+public class CucumberFlightRecorder implements ConcurrentEventListener {
+
+    private final Map<TestCase, ScenarioEvent> scenarios = new ConcurrentHashMap<>();
+    private final Map<TestCase, StepEvent> steps = new ConcurrentHashMap<>();
+    private Recording recording;
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestRunStarted.class, event -> startRecording());
+        publisher.registerHandlerFor(TestRunFinished.class, event -> stopRecording());
+        publisher.registerHandlerFor(TestCaseStarted.class, this::scenarioStarted);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::scenarioFinished);
+        publisher.registerHandlerFor(TestStepStarted.class, this::stepStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::stepFinished);
+    }
+
+    private void scenarioStarted(TestCaseStarted started) {
+        ScenarioEvent event = new ScenarioEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            scenarios.put(started.getTestCase(), event);
+        }
+    }
+
+    private void scenarioFinished(TestCaseFinished finished) {
+        TestCase testCase = finished.getTestCase();
+        ScenarioEvent event = scenarios.remove(testCase);
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.scenario = testCase.getName();
+            event.feature = testCase.getUri().toString();
+            event.line = testCase.getLocation().getLine();
+            event.tags = String.join(" ", testCase.getTags());
+            event.outcome = finished.getResult().getStatus().name();
+            event.commit();
+        }
+    }
+
+    private void stepStarted(TestStepStarted started) {
+        StepEvent event = new StepEvent();
+        if (event.isEnabled()) {
+            event.begin();
+            steps.put(started.getTestCase(), event);
+        }
+    }
+
+    private void stepFinished(TestStepFinished finished) {
+        StepEvent event = steps.remove(finished.getTestCase());
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.scenario = finished.getTestCase().getName();
+            if (finished.getTestStep() instanceof PickleStepTestStep) {
+                PickleStepTestStep step = (PickleStepTestStep) finished.getTestStep();
+                event.step = step.getStep().getKeyword() + step.getStep().getText();
+            } else {
+                event.step = ((HookTestStep) finished.getTestStep()).getHookType() + " "
+                        + finished.getTestStep().getCodeLocation();
+                event.hook = true;
+            }
+            event.outcome = finished.getResult().getStatus().name();
+            event.commit();
+        }
+    }
+
+    private synchronized void startRecording() {
+        if (!Boolean.getBoolean("petstore.jfr") || recording != null) {
+            return;
+        }
+        Path file = Paths.get(System.getProperty("petstore.jfr.file", "target/petstore.jfr"));
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            recording = new Recording(Configuration.getConfiguration(
+                    System.getProperty("petstore.jfr.settings", "profile")));
+            recording.setName("petstore");
+            recording.setToDisk(true);
+            recording.setDestination(file);
+            recording.start();
+            System.out.println("Petstore flight recording: " + file.toAbsolutePath());
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("Failed to start the flight recording", e);
+        }
+    }
+
+    private synchronized void stopRecording() {
+        if (recording != null) {
+            recording.stop(); // writes the destination file
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.petstore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one Cucumber scenario (or Scenario Outline row), committed by
+ * {@link CucumberFlightRecorder}.
+ */
+@Name("org.petstore.Scenario")
+@Label("Cucumber Scenario")
+@Category({"Petstore", "Cucumber"})
+@StackTrace(false)
+public class ScenarioEvent extends Event {
+
+    @Label("Scenario")
+    public String scenario;
+
+    @Label("Feature")
+    public String feature;
+
+    @Label("Line")
+    public int line;
+
+    @Label("Tags")
+    public String tags;
+
+    @Label("Outcome")
+    public String outcome;
+}
@@ -0,0 +1,31 @@
+package org.petstore.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one Cucumber step or hook, committed by {@link CucumberFlightRecorder}.
+ */
+@Name("org.petstore.Step")
+@Label("Cucumber Step")
+@Category({"Petstore", "Cucumber"})
+@StackTrace(false)
+public class StepEvent extends Event {
+
+    @Label("Scenario")
+    public String scenario;
+
+    @Label("Step")
+    @Description("Step text with its keyword, or the hook method")
+    public String step;
+
+    @Label("Hook")
+    public boolean hook;
+
+    @Label("Outcome")
+    public String outcome;
+}
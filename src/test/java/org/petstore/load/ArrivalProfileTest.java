@@ -0,0 +1,86 @@
+package org.petstore.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class ArrivalProfileTest {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    @Test
+    void spacesUniformArrivalsEvenly() {
+        List<Long> offsets = offsets(ArrivalProfile.constant(10, 2, false), 1);
+
+        assertThat(offsets).hasSize(20);
+        for (int k = 0; k < offsets.size(); k++) {
+            assertThat(offsets.get(k) / NANOS_PER_SECOND).isCloseTo(k * 0.1, within(1e-6));
+        }
+    }
+
+    @Test
+    void followsTheCumulativeArrivalsOfARamp() {
+        // 0 -> 10 req/s over 2 s asks for 10 arrivals; A(t) = 2.5 t^2, so arrival k is due at sqrt(k / 2.5)
+        List<Long> offsets = offsets(ArrivalProfile.parse("0-10@2s", false), 1);
+
+        assertThat(offsets).hasSize(10);
+        for (int k = 0; k < offsets.size(); k++) {
+            assertThat(offsets.get(k) / NANOS_PER_SECOND).isCloseTo(Math.sqrt(k / 2.5), within(1e-6));
+        }
+    }
+
+    @Test
+    void chainsStages() {
+        List<Long> offsets = offsets(ArrivalProfile.parse("2@1s,4@1s", false), 1);
+
+        assertThat(offsets).hasSize(6);
+        assertThat(offsets.get(2) / NANOS_PER_SECOND).isCloseTo(1.0, within(1e-6));
+        assertThat(offsets.get(5) / NANOS_PER_SECOND).isCloseTo(1.75, within(1e-6));
+    }
+
+    @Test
+    void repeatsPoissonArrivalsForTheSameSeed() {
+        ArrivalProfile profile = ArrivalProfile.constant(1_000, 10, true);
+
+        List<Long> first = offsets(profile, 7);
+
+        assertThat(offsets(profile, 7)).isEqualTo(first);
+        assertThat(offsets(profile, 8)).isNotEqualTo(first);
+        // 10000 expected arrivals, a standard deviation of 100
+        assertThat(first.size()).isBetween(9_600, 10_400);
+        assertThat(first).isSorted();
+    }
+
+    @Test
+    void roundTripsItsSpec() {
+        ArrivalProfile profile = ArrivalProfile.parse("10@30s, 10-200@60s,0.5@1.5s", true);
+
+        ArrivalProfile parsed = ArrivalProfile.parse(profile.toSpec(), profile.isPoisson());
+
+        assertThat(parsed.toSpec()).isEqualTo(profile.toSpec()).isEqualTo("10.0@30.0s,10.0-200.0@60.0s,0.5@1.5s");
+        assertThat(parsed.getDurationSeconds()).isEqualTo(91.5);
+        assertThat(profile.scaled(0.5).toSpec()).isEqualTo("5.0@30.0s,5.0-100.0@60.0s,0.25@1.5s");
+    }
+
+    @Test
+    void rejectsMalformedStages() {
+        assertThatThrownBy(() -> ArrivalProfile.parse("10", false)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ArrivalProfile.parse("10@0s", false)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ArrivalProfile.parse("-5@10s", false)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Long> offsets(ArrivalProfile profile, long seed) {
+        ArrivalProfile.Schedule schedule = profile.schedule(seed);
+        List<Long> offsets = new ArrayList<>();
+        long offset;
+        while ((offset = schedule.nextOffsetNanos()) >= 0) {
+            offsets.add(offset);
+        }
+        return offsets;
+    }
+}
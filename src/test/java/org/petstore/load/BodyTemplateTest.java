@@ -0,0 +1,123 @@
+package org.petstore.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.petstore.utils.JsonUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BodyTemplateTest {
+
+    private static final byte[] PET = ("{\"id\":7,\"name\":\"Rex\",\"tags\":[{\"id\":1,\"name\":\"t\"}],"
+            + "\"status\":\"available\"}").getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void keepsTheOriginalValuesUntilASlotIsSet() throws IOException {
+        BodyTemplate template = BodyTemplate.builder(PET).number("id").text("status", 16).build();
+
+        JsonNode body = parse(template.newBody());
+
+        assertThat(body).isEqualTo(parse(PET));
+        assertThat(template.newBody()).hasSize(template.length());
+    }
+
+    @Test
+    void patchesNumberAndTextSlotsInPlace() throws IOException {
+        BodyTemplate template = BodyTemplate.builder(PET).number("id").text("status", 16).build();
+        int id = template.slot("id");
+        int status = template.slot("status");
+
+        byte[] body = template.newBody();
+        template.set(body, id, Long.MIN_VALUE);
+        template.set(body, status, "sold");
+        JsonNode patched = parse(body);
+        template.set(body, id, 42);
+        template.set(body, status, "pending");
+        JsonNode repatched = parse(body);
+
+        assertThat(patched.get("id").asLong()).isEqualTo(Long.MIN_VALUE);
+        assertThat(patched.get("status").asText()).isEqualTo("sold");
+        assertThat(repatched.get("id").asLong()).isEqualTo(42);
+        assertThat(repatched.get("status").asText()).isEqualTo("pending");
+        assertThat(repatched.get("name").asText()).isEqualTo("Rex");
+        assertThat(repatched.get("tags").get(0).get("id").asInt())
+                .as("Nested fields of the same name are not slots").isEqualTo(1);
+        assertThat(body).hasSize(template.length());
+    }
+
+    @Test
+    void escapesTextAndEncodesItAsUtf8() throws IOException {
+        BodyTemplate template = BodyTemplate.builder(PET).text("name", 32).build();
+
+        byte[] body = template.newBody();
+        template.set(body, template.slot("name"), "Zo\u00eb \"the\" \\ cat\n");
+
+        assertThat(parse(body).get("name").asText()).isEqualTo("Zo\u00eb \"the\" \\ cat\n");
+    }
+
+    @Test
+    void writesAPrefixFollowedByANumber() throws IOException {
+        BodyTemplate template = BodyTemplate.builder("{\"username\":\"user\"}".getBytes(StandardCharsets.UTF_8))
+                .text("username", 32).build();
+
+        byte[] body = template.newBody();
+        template.set(body, template.slot("username"), "user-", 1234567);
+
+        assertThat(parse(body).get("username").asText()).isEqualTo("user-1234567");
+    }
+
+    @Test
+    void addsSlotsTheJsonLacks() throws IOException {
+        BodyTemplate template = BodyTemplate.builder("{\"name\":\"Rex\"}".getBytes(StandardCharsets.UTF_8))
+                .number("id").text("status", 8).build();
+
+        byte[] body = template.newBody();
+        template.set(body, template.slot("id"), 5);
+        template.set(body, template.slot("status"), "sold");
+        JsonNode patched = parse(body);
+
+        assertThat(patched.get("name").asText()).isEqualTo("Rex");
+        assertThat(patched.get("id").asLong()).isEqualTo(5);
+        assertThat(patched.get("status").asText()).isEqualTo("sold");
+    }
+
+    @Test
+    void rejectsValuesThatDoNotFitTheirSlot() {
+        BodyTemplate template = BodyTemplate.builder(PET).number("id").text("status", 9).build();
+        byte[] body = template.newBody();
+
+        assertThatThrownBy(() -> BodyTemplate.builder(PET).text("status", 4).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.set(body, template.slot("status"), "unavailable"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.set(body, template.slot("status"), 1L))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.set(body, template.slot("id"), "1"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> template.slot("category")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BodyTemplate.builder(PET).number("id").number("id"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void givesPayloadRecordsFreshIdsAndUsernames() throws IOException {
+        PayloadSource source = BodyTemplate.payloadSource(
+                "{\"id\":1,\"username\":\"alice\",\"email\":\"a@example.com\"}".getBytes(StandardCharsets.UTF_8));
+
+        JsonNode first = parse(source.next());
+        JsonNode second = parse(source.next());
+
+        assertThat(second.get("id").asLong()).isEqualTo(first.get("id").asLong() + 1);
+        assertThat(first.get("username").asText()).isEqualTo("alice-" + first.get("id").asLong());
+        assertThat(second.get("username").asText()).isEqualTo("alice-" + second.get("id").asLong());
+        assertThat(second.get("email").asText()).isEqualTo("a@example.com");
+    }
+
+    private static JsonNode parse(byte[] body) throws IOException {
+        return JsonUtils.mapper().readTree(body);
+    }
+}
@@ -0,0 +1,70 @@
+package org.petstore.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.petstore.utils.JsonUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataGeneratorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void derivesEveryRecordFromTheSeedAndItsIndex() {
+        DataGenerator generator = new DataGenerator(42, 1_000);
+
+        for (DataGenerator.Kind kind : DataGenerator.Kind.values()) {
+            assertThat(generator.record(kind, 17)).isEqualTo(new DataGenerator(42, 1_000).record(kind, 17));
+            assertThat(generator.record(kind, 17)).isNotEqualTo(new DataGenerator(43, 1_000).record(kind, 17));
+            assertThat(generator.record(kind, 17)).isNotEqualTo(generator.record(kind, 18));
+            String chunk = generator.encode(kind, 10, 20).toString();
+            assertThat(chunk.split("\n")[7])
+                    .isEqualTo(new String(generator.record(kind, 17), StandardCharsets.US_ASCII));
+        }
+    }
+
+    @Test
+    void writesTheSameBytesWhateverTheNumberOfThreads() throws Exception {
+        DataGenerator generator = new DataGenerator(7, 50_000);
+        Path single = dir.resolve("single.csv");
+        Path parallel = dir.resolve("parallel.csv");
+
+        // More than two chunks of 16384 records
+        generator.write(DataGenerator.Kind.ORDERS, 50_000, single, 1);
+        generator.write(DataGenerator.Kind.ORDERS, 50_000, parallel, 4);
+
+        assertThat(Files.readAllBytes(parallel)).isEqualTo(Files.readAllBytes(single));
+        assertThat(Files.readAllLines(single)).hasSize(50_000);
+    }
+
+    @Test
+    void generatesValidJsonWithUniqueIds() throws Exception {
+        DataGenerator generator = new DataGenerator(42, 100);
+        Path file = dir.resolve("users.csv");
+
+        generator.write(DataGenerator.Kind.USERS, 100, file, 2);
+        List<String> lines = Files.readAllLines(file);
+        JsonNode pet = JsonUtils.mapper().readTree(generator.record(DataGenerator.Kind.PETS, 5));
+        JsonNode order = JsonUtils.mapper().readTree(generator.record(DataGenerator.Kind.ORDERS, 5));
+
+        for (int i = 0; i < lines.size(); i++) {
+            JsonNode user = JsonUtils.mapper().readTree(lines.get(i));
+            assertThat(user.get("id").asLong()).isEqualTo(DataGenerator.Kind.USERS.getIdBase() + i);
+            assertThat(user.get("username").asText()).isEqualTo("user" + i);
+            assertThat(user.get("phone").asText()).hasSize(10);
+        }
+        assertThat(pet.get("id").asLong()).isEqualTo(DataGenerator.Kind.PETS.getIdBase() + 5);
+        assertThat(pet.get("photoUrls").size()).isBetween(1, 3);
+        assertThat(order.get("petId").asLong()).isBetween(DataGenerator.Kind.PETS.getIdBase(),
+                DataGenerator.Kind.PETS.getIdBase() + 99);
+        assertThat(order.get("shipDate").asText()).matches("2025-\\d\\d-\\d\\dT\\d\\d:\\d\\d:\\d\\d\\.000Z");
+    }
+}
@@ -0,0 +1,152 @@
+package org.petstore.load;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Coordinator and two workers on localhost against an in-process HTTP server.
+ */
+class DistributedRunTest {
+
+    private static final int WORKERS = 2;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @AfterEach
+    void stop() {
+        executor.shutdownNow();
+        server.stop(0);
+    }
+
+    @Test
+    void mergesTheSamplesOfAllWorkers() throws Exception {
+        Workload find = new Workload("find-pets", "Find", "GET", "/pet/findByStatus?status=available", null,
+                4, 5, 0);
+        Workload post = new Workload("post-pets", "Post", "POST", "/pet", "pets.csv", 2, 3, 0);
+        Map<String, byte[]> files = Map.of("pets.csv",
+                "{\"id\":1,\"name\":\"a\"}\n{\"id\":2,\"name\":\"b\"}\n".getBytes(StandardCharsets.UTF_8));
+        long payloadDirs = payloadDirs();
+
+        Map<String, LabelStats> results = run(plan(List.of(find, post), files));
+
+        assertThat(results.get("Find").getSamples()).isEqualTo(4 * 5);
+        assertThat(results.get("Find").getErrors()).isZero();
+        assertThat(results.get("Post").getSamples()).isEqualTo(2 * 3);
+        assertThat(results.get("Post").getErrors()).isZero();
+        assertThat(payloadDirs()).as("Worker payload directories left behind").isEqualTo(payloadDirs);
+    }
+
+    @Test
+    void failsWhenAWorkerFails() throws Exception {
+        Workload post = new Workload("post-pets", "Post", "POST", "/pet", "pets.csv", 2, 3, 0);
+        long payloadDirs = payloadDirs();
+
+        assertThatThrownBy(() -> run(plan(List.of(post), Map.of("pets.csv", new byte[0]))))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("2 of 2 worker(s) did not finish")
+                .hasMessageContaining("Payload file has no records");
+        assertThat(payloadDirs()).as("Worker payload directories left behind").isEqualTo(payloadDirs);
+    }
+
+    private RunPlan plan(List<Workload> workloads, Map<String, byte[]> files) {
+        return new RunPlan("http://127.0.0.1:" + server.getAddress().getPort(), PayloadFeeder.Mode.RECYCLE,
+                false, false, HttpClient.Version.HTTP_1_1, 0, 0, workloads, files, null, 42, 100,
+                TimeUnit.MILLISECONDS.toNanos(10), 50);
+    }
+
+    /**
+     * Runs the coordinator and both workers, rethrowing the coordinator's failure.
+     */
+    private Map<String, LabelStats> run(RunPlan plan) throws Exception {
+        int port = freePort();
+        Future<Map<String, LabelStats>> coordinator = executor.submit(() -> new Coordinator(port, WORKERS).run(plan));
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < WORKERS; i++) {
+            workers.add(executor.submit(() -> {
+                connect(port);
+                return null;
+            }));
+        }
+        try {
+            return coordinator.get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        } finally {
+            for (Future<?> worker : workers) {
+                try {
+                    worker.get(30, TimeUnit.SECONDS);
+                } catch (ExecutionException ignored) {
+                    // A failed worker's own exception; the coordinator reports it
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a worker, retrying until the coordinator listens.
+     */
+    private static void connect(int port) throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                new Worker("127.0.0.1", port, 4).run();
+                return;
+            } catch (ConnectException e) {
+                if (attempt == 200) {
+                    throw e;
+                }
+                Thread.sleep(25);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static long payloadDirs() throws IOException {
+        try (Stream<Path> paths = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return paths.filter(path -> path.getFileName().toString().startsWith("petstore-payloads")).count();
+        }
+    }
+}
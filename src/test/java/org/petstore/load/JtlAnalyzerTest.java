@@ -0,0 +1,98 @@
+package org.petstore.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JtlAnalyzerTest {
+
+    private static final String HEADER = "timeStamp,elapsed,label,responseCode,responseMessage,threadName,success,"
+            + "bytes,sentBytes";
+    private static final long START = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void aggregatesSamplesPerLabelAcrossChunks() throws Exception {
+        StringBuilder jtl = new StringBuilder(HEADER).append("\r\n");
+        for (int i = 0; i < 6_000; i++) {
+            boolean failed = i % 100 == 0;
+            jtl.append(START + i * 10L).append(',').append(10 + i % 5).append(',')
+                    .append(i % 2 == 0 ? "Find" : "\"Post, with comma\"").append(',')
+                    .append(failed ? "500" : "200").append(',')
+                    .append(failed ? "\"Server, error\"" : "OK").append(",t-1,")
+                    .append(!failed).append(",100,20\r\n");
+        }
+        jtl.append("\r\n");
+
+        // Chunks of at least 64 KB; the log is about 300 KB
+        JtlAnalyzer.Result result = new JtlAnalyzer(2, 1, null).analyze(write(jtl.toString()));
+
+        assertThat(result.getSamples()).isEqualTo(6_000);
+        assertThat(result.getMalformedLines()).isZero();
+        assertThat(result.getLabels()).containsOnlyKeys("Find", "Post, with comma");
+        LabelStats find = result.getLabels().get("Find");
+        assertThat(find.getSamples()).isEqualTo(3_000);
+        assertThat(find.getErrors()).isEqualTo(60);
+        assertThat(find.getMinMillis()).isEqualTo(10);
+        assertThat(find.getMaxMillis()).isEqualTo(14);
+        assertThat(result.getLabels().get("Post, with comma").getErrors()).isZero();
+        List<JtlAnalyzer.ErrorCount> errors = result.getErrors();
+        assertThat(errors).hasSize(1);
+        assertThat(errors.get(0).getLabel()).isEqualTo("Find");
+        assertThat(errors.get(0).getResponseCode()).isEqualTo("500");
+        assertThat(errors.get(0).getResponseMessage()).isEqualTo("Server, error");
+        assertThat(errors.get(0).getCount()).isEqualTo(60);
+    }
+
+    @Test
+    void skipsMalformedLinesAndKeepsOutliersOutOfTheTimeSeries() throws Exception {
+        String jtl = HEADER + "\n"
+                + START + ",10,Find,200,OK,t-1,true,100,20\n"
+                + "not-a-time,10,Find,200,OK,t-1,true,100,20\n"
+                + "0,10,Find,200,OK,t-1,true,100,20\n"
+                + START + ",10\n"
+                + "4102444800000,10,Find,200,OK,t-1,true,100,20\n"
+                + (START + 1_000) + ",30,Find,200,OK,t-1,true,100,20\n";
+
+        JtlAnalyzer.Result result = new JtlAnalyzer(1, 1, null).analyze(write(jtl));
+        Path summary = dir.resolve("summary.csv");
+        result.write(summary);
+
+        assertThat(result.getMalformedLines()).isEqualTo(3);
+        assertThat(result.getOutliers()).isEqualTo(1);
+        assertThat(result.getSamples()).isEqualTo(3);
+        assertThat(Files.readAllLines(dir.resolve("summary.timeseries.csv"))).containsExactly(
+                "Time,Label,Samples,Errors,Average",
+                "2023-11-14T22:13:20Z,Find,1,0,10",
+                "2023-11-14T22:13:21Z,Find,1,0,30",
+                "2023-11-14T22:13:20Z,TOTAL,1,0,10",
+                "2023-11-14T22:13:21Z,TOTAL,1,0,30");
+    }
+
+    @Test
+    void readsSemicolonSeparatedLogsWithFormattedTimestamps() throws Exception {
+        String jtl = "timeStamp;elapsed;label;responseCode;responseMessage;threadName;success;bytes;sentBytes\n"
+                + "2024/01/01 10:00:00.000;100;Find;200;OK;t-1;true;15;0\n"
+                + "2024/01/01 10:00:01.500;300;Find;404;Not Found;t-1;false;10;0\n";
+
+        JtlAnalyzer.Result result = new JtlAnalyzer(1, 1, "yyyy/MM/dd HH:mm:ss.SSS").analyze(write(jtl));
+
+        LabelStats find = result.getLabels().get("Find");
+        assertThat(find.getSamples()).isEqualTo(2);
+        assertThat(find.getErrors()).isEqualTo(1);
+        assertThat(find.getAverageMillis()).isEqualTo(200);
+        assertThat(result.getErrors().get(0).getResponseMessage()).isEqualTo("Not Found");
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.write(dir.resolve("results.jtl"), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
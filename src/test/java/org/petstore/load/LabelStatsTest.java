@@ -0,0 +1,61 @@
+package org.petstore.load;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LabelStatsTest {
+
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void timesScheduledSamplesFromTheirIntendedSendTime() {
+        LabelStats stats = new LabelStats("Find", 1);
+
+        // Sent 900 ms late behind a stalled server, answered 100 ms after the send
+        stats.recordScheduled(0, 900 * MILLIS, 1_000 * MILLIS, true, 10, 0);
+        stats.recordScheduled(1_000 * MILLIS, 1_000 * MILLIS, 1_100 * MILLIS, true, 10, 0);
+
+        assertThat(stats.getSamples()).isEqualTo(2);
+        assertThat(stats.getMaxMillis()).isEqualTo(1_000);
+        assertThat(stats.getAverageMillis()).isEqualTo(550);
+        Histogram latency = stats.getLatencyHistogram();
+        Histogram serviceTime = stats.getServiceTimeHistogram();
+        assertThat(latency.getMaxValue() / 1_000.0).isCloseTo(1_000, within(1.0));
+        assertThat(serviceTime.getMaxValue() / 1_000.0).isCloseTo(100, within(0.1));
+        assertThat(serviceTime.getTotalCount()).isEqualTo(2);
+    }
+
+    @Test
+    void leavesTheServiceTimeEmptyForClosedModelSamples() {
+        LabelStats stats = new LabelStats("Find", 1);
+
+        stats.record(0, 250 * MILLIS, false, 10, 5);
+
+        assertThat(stats.getErrors()).isEqualTo(1);
+        assertThat(stats.getLatencyHistogram().getTotalCount()).isEqualTo(1);
+        assertThat(stats.getServiceTimeHistogram().getTotalCount()).isZero();
+    }
+
+    @Test
+    void addsIntervalsTakenFromAnotherInstance() {
+        LabelStats worker = new LabelStats("Find", 1);
+        LabelStats merged = new LabelStats("Find", 1);
+
+        worker.recordScheduled(0, 0, 10 * MILLIS, true, 10, 0);
+        worker.recordMissedSchedule();
+        merged.add(worker.takeInterval());
+        worker.recordScheduled(10 * MILLIS, 30 * MILLIS, 40 * MILLIS, false, 10, 0);
+        merged.add(worker.takeInterval());
+
+        assertThat(merged.getSamples()).isEqualTo(2);
+        assertThat(merged.getErrors()).isEqualTo(1);
+        assertThat(merged.getMissedSchedules()).isEqualTo(1);
+        assertThat(merged.getMaxMillis()).isEqualTo(30);
+        assertThat(merged.getLatencyHistogram().getTotalCount()).isEqualTo(2);
+    }
+}
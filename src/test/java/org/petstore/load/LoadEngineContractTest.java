@@ -0,0 +1,85 @@
+package org.petstore.load;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sampled contract checks of the load engine against an in-process server answering every
+ * request with an empty JSON array.
+ */
+class LoadEngineContractTest {
+
+    private HttpServer server;
+
+    @TempDir
+    Path payloadDir;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = "[]".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        Files.write(payloadDir.resolve("pets.csv"), "{\"id\":1,\"name\":\"a\"}\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void countsSampledResponsesBreakingTheirContractAsErrors() throws Exception {
+        Map<String, LabelStats> results = run(2, 0);
+
+        // An empty array is a valid pet search but not a created pet
+        assertThat(results.get("Find").getSamples()).isEqualTo(8);
+        assertThat(results.get("Find").getErrors()).isZero();
+        assertThat(results.get("Post").getSamples()).isEqualTo(8);
+        assertThat(results.get("Post").getErrors()).isEqualTo(4);
+    }
+
+    @Test
+    void checksNothingByDefault() throws Exception {
+        Map<String, LabelStats> results = run(0, 0);
+
+        assertThat(results.get("Post").getErrors()).isZero();
+    }
+
+    @Test
+    void checksAsyncResponsesToo() throws Exception {
+        Map<String, LabelStats> results = run(1, 2);
+
+        assertThat(results.get("Find").getErrors()).isZero();
+        assertThat(results.get("Post").getErrors()).isEqualTo(8);
+    }
+
+    private Map<String, LabelStats> run(int contractSampleEvery, int asyncThreads) throws Exception {
+        Workload find = new Workload("find-pets", "Find", "GET", "/pet/findByStatus?status=available", null,
+                2, 4, 0);
+        Workload post = new Workload("post-pets", "Post", "POST", "/pet", "pets.csv", 2, 4, 0);
+        LoadEngine engine = new LoadEngine("http://127.0.0.1:" + server.getAddress().getPort(), payloadDir, 4,
+                PayloadFeeder.Mode.RECYCLE, false, false, HttpClient.Version.HTTP_1_1, asyncThreads,
+                contractSampleEvery);
+        return engine.run(List.of(find, post));
+    }
+}
@@ -0,0 +1,180 @@
+package org.petstore.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.petstore.utils.JsonUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PayloadFeederTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void indexesNonBlankLinesWithoutTheirTerminators() throws IOException {
+        Path file = write("a\r\n\r\n  \n\tb\n\nc\r\nlast");
+
+        PayloadFeeder feeder = PayloadFeeder.open(file, PayloadFeeder.Mode.STOP_AT_EOF);
+
+        assertThat(feeder.size()).isEqualTo(4);
+        assertThat(drain(feeder)).containsExactly("a", "\tb", "c", "last");
+        assertThat(feeder.next()).isNull();
+    }
+
+    @Test
+    void recyclesFromTheFirstRecord() throws IOException {
+        PayloadFeeder feeder = PayloadFeeder.open(write("a\nb\n"), PayloadFeeder.Mode.RECYCLE);
+
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            records.add(text(feeder.next()));
+        }
+
+        assertThat(records).containsExactly("a", "b", "a", "b", "a");
+    }
+
+    @Test
+    void growsTheIndexPastItsInitialCapacity() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            lines.append("{\"id\":").append(i).append("}\n");
+        }
+
+        PayloadFeeder feeder = PayloadFeeder.open(write(lines.toString()), PayloadFeeder.Mode.STOP_AT_EOF);
+
+        assertThat(feeder.size()).isEqualTo(5_000);
+        assertThat(text(feeder.record(0))).isEqualTo("{\"id\":0}");
+        assertThat(text(feeder.record(4_999))).isEqualTo("{\"id\":4999}");
+    }
+
+    @Test
+    void handsEveryRecordOutOnceAcrossThreads() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            lines.append(i).append('\n');
+        }
+        PayloadFeeder feeder = PayloadFeeder.open(write(lines.toString()), PayloadFeeder.Mode.STOP_AT_EOF);
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        List<String> duplicates = new ArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                byte[] record;
+                while ((record = feeder.next()) != null) {
+                    if (!seen.add(text(record))) {
+                        synchronized (duplicates) {
+                            duplicates.add(text(record));
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(seen).hasSize(10_000);
+        assertThat(duplicates).isEmpty();
+    }
+
+    @Test
+    void partitionsIntoDisjointRangesCoveringTheFile() throws IOException {
+        PayloadFeeder feeder = PayloadFeeder.open(write("1\n2\n3\n4\n5\n6\n7\n"), PayloadFeeder.Mode.STOP_AT_EOF);
+
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<String> partition = drain(feeder.partition(i, 3));
+            assertThat(partition).isNotEmpty();
+            all.addAll(partition);
+        }
+
+        assertThat(all).containsExactly("1", "2", "3", "4", "5", "6", "7");
+        assertThat(feeder.next()).as("Partitions do not move the shared cursor").isNotNull();
+    }
+
+    @Test
+    void recyclesWithinAPartition() throws IOException {
+        PayloadFeeder feeder = PayloadFeeder.open(write("1\n2\n3\n4\n"), PayloadFeeder.Mode.RECYCLE);
+
+        PayloadSource partition = feeder.partition(1, 2);
+
+        assertThat(List.of(text(partition.next()), text(partition.next()), text(partition.next())))
+                .containsExactly("3", "4", "3");
+    }
+
+    @Test
+    void leavesPartitionsBeyondTheRecordCountEmpty() throws IOException {
+        PayloadFeeder feeder = PayloadFeeder.open(write("1\n2\n"), PayloadFeeder.Mode.RECYCLE);
+
+        Set<String> handedOut = new HashSet<>();
+        int empty = 0;
+        for (int i = 0; i < 5; i++) {
+            byte[] first = feeder.partition(i, 5).next();
+            if (first == null) {
+                empty++;
+            } else {
+                assertThat(handedOut.add(text(first))).as("Record handed to two partitions").isTrue();
+            }
+        }
+
+        assertThat(handedOut).containsExactlyInAnyOrder("1", "2");
+        assertThat(empty).isEqualTo(3);
+        assertThatThrownBy(() -> feeder.partition(5, 5)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsFilesWithoutRecords() throws IOException {
+        Path file = write("\n \r\n\n");
+
+        assertThatThrownBy(() -> PayloadFeeder.open(file, PayloadFeeder.Mode.RECYCLE))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("no records");
+    }
+
+    @Test
+    void templatesTheFirstRecordWithFreshIds() throws IOException {
+        PayloadFeeder feeder = PayloadFeeder.open(write("{\"id\":1,\"name\":\"Rex\"}\n{\"id\":2}\n"),
+                PayloadFeeder.Mode.STOP_AT_EOF);
+
+        PayloadSource template = feeder.template();
+        JsonNode first = JsonUtils.mapper().readTree(template.next());
+        JsonNode second = JsonUtils.mapper().readTree(template.next());
+
+        assertThat(first.get("name").asText()).isEqualTo("Rex");
+        assertThat(second.get("name").asText()).isEqualTo("Rex");
+        assertThat(second.get("id").asLong()).isEqualTo(first.get("id").asLong() + 1);
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.write(dir.resolve("payloads.csv"), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> drain(PayloadSource source) {
+        List<String> records = new ArrayList<>();
+        byte[] record;
+        while ((record = source.next()) != null) {
+            records.add(text(record));
+        }
+        return records;
+    }
+
+    private static String text(byte[] record) {
+        return new String(record, StandardCharsets.UTF_8);
+    }
+}
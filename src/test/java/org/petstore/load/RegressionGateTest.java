@@ -0,0 +1,108 @@
+package org.petstore.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RegressionGateTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testsMeanLatencyIncreasesWithWelch() {
+        SummaryReportReader.Row baseline = row(1_000, 100, 10, 0);
+
+        // t = 3 / sqrt(2) with about 198 degrees of freedom
+        assertThat(RegressionGate.welchIncreasePValue(row(100, 100, 10, 0), row(100, 103, 10, 0)))
+                .isCloseTo(0.0176, within(0.001));
+        assertThat(RegressionGate.welchIncreasePValue(baseline, row(1_000, 100, 10, 0))).isCloseTo(0.5, within(1e-9));
+        assertThat(RegressionGate.welchIncreasePValue(baseline, row(1_000, 90, 10, 0))).isGreaterThan(0.99);
+        assertThat(RegressionGate.welchIncreasePValue(row(1, 100, 0, 0), row(1, 101, 0, 0))).isZero();
+        assertThat(RegressionGate.welchIncreasePValue(row(5, 100, 0, 0), row(5, 100, 0, 0))).isEqualTo(1);
+    }
+
+    @Test
+    void testsErrorRateIncreasesWithTwoProportions() {
+        assertThat(RegressionGate.errorIncreasePValue(row(1_000, 100, 10, 1), row(1_000, 100, 10, 3)))
+                .isCloseTo(0.000701, within(1e-5));
+        assertThat(RegressionGate.errorIncreasePValue(row(1_000, 100, 10, 3), row(1_000, 100, 10, 1)))
+                .isGreaterThan(0.99);
+        assertThat(RegressionGate.errorIncreasePValue(row(1_000, 100, 10, 0), row(1_000, 100, 10, 0))).isEqualTo(1);
+        assertThat(RegressionGate.errorIncreasePValue(row(0, 100, 10, 0), row(1_000, 100, 10, 5))).isEqualTo(1);
+    }
+
+    @Test
+    void testsDistributionShiftsWithKolmogorovSmirnov() {
+        double[][] fast = {{10, 0.5}, {20, 1}};
+        double[][] slow = {{20, 0.5}, {30, 1}};
+
+        // D+ = 0.5 with an effective sample size of 50
+        assertThat(RegressionGate.ksIncreasePValue(fast, 100, slow, 100)).isCloseTo(Math.exp(-25), within(1e-15));
+        assertThat(RegressionGate.ksIncreasePValue(slow, 100, fast, 100)).isEqualTo(1);
+        assertThat(RegressionGate.ksIncreasePValue(fast, 100, fast, 100)).isEqualTo(1);
+        assertThat(RegressionGate.ksIncreasePValue(fast, 0, slow, 100)).isEqualTo(1);
+    }
+
+    @Test
+    void comparesEveryBaselineLabel() throws IOException {
+        Path baseline = summary("baseline",
+                "Find,1000,100,5,400,10.00,1.000%,50.00000,10.00,1.00,500.0",
+                "Setup:Post,1000,100,5,400,10.00,1.000%,50.00000,10.00,1.00,500.0",
+                "Gone,10,100,5,400,10.00,0.000%,1.00000,10.00,1.00,500.0",
+                "TOTAL,2010,100,5,400,10.00,1.000%,101.00000,10.00,1.00,500.0");
+        percentiles(baseline, "Find,1000,90,120,150,200,300,400");
+        Path current = summary("current",
+                "Find,1000,101,5,400,10.00,1.000%,40.00000,10.00,1.00,500.0",
+                "Post,1000,100,5,400,10.00,5.000%,50.00000,10.00,1.00,500.0",
+                "TOTAL,2000,100,5,400,10.00,3.000%,95.00000,10.00,1.00,500.0");
+        percentiles(current, "Find,1000,90,120,200,210,300,400");
+
+        List<RegressionGate.Check> checks = new RegressionGate(10, 10, 10, 10, 1, 0.05).compare(baseline, current);
+
+        Map<String, RegressionGate.Verdict> verdicts = new TreeMap<>();
+        for (RegressionGate.Check check : checks) {
+            verdicts.put(check.getLabel() + " " + check.getMetric(), check.getVerdict());
+        }
+        assertThat(verdicts).containsEntry("Find Throughput", RegressionGate.Verdict.FAIL)
+                .containsEntry("Find Mean", RegressionGate.Verdict.PASS)
+                .containsEntry("Find p95", RegressionGate.Verdict.FAIL)
+                .containsEntry("Find p99", RegressionGate.Verdict.PASS)
+                .containsEntry("Find Error %", RegressionGate.Verdict.PASS)
+                .containsEntry("Post Throughput", RegressionGate.Verdict.PASS)
+                .containsEntry("Post p95", RegressionGate.Verdict.SKIPPED)
+                .containsEntry("Post Error %", RegressionGate.Verdict.FAIL)
+                .containsEntry("Gone Samples", RegressionGate.Verdict.MISSING)
+                .containsEntry("TOTAL Throughput", RegressionGate.Verdict.PASS);
+        assertThat(checks)
+                .filteredOn(check -> check.getMetric().equals("Throughput") && check.getLabel().equals("Find"))
+                .singleElement().satisfies(check -> assertThat(check.getChange()).isCloseTo(-20, within(1e-9)));
+    }
+
+    private static SummaryReportReader.Row row(long samples, double averageMillis, double stdDevMillis,
+                                               double errorPercent) {
+        return new SummaryReportReader.Row("Find", samples, averageMillis, 0, 0, stdDevMillis, errorPercent, 1, 0, 0,
+                0);
+    }
+
+    private Path summary(String name, String... rows) throws IOException {
+        Path file = dir.resolve(name + ".csv");
+        Files.writeString(file, SummaryReport.HEADER + "\n" + String.join("\n", rows) + "\n", StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static void percentiles(Path summary, String... rows) throws IOException {
+        Files.writeString(PercentileReport.sibling(summary, ".percentiles.csv"),
+                PercentileReport.HEADER + "\n" + String.join("\n", rows) + "\n", StandardCharsets.UTF_8);
+    }
+}
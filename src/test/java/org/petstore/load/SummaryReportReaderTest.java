@@ -0,0 +1,75 @@
+package org.petstore.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SummaryReportReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesNumbersWithEitherDecimalSeparator() {
+        assertThat(SummaryReportReader.parseNumber("0,802%")).isEqualTo(0.802);
+        assertThat(SummaryReportReader.parseNumber(",42570")).isEqualTo(0.4257);
+        assertThat(SummaryReportReader.parseNumber(".5")).isEqualTo(0.5);
+        assertThat(SummaryReportReader.parseNumber("1.234,5")).isEqualTo(1234.5);
+        assertThat(SummaryReportReader.parseNumber("1,234.5")).isEqualTo(1234.5);
+        assertThat(SummaryReportReader.parseNumber("1\u00a0234,5")).isEqualTo(1234.5);
+        assertThat(SummaryReportReader.parseNumber(" 12 ")).isEqualTo(12);
+        assertThat(SummaryReportReader.parseNumber("-3,25")).isEqualTo(-3.25);
+    }
+
+    @Test
+    void rejectsTextThatIsNoNumber() {
+        for (String text : new String[]{"", " ", ".", "%", "abc"}) {
+            assertThatThrownBy(() -> SummaryReportReader.parseNumber(text))
+                    .as(text).isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    @Test
+    void readsRowsWrittenWithDecimalCommas() throws IOException {
+        Path file = write(SummaryReport.HEADER,
+                "\"Find, by status\",120,\"15,5\",3,90,\"4,25\",\"0,833%\",\"12,34567\",\"1,50\",\"0,25\",\"512,0\"",
+                "",
+                "TOTAL,120,16,3,90,4.25,0.833%,12.34567,1.50,0.25,512.0");
+
+        List<SummaryReportReader.Row> rows = SummaryReportReader.read(file);
+
+        assertThat(rows).hasSize(2);
+        SummaryReportReader.Row find = rows.get(0);
+        assertThat(find.getLabel()).isEqualTo("Find, by status");
+        assertThat(find.getSamples()).isEqualTo(120);
+        assertThat(find.getAverageMillis()).isEqualTo(15.5);
+        assertThat(find.getStdDevMillis()).isEqualTo(4.25);
+        assertThat(find.getErrorPercent()).isEqualTo(0.833);
+        assertThat(find.getThroughputPerSecond()).isEqualTo(12.34567);
+        assertThat(find.getAverageBytes()).isEqualTo(512);
+        assertThat(rows.get(1).toCsv()).isEqualTo("TOTAL,120,16,3,90,4.25,0.833%,12.34567,1.50,0.25,512.0");
+    }
+
+    @Test
+    void rejectsFilesThatAreNoSummaryReport() throws IOException {
+        Path jtl = write("timeStamp,elapsed,label", "1700000000000,10,Find");
+        Path ragged = write(SummaryReport.HEADER, "Find,120,15");
+
+        assertThatThrownBy(() -> SummaryReportReader.read(jtl)).isInstanceOf(IOException.class)
+                .hasMessageContaining("not a Summary Report");
+        assertThatThrownBy(() -> SummaryReportReader.read(ragged)).isInstanceOf(IOException.class)
+                .hasMessageContaining("row has 3 fields");
+    }
+
+    private Path write(String... lines) throws IOException {
+        return Files.write(Files.createTempFile(dir, "summary", ".csv"), List.of(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,192 @@
+package org.petstore.load;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.petstore.server.PetstoreStubServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSeederTest {
+
+    @TempDir
+    Path dir;
+
+    private PetstoreStubServer stub;
+    private HttpServer scripted;
+    private ExecutorService scriptedExecutor;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void stop() {
+        release.countDown();
+        if (stub != null) {
+            stub.stop();
+        }
+        if (scripted != null) {
+            scripted.stop(0);
+            scriptedExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void turnsCsvRowsIntoUsers() {
+        List<String> header = List.of("id", "username", "firstName", "phone", "userStatus");
+
+        assertThat(json(header, "7,\"ann, the first\",\"say \"\"hi\"\"\",,1"))
+                .isEqualTo("{\"id\":7,\"username\":\"ann, the first\",\"firstName\":\"say \\\"hi\\\"\","
+                        + "\"userStatus\":1}");
+        assertThat(json(header, "x7,bob,Bob,555"))
+                .isEqualTo("{\"id\":\"x7\",\"username\":\"bob\",\"firstName\":\"Bob\",\"phone\":\"555\"}");
+    }
+
+    @Test
+    void seedsEveryUserInBatches() throws Exception {
+        stub = new PetstoreStubServer(0, 4).start();
+        Path csv = write("users.csv", "username,firstName,userStatus",
+                "ann,Ann,1", "bob,Bob,1", "cid,Cid,0", "dee,\"Dee, Jr\",1", "eve,Eve,1");
+        UserSeeder seeder = new UserSeeder(stub.getBaseUri(), UserSeeder.Endpoint.BOTH, 2, 2, 0, 1,
+                dir.resolve("failed.jsonl"));
+
+        seeder.seed(csv);
+
+        assertThat(seeder.getSeededRows()).isEqualTo(5);
+        assertThat(seeder.getFailedRows()).isZero();
+        assertThat(seeder.describe(1)).contains("5 users read", "in 3 batches");
+        assertThat(Files.exists(dir.resolve("failed.jsonl"))).isFalse();
+        HttpClient client = HttpClient.newHttpClient();
+        for (String username : List.of("ann", "bob", "cid", "dee", "eve")) {
+            HttpResponse<String> user = client.send(
+                    HttpRequest.newBuilder(URI.create(stub.getBaseUri() + "/user/" + username)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(user.statusCode()).as(username).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void retriesServerErrorsAndTooManyRequests() throws Exception {
+        List<Integer> statuses = script(503, 429, 200);
+        Path jsonl = write("users.jsonl", "{\"username\":\"ann\"}", "{\"username\":\"bob\"}");
+        UserSeeder seeder = new UserSeeder(scriptedUri(), UserSeeder.Endpoint.LIST, 10, 1, 3, 1,
+                dir.resolve("failed.jsonl"));
+
+        seeder.seed(jsonl);
+
+        assertThat(statuses).containsExactly(503, 429, 200);
+        assertThat(seeder.getSeededRows()).isEqualTo(2);
+        assertThat(seeder.describe(1)).contains("(1 retried, 0 failed)");
+    }
+
+    @Test
+    void writesTheUsersOfFailedBatchesToTheFailedFile() throws Exception {
+        List<Integer> statuses = script(500, 500, 400);
+        Path jsonl = write("users.jsonl", "{\"username\":\"ann\"}", "{\"username\":\"bob\"}",
+                "{\"username\":\"cid\"}");
+        Path failed = dir.resolve("out/failed.jsonl");
+        UserSeeder seeder = new UserSeeder(scriptedUri(), UserSeeder.Endpoint.LIST, 2, 1, 1, 1, failed);
+
+        seeder.seed(jsonl);
+
+        // The first batch runs out of retries, the second gets a status not worth retrying
+        assertThat(statuses).containsExactly(500, 500, 400);
+        assertThat(seeder.getFailedRows()).isEqualTo(3);
+        assertThat(Files.readAllLines(failed)).containsExactly(
+                "{\"username\":\"ann\"}", "{\"username\":\"bob\"}", "{\"username\":\"cid\"}");
+    }
+
+    @Test
+    void writesInterruptedBatchesToTheFailedFile() throws Exception {
+        List<Integer> statuses = script();
+        Path jsonl = write("users.jsonl", "{\"username\":\"ann\"}", "{\"username\":\"bob\"}");
+        Path failed = dir.resolve("failed.jsonl");
+        UserSeeder seeder = new UserSeeder(scriptedUri(), UserSeeder.Endpoint.LIST, 1, 2, 0, 1, failed);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread seeding = new Thread(() -> {
+            try {
+                seeder.seed(jsonl);
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+
+        seeding.start();
+        while (statuses.size() < 2) {
+            Thread.sleep(10);
+        }
+        seeding.interrupt();
+        seeding.join(TimeUnit.SECONDS.toMillis(10));
+
+        assertThat(seeding.isAlive()).isFalse();
+        assertThat(thrown.get()).isInstanceOf(InterruptedException.class);
+        assertThat(seeder.getFailedRows()).isEqualTo(2);
+        assertThat(Files.readAllLines(failed))
+                .containsExactlyInAnyOrder("{\"username\":\"ann\"}", "{\"username\":\"bob\"}");
+    }
+
+    private static String json(List<String> header, String line) {
+        return new String(UserSeeder.csvToJson(header, line.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8);
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), List.of(lines));
+    }
+
+    /**
+     * Starts a server answering batches with the given statuses in turn; once they are used up,
+     * requests hang until the test ends.
+     *
+     * @return Statuses sent so far, in order
+     */
+    private List<Integer> script(Integer... statuses) throws IOException {
+        Queue<Integer> pending = new ConcurrentLinkedQueue<>(List.of(statuses));
+        List<Integer> sent = Collections.synchronizedList(new ArrayList<>());
+        scripted = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        scriptedExecutor = Executors.newCachedThreadPool();
+        scripted.setExecutor(scriptedExecutor);
+        scripted.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            Integer status = pending.poll();
+            if (status == null) {
+                sent.add(0);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+                return;
+            }
+            sent.add(status);
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        scripted.start();
+        return sent;
+    }
+
+    private String scriptedUri() {
+        return "http://127.0.0.1:" + scripted.getAddress().getPort() + "/v2";
+    }
+}
@@ -0,0 +1,38 @@
+package org.petstore.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EndpointsTest {
+
+    private static final String[][] TEMPLATES = {
+            {"/pet", "/pet"},
+            {"/pet/123", "/pet/{petId}"},
+            {"/v2/pet/123", "/pet/{petId}"},
+            {"/pet/123/uploadImage", "/pet/{petId}/uploadImage"},
+            {"/v2/pet/findByStatus?status=available", "/pet/findByStatus"},
+            {"/pet/findByTags?tags=a&tags=b", "/pet/findByTags"},
+            {"/store/inventory", "/store/inventory"},
+            {"/store/order", "/store/order"},
+            {"/store/order/5", "/store/order/{orderId}"},
+            {"/v2/store/order/abc", "/store/order/{orderId}"},
+            {"/user", "/user"},
+            {"/user/ann", "/user/{username}"},
+            {"/v2/user/pet", "/user/{username}"},
+            {"/user/login?username=ann&password=secret", "/user/login"},
+            {"/user/logout", "/user/logout"},
+            {"/user/createWithList", "/user/createWithList"},
+            {"/user/createWithArray", "/user/createWithArray"},
+            {"/health/42", "/health/{id}"},
+            {"/", "/"},
+            {"", "/"},
+    };
+
+    @Test
+    void mapsRequestPathsToEndpointTemplates() {
+        for (String[] row : TEMPLATES) {
+            assertThat(Endpoints.template(row[0])).as(row[0]).isEqualTo(row[1]);
+        }
+    }
+}
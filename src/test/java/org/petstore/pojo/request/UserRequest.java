@@ -1,10 +1,12 @@
 package org.petstore.pojo.request;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 @Data
 public class UserRequest {
-    private String username;
+    @JsonProperty(required = true)
+    private String username;  // the key of every /user/{username} call
     private String firstName;
     private String lastName;
     private String email;
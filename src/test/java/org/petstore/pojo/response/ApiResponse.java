@@ -0,0 +1,10 @@
+package org.petstore.pojo.response;
+
+import lombok.Data;
+
+@Data
+public class ApiResponse {
+    private Integer code;
+    private String type;      // error, unknown, ...
+    private String message;
+}
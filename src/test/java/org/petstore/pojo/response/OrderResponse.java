@@ -1,11 +1,13 @@
 package org.petstore.pojo.response;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import java.time.LocalDateTime;
 
 @Data
 public class OrderResponse {
-    private Long id;
+    @JsonProperty(required = true)
+    private Long id;          // assigned by the server, always returned
     private Long petId;
     private Integer quantity;
     private String shipDate;  // ISO format date string
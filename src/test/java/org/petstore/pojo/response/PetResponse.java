@@ -1,5 +1,6 @@
 package org.petstore.pojo.response;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import java.util.List;
 import org.petstore.pojo.common.Tag;
@@ -7,8 +8,10 @@ import org.petstore.pojo.common.Category;
 
 @Data
 public class PetResponse {
-    private Long id;
-    private String name;
+    @JsonProperty(required = true)
+    private Long id;        // assigned by the server, always returned
+    @JsonProperty(required = true)
+    private String name;    // required by the Petstore API
     private Category category;
     private List<String> photoUrls;
     private List<Tag> tags;
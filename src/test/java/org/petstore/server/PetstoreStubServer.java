@@ -0,0 +1,372 @@
+package org.petstore.server;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.petstore.pojo.request.UserRequest;
+import org.petstore.pojo.response.OrderResponse;
+import org.petstore.pojo.response.PetResponse;
+import org.petstore.utils.JsonUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded, multi-threaded stand-in for the Swagger Petstore v2 API.
+ * It serves the /pet, /store and /user endpoints used by the step definitions and
+ * load_tests.jmx from concurrent in-memory stores, so suites and load runs can
+ * execute offline without being throttled by the public host.
+ */
+public class PetstoreStubServer {
+
+    public static final String BASE_PATH = "/v2";
+
+    private final Map<Long, PetResponse> pets = new ConcurrentHashMap<>();
+    private final Map<Long, OrderResponse> orders = new ConcurrentHashMap<>();
+    private final Map<String, UserRequest> users = new ConcurrentHashMap<>();
+    private final AtomicLong petSequence = new AtomicLong(1_000_000L);
+    private final AtomicLong orderSequence = new AtomicLong(1_000_000L);
+    private final AtomicLong userSequence = new AtomicLong(1_000_000L);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates a stand-in server bound to the given port (0 picks a free port).
+     *
+     * @param port    Port to listen on
+     * @param threads Number of worker threads serving requests
+     */
+    public PetstoreStubServer(int port, int threads) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "petstore-stub-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext(BASE_PATH + "/pet", this::handlePet);
+        server.createContext(BASE_PATH + "/store", this::handleStore);
+        server.createContext(BASE_PATH + "/user", this::handleUser);
+
+        // Seed the known pet so "Retrieve pet by ID" works against the stand-in as well
+        PetResponse knownPet = JsonUtils.loadKnownPet();
+        knownPet.setStatus(JsonUtils.KNOWN_PET_STATUS);
+        pets.put(knownPet.getId(), knownPet);
+    }
+
+    public PetstoreStubServer start() {
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return Base URI of the stand-in, equivalent to https://petstore.swagger.io/v2
+     */
+    public String getBaseUri() {
+        return "http://127.0.0.1:" + getPort() + BASE_PATH;
+    }
+
+    // ---- /pet ----
+
+    private void handlePet(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        List<String> segments = segments(exchange, "/pet");
+
+        if (segments.isEmpty() && ("POST".equals(method) || "PUT".equals(method))) {
+            PetResponse pet = readBody(exchange, PetResponse.class);
+            if (pet == null) {
+                sendMessage(exchange, 405, "unknown", "Invalid input");
+                return;
+            }
+            if (pet.getId() == null || pet.getId() == 0) {
+                pet.setId(petSequence.incrementAndGet());
+            }
+            pets.put(pet.getId(), pet);
+            sendJson(exchange, 200, pet);
+        } else if (segments.size() == 1 && "findByStatus".equals(segments.get(0)) && "GET".equals(method)) {
+            String statusParam = query(exchange).get("status");
+            Set<String> statuses = statusParam == null
+                    ? new HashSet<>()
+                    : new HashSet<>(Arrays.asList(statusParam.split(",")));
+            List<PetResponse> matches = new ArrayList<>();
+            for (PetResponse pet : pets.values()) {
+                if (statuses.contains(pet.getStatus())) {
+                    matches.add(pet);
+                }
+            }
+            sendJson(exchange, 200, matches);
+        } else if (segments.size() == 1) {
+            Long petId = parseId(segments.get(0));
+            if (petId == null) {
+                sendMessage(exchange, 404, "unknown", "java.lang.NumberFormatException: For input string: \""
+                        + segments.get(0) + "\"");
+                return;
+            }
+            if ("GET".equals(method)) {
+                PetResponse pet = pets.get(petId);
+                if (pet == null) {
+                    sendMessage(exchange, 404, "error", "Pet not found");
+                } else {
+                    sendJson(exchange, 200, pet);
+                }
+            } else if ("DELETE".equals(method)) {
+                if (pets.remove(petId) == null) {
+                    sendEmpty(exchange, 404);
+                } else {
+                    sendMessage(exchange, 200, "unknown", String.valueOf(petId));
+                }
+            } else {
+                sendMessage(exchange, 405, "unknown", "Method not allowed");
+            }
+        } else {
+            sendMessage(exchange, 404, "unknown", "Not found");
+        }
+    }
+
+    // ---- /store ----
+
+    private void handleStore(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        List<String> segments = segments(exchange, "/store");
+
+        if (segments.size() == 1 && "inventory".equals(segments.get(0)) && "GET".equals(method)) {
+            Map<String, Integer> inventory = new HashMap<>();
+            for (PetResponse pet : pets.values()) {
+                if (pet.getStatus() != null) {
+                    inventory.merge(pet.getStatus(), 1, Integer::sum);
+                }
+            }
+            sendJson(exchange, 200, inventory);
+        } else if (segments.size() == 1 && "order".equals(segments.get(0)) && "POST".equals(method)) {
+            OrderResponse order = readBody(exchange, OrderResponse.class);
+            // The published contract rejects orders without the pet or quantity
+            if (order == null || order.getPetId() == null || order.getQuantity() == null) {
+                sendMessage(exchange, 400, "error", "Invalid Order");
+                return;
+            }
+            if (order.getId() == null || order.getId() == 0) {
+                order.setId(orderSequence.incrementAndGet());
+            }
+            orders.put(order.getId(), order);
+            sendJson(exchange, 200, order);
+        } else if (segments.size() == 2 && "order".equals(segments.get(0))) {
+            Long orderId = parseId(segments.get(1));
+            if (orderId == null) {
+                sendMessage(exchange, 404, "unknown", "java.lang.NumberFormatException: For input string: \""
+                        + segments.get(1) + "\"");
+                return;
+            }
+            if ("GET".equals(method)) {
+                OrderResponse order = orders.get(orderId);
+                if (order == null) {
+                    sendMessage(exchange, 404, "error", "Order not found");
+                } else {
+                    sendJson(exchange, 200, order);
+                }
+            } else if ("DELETE".equals(method)) {
+                if (orders.remove(orderId) == null) {
+                    sendMessage(exchange, 404, "unknown", "Order Not Found");
+                } else {
+                    sendMessage(exchange, 200, "unknown", String.valueOf(orderId));
+                }
+            } else {
+                sendMessage(exchange, 405, "unknown", "Method not allowed");
+            }
+        } else {
+            sendMessage(exchange, 404, "unknown", "Not found");
+        }
+    }
+
+    // ---- /user ----
+
+    private void handleUser(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        List<String> segments = segments(exchange, "/user");
+
+        if (segments.isEmpty() && "POST".equals(method)) {
+            UserRequest user = readBody(exchange, UserRequest.class);
+            if (user == null || user.getUsername() == null) {
+                sendMessage(exchange, 400, "error", "Invalid user supplied");
+                return;
+            }
+            users.put(user.getUsername(), user);
+            sendMessage(exchange, 200, "unknown", String.valueOf(userSequence.incrementAndGet()));
+        } else if (segments.size() == 1 && ("createWithList".equals(segments.get(0))
+                || "createWithArray".equals(segments.get(0))) && "POST".equals(method)) {
+            List<UserRequest> batch = readBody(exchange, new TypeReference<List<UserRequest>>() {
+            });
+            if (batch == null) {
+                sendMessage(exchange, 400, "error", "Invalid user list supplied");
+                return;
+            }
+            for (UserRequest user : batch) {
+                if (user != null && user.getUsername() != null) {
+                    users.put(user.getUsername(), user);
+                }
+            }
+            sendMessage(exchange, 200, "unknown", "ok");
+        } else if (segments.size() == 1 && "login".equals(segments.get(0)) && "GET".equals(method)) {
+            Map<String, String> query = query(exchange);
+            UserRequest user = query.get("username") == null ? null : users.get(query.get("username"));
+            if (user == null || user.getPassword() == null || !user.getPassword().equals(query.get("password"))) {
+                sendMessage(exchange, 400, "error", "Invalid username/password supplied");
+                return;
+            }
+            exchange.getResponseHeaders().add("X-Rate-Limit", "5000");
+            exchange.getResponseHeaders().add("X-Expires-After", String.valueOf(System.currentTimeMillis() + 3_600_000L));
+            sendMessage(exchange, 200, "unknown", "logged in user session:" + System.nanoTime());
+        } else if (segments.size() == 1 && "logout".equals(segments.get(0)) && "GET".equals(method)) {
+            sendMessage(exchange, 200, "unknown", "ok");
+        } else if (segments.size() == 1) {
+            String username = segments.get(0);
+            if ("GET".equals(method)) {
+                UserRequest user = users.get(username);
+                if (user == null) {
+                    sendMessage(exchange, 404, "error", "User not found");
+                } else {
+                    sendJson(exchange, 200, user);
+                }
+            } else if ("PUT".equals(method)) {
+                UserRequest user = readBody(exchange, UserRequest.class);
+                if (user == null) {
+                    sendMessage(exchange, 400, "error", "Invalid user supplied");
+                    return;
+                }
+                users.remove(username);
+                users.put(user.getUsername() == null ? username : user.getUsername(), user);
+                sendMessage(exchange, 200, "unknown", String.valueOf(userSequence.incrementAndGet()));
+            } else if ("DELETE".equals(method)) {
+                if (users.remove(username) == null) {
+                    sendEmpty(exchange, 404);
+                } else {
+                    sendMessage(exchange, 200, "unknown", username);
+                }
+            } else {
+                sendMessage(exchange, 405, "unknown", "Method not allowed");
+            }
+        } else {
+            sendMessage(exchange, 404, "unknown", "Not found");
+        }
+    }
+
+    // ---- helpers ----
+
+    private static List<String> segments(HttpExchange exchange, String resource) {
+        String path = exchange.getRequestURI().getPath().substring((BASE_PATH + resource).length());
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new LinkedHashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return params;
+    }
+
+    private static Long parseId(String segment) {
+        try {
+            return Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static <T> T readBody(HttpExchange exchange, Class<T> type) {
+        try (InputStream body = exchange.getRequestBody()) {
+            return JsonUtils.mapper().readValue(body, type);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static <T> T readBody(HttpExchange exchange, TypeReference<T> type) {
+        try (InputStream body = exchange.getRequestBody()) {
+            return JsonUtils.mapper().readValue(body, type);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void sendMessage(HttpExchange exchange, int status, String type, String message) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", status == 404 && "error".equals(type) ? 1 : status);
+        body.put("type", type);
+        body.put("message", message);
+        sendJson(exchange, status, body);
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = JsonUtils.mapper().writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+
+    /**
+     * Runs the stand-in as a standalone process, e.g. as the target of load_tests.jmx.
+     * Port and worker threads come from -Dpetstore.stub.port and -Dpetstore.stub.threads.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = Integer.getInteger("petstore.stub.port", 8080);
+        int threads = Integer.getInteger("petstore.stub.threads", Runtime.getRuntime().availableProcessors() * 4);
+        PetstoreStubServer stub = new PetstoreStubServer(port, threads).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        System.out.println("Petstore stand-in listening on " + stub.getBaseUri());
+        Thread.currentThread().join();
+    }
+}
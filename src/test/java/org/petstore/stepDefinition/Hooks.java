@@ -0,0 +1,77 @@
+package org.petstore.stepDefinition;
+
+import io.cucumber.java.After;
+import io.cucumber.java.AfterAll;
+import io.cucumber.java.AfterStep;
+import io.cucumber.java.BeforeAll;
+import io.cucumber.java.Scenario;
+import io.restassured.RestAssured;
+import io.restassured.response.Response;
+import org.petstore.client.PetstoreClient;
+import org.petstore.metrics.MetricsExporter;
+import org.petstore.utils.AssertionReporter;
+import org.petstore.utils.BodyTemplates;
+import org.petstore.utils.Evidence;
+import org.petstore.utils.Fixtures;
+import org.petstore.utils.JsonUtils;
+import org.petstore.utils.LatencyProbe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Run-level hooks shared by all features.
+ */
+public class Hooks {
+
+    private static final Logger log = LoggerFactory.getLogger(Hooks.class);
+
+    @BeforeAll
+    public static void preloadFixtures() {
+        Fixtures.preload();
+    }
+
+    @BeforeAll
+    public static void startMetrics() {
+        MetricsExporter.startFromProperties();
+    }
+
+    @AfterStep
+    public void flushPassedChecks() {
+        AssertionReporter.flushPassedChecks();
+    }
+
+    @After
+    public void finishEvidence(Scenario scenario) {
+        Evidence.scenarioFinished(scenario.isFailed());
+    }
+
+    @After
+    public void forgetMeasurements() {
+        LatencyProbe.scenarioFinished();
+    }
+
+    /**
+     * Puts the known pet back to its fixture state, so scenarios sharing it pass in any order.
+     * Runs while the KNOWN_PET exclusive resource is still held, and fails the scenario when the
+     * fixture could not be restored, rather than the scenarios that use it next.
+     */
+    @After("@known-pet")
+    public void restoreKnownPet() {
+        Response response = RestAssured.given()
+                .spec(PetstoreClient.json())
+                .body(BodyTemplates.knownPet(JsonUtils.KNOWN_PET_STATUS))
+                .put("/pet");
+        assertThat(response.getStatusCode())
+                .as("Status of restoring the known pet fixture, body: %s", response.asString())
+                .isEqualTo(200);
+    }
+
+    @AfterAll
+    public static void reportClientStats() {
+        log.info("Petstore HTTP client: {}", PetstoreClient.stats().summary());
+        log.info("Petstore response cache: {}", PetstoreClient.cache().summary());
+        log.info("Petstore evidence: {}", Evidence.flush());
+    }
+}
@@ -0,0 +1,41 @@
+package org.petstore.stepDefinition;
+
+import io.cucumber.java.en.*;
+import org.petstore.utils.AssertionReporter;
+import org.petstore.utils.LatencyProbe;
+
+/**
+ * Latency and throughput thresholds on the requests measured by the "I send N requests ... with
+ * concurrency C" steps of the other glue classes (see {@link LatencyProbe}).
+ */
+public class PerformanceSteps {
+
+    @Given("a warm-up of {int} requests before measuring")
+    public void aWarmUpOfRequestsBeforeMeasuring(int requests) {
+        LatencyProbe.warmUp(requests);
+    }
+
+    @Then("the p{double} response time should be below {double} ms")
+    public void thePercentileResponseTimeShouldBeBelow(double percentile, double limitMillis) {
+        LatencyProbe.Result result = LatencyProbe.last();
+        AssertionReporter.verifyNumberAtMost(result.getLabel() + " p" + format(percentile) + " (ms)",
+                result.getPercentileMillis(percentile), limitMillis);
+    }
+
+    @Then("the throughput should be at least {double} requests per second")
+    public void theThroughputShouldBeAtLeast(double requestsPerSecond) {
+        LatencyProbe.Result result = LatencyProbe.last();
+        AssertionReporter.verifyNumberAtLeast(result.getLabel() + " throughput (requests/s)",
+                result.getThroughputPerSecond(), requestsPerSecond);
+    }
+
+    @Then("the error rate should be at most {double}%")
+    public void theErrorRateShouldBeAtMost(double percent) {
+        LatencyProbe.Result result = LatencyProbe.last();
+        AssertionReporter.verifyNumberAtMost(result.getLabel() + " error rate (%)", result.getErrorPercent(), percent);
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -2,19 +2,35 @@ package org.petstore.stepDefinition;
 
 import io.cucumber.java.en.*;
 import io.cucumber.datatable.DataTable;
-import io.restassured.http.ContentType;
+import io.restassured.RestAssured;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
 import net.serenitybdd.core.Serenity;
 import org.hamcrest.Matchers;
+import org.petstore.client.AsyncPetstoreClient;
+import org.petstore.client.PetstoreClient;
+import org.petstore.client.ResponseCache;
 import org.petstore.pojo.request.PetRequest;
 import org.petstore.pojo.response.PetResponse;
 import org.petstore.pojo.common.Category;
 import org.petstore.pojo.common.Tag;
 import org.petstore.utils.AssertionReporter;
+import org.petstore.utils.BodyTemplates;
+import org.petstore.utils.Evidence;
+import org.petstore.utils.JsonStreamValidator;
 import org.petstore.utils.JsonUtils;
-
+import org.petstore.utils.LatencyProbe;
+import org.petstore.utils.PetStreamConsumer;
+import org.petstore.utils.ResponseContracts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -27,6 +43,8 @@ public class PetSteps {
     private PetResponse petResponse;
     private PetResponse knowPet;
     private Long petId;
+    private PetStreamConsumer.Summary searchSummary;
+    private Response response; // last response of this scenario; glue instances are per scenario
 
     @Given("I have pet details with following attributes")
     public void iHavePetDetailsWithFollowingAttributes(DataTable dataTable) {
@@ -55,10 +73,8 @@ public class PetSteps {
     @When("I send request to add new pet")
     public void iSendRequestToAddNewPet() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
-                    .contentType(ContentType.JSON)
-                    .accept(ContentType.JSON)
+            response = given()
+                    .spec(PetstoreClient.json())
                     .body(petRequest)
                     .when()
                     .post("/pet");
@@ -74,11 +90,12 @@ public class PetSteps {
 
     @Then("the pet should be created successfully")
     public void thePetShouldBeCreatedSuccessfully() {
-        then().statusCode(200);
+        response.then().statusCode(200);
         assertThat(petResponse).isNotNull();
         assertThat(petResponse.getId()).isNotNull();
 
-        AssertionReporter.verifyNumberEquals("Status code",200 ,lastResponse().statusCode() );
+        AssertionReporter.verifyNumberEquals("Status code",200 ,response.statusCode() );
+        AssertionReporter.verifyContract("Pet response", ResponseContracts.PET, response.asByteArray());
 
         Serenity.recordReportData()
                 .withTitle("Pet Creation Info")
@@ -93,7 +110,7 @@ public class PetSteps {
         String actualCategory = petResponse.getCategory().getName();
 
         //Basic assertions
-        then().body("name", Matchers.equalTo(petRequest.getName()))
+        response.then().body("name", Matchers.equalTo(petRequest.getName()))
                 .body("status", Matchers.equalTo(petRequest.getStatus()))
                 .body("category.name", Matchers.equalTo(petRequest.getCategory().getName()));
 
@@ -118,10 +135,7 @@ public class PetSteps {
     @When("I send request to get pet details")
     public void iSendRequestToGetPetDetails() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
-                    .when()
-                    .get("/pet/" + petId);
+            response = getPetDetails(given());
 
             if (response.getStatusCode() == 200) {
                 petResponse = response.getBody().as(PetResponse.class);
@@ -134,7 +148,7 @@ public class PetSteps {
             } else {
 
                 throw new RuntimeException("Failed to get pet. Status code: " + response.getStatusCode() +
-                        ", Response: " + response.getBody().asString());
+                        ", Response: " + Evidence.preview(response));
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -143,11 +157,34 @@ public class PetSteps {
     }
 
 
+    @When("I send {int} requests to get pet details with concurrency {int}")
+    public void iSendRequestsToGetPetDetailsWithConcurrency(int requests, int concurrency) {
+        LatencyProbe.run("GET /pet/{petId}", requests, concurrency, () -> getPetDetails(RestAssured.given()));
+    }
+
+    /**
+     * Builds the pet details request on a SerenityRest start for the scenario's own calls, or a
+     * plain RestAssured one for measured runs.
+     */
+    private Response getPetDetails(RequestSpecification request) {
+        return request
+                .spec(PetstoreClient.base())
+                .when()
+                .get("/pet/" + petId);
+    }
+
     @Then("I should receive the correct pet information")
     public void iShouldReceiveThePetInformation() {
-        if (lastResponse().getStatusCode() == 200) {
-            then().statusCode(200);
-            then().body("id", Matchers.equalTo(petId.intValue()));
+        if (response.getStatusCode() == 200) {
+            response.then().statusCode(200);
+            AssertionReporter.verifyContract("Pet response", ResponseContracts.PET, response.asByteArray());
+
+            // One streaming pass over the raw body instead of a JSON path evaluation per element;
+            // the status is checked by its own step
+            List<String> mismatches = JsonStreamValidator.expecting(knowPet)
+                    .ignoring("status")
+                    .validate(response.asByteArray());
+            AssertionReporter.verifyObjectEquals("Pet body mismatches", mismatches, Collections.emptyList());
         } else {
             // If we're using local data (API returned 404), just log this fact
             Serenity.recordReportData()
@@ -174,36 +211,21 @@ public class PetSteps {
         assertThat(petResponse.getPhotoUrls()).isNotNull();
         assertThat(petResponse.getPhotoUrls().size()).isEqualTo(knowPet.getPhotoUrls().size());
 
-        // Verify each photo URL
         for (int i = 0; i < knowPet.getPhotoUrls().size(); i++) {
-            final int index = i; // Need final variable for lambda
-            String expectedUrl = knowPet.getPhotoUrls().get(index);
-            String actualUrl = petResponse.getPhotoUrls().get(index);
-
-            AssertionReporter.verifyStringEquals("Photo URL [" + index + "]", actualUrl, expectedUrl);
-
-            if (lastResponse().getStatusCode() == 200) {
-                then().body("photoUrls[" + index + "]", Matchers.equalTo(expectedUrl));
-            }
+            AssertionReporter.verifyStringEquals("Photo URL [" + i + "]",
+                    petResponse.getPhotoUrls().get(i), knowPet.getPhotoUrls().get(i));
         }
 
         // Tags verification
         assertThat(petResponse.getTags()).isNotNull();
         assertThat(petResponse.getTags().size()).isEqualTo(knowPet.getTags().size());
 
-        // Verify each tag
         for (int i = 0; i < knowPet.getTags().size(); i++) {
-            final int index = i; // Need final variable for lambda
-            Tag expectedTag = knowPet.getTags().get(index);
-            Tag actualTag = petResponse.getTags().get(index);
-
-            AssertionReporter.verifyNumberEquals("Tag ID [" + index + "]", actualTag.getId(), expectedTag.getId());
-            AssertionReporter.verifyStringEquals("Tag Name [" + index + "]", actualTag.getName(), expectedTag.getName());
+            Tag expectedTag = knowPet.getTags().get(i);
+            Tag actualTag = petResponse.getTags().get(i);
 
-            if (lastResponse().getStatusCode() == 200) {
-                then().body("tags[" + index + "].id", Matchers.equalTo(expectedTag.getId().intValue()));
-                then().body("tags[" + index + "].name", Matchers.equalTo(expectedTag.getName()));
-            }
+            AssertionReporter.verifyNumberEquals("Tag ID [" + i + "]", actualTag.getId(), expectedTag.getId());
+            AssertionReporter.verifyStringEquals("Tag Name [" + i + "]", actualTag.getName(), expectedTag.getName());
         }
 
     }
@@ -216,14 +238,9 @@ public class PetSteps {
 
     @When("I update the pet status to {string}")
     public void iUpdateThePetStatusTo(String newStatus) {
-
-        knowPet.setStatus(newStatus);
-
-        Response response = given()
-                .baseUri("https://petstore.swagger.io/v2")
-                .contentType(ContentType.JSON)
-                .accept(ContentType.JSON)
-                .body(knowPet)
+        response = given()
+                .spec(PetstoreClient.json())
+                .body(BodyTemplates.knownPet(newStatus))
                 .when()
                 .put("/pet");
 
@@ -232,12 +249,49 @@ public class PetSteps {
 
     @Then("the update should be successful")
     public void theUpdateShouldBeSuccessful() {
-        then().statusCode(200);
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), 200);
+        response.then().statusCode(200);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), 200);
+        AssertionReporter.verifyContract("Pet response", ResponseContracts.PET, response.asByteArray());
     }
 
     @And("when I retrieve the pet details")
     public void whenIRetrieveThePetDetails() {
-        iSendRequestToGetPetDetails();
+        // Checks what the update stored, so always asks the server
+        ResponseCache.bypass(() -> {
+            iSendRequestToGetPetDetails();
+            return null;
+        });
+    }
+
+    @When("I search for pets with status {string}")
+    public void iSearchForPetsWithStatus(String status) throws IOException {
+        // Sent through java.net.http rather than RestAssured, which buffers and logs the whole body; pets are
+        // checked one at a time while the response is read, so the list is never held in memory
+        HttpResponse<InputStream> found = AsyncPetstoreClient.join(AsyncPetstoreClient.shared()
+                .getStream("/pet/findByStatus?status=" + URLEncoder.encode(status, StandardCharsets.UTF_8)));
+        try (InputStream body = found.body()) {
+            AssertionReporter.verifyNumberEquals("Status code", found.statusCode(), 200);
+            searchSummary = PetStreamConsumer.forStatus(status).consume(body);
+        }
+
+        Serenity.recordReportData()
+                .withTitle("Pet Search Summary")
+                .andContents(searchSummary.toString());
+    }
+
+    @Then("every pet found should have status {string}")
+    public void everyPetFoundShouldHaveStatus(String status) {
+        AssertionReporter.verifyNumberAtLeast("Pets found", searchSummary.getPets(), 1);
+        AssertionReporter.verifyLongEquals("Pets not in status " + status,
+                searchSummary.getViolations(PetStreamConsumer.Summary.HAS_STATUS), 0L);
+    }
+
+    @And("every pet found should have a unique ID")
+    public void everyPetFoundShouldHaveAUniqueID() {
+        AssertionReporter.verifyNumberAtLeast("Pets found", searchSummary.getPets(), 1);
+        AssertionReporter.verifyLongEquals("Pets without ID",
+                searchSummary.getViolations(PetStreamConsumer.Summary.HAS_ID), 0L);
+        AssertionReporter.verifyLongEquals("Pets with a duplicate ID",
+                searchSummary.getViolations(PetStreamConsumer.Summary.DUPLICATE_ID), 0L);
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,29 @@
 package org.petstore.stepDefinition;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import io.cucumber.java.en.*;
 import io.cucumber.datatable.DataTable;
-import io.restassured.http.ContentType;
+import io.restassured.RestAssured;
 import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
 import net.serenitybdd.core.Serenity;
+import org.petstore.client.AsyncPetstoreClient;
+import org.petstore.client.PetstoreClient;
+import org.petstore.client.ResponseCache;
 import org.petstore.pojo.request.OrderRequest;
 import org.petstore.pojo.response.OrderResponse;
 import org.petstore.utils.AssertionReporter;
+import org.petstore.utils.Evidence;
+import org.petstore.utils.JsonUtils;
+import org.petstore.utils.LatencyProbe;
+import org.petstore.utils.ResponseContracts;
 
+import java.io.IOException;
+import java.net.http.HttpResponse;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 import static net.serenitybdd.rest.SerenityRest.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,6 +35,9 @@ public class StoreSteps {
     private Long orderId;
     private String apiKey;
     private Map<String, Integer> inventoryMap;
+    private Response response; // last response of this scenario; glue instances are per scenario
+    private HttpResponse<byte[]> orderLookup;
+    private HttpResponse<byte[]> inventoryLookup;
 
     @Given("I am authenticated as a store manager")
     public void iAmAuthenticatedAsAStoreManager(DataTable dataTable) {
@@ -67,10 +82,8 @@ public class StoreSteps {
     @When("I send request to place the order")
     public void iSendRequestToPlaceTheOrder() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
-                    .contentType(ContentType.JSON)
-                    .accept(ContentType.JSON)
+            response = given()
+                    .spec(PetstoreClient.json())
                     .header("api_key", apiKey)
                     .body(orderRequest)
                     .when()
@@ -93,11 +106,12 @@ public class StoreSteps {
 
     @Then("the order should be created successfully")
     public void theOrderShouldBeCreatedSuccessfully() {
-        then().statusCode(200);
+        response.then().statusCode(200);
         assertThat(orderResponse).isNotNull();
         assertThat(orderResponse.getId()).isNotNull();
 
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), 200);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), 200);
+        AssertionReporter.verifyContract("Order response", ResponseContracts.ORDER, response.asByteArray());
     }
 
     @And("I should get a valid order ID")
@@ -111,13 +125,14 @@ public class StoreSteps {
     @When("I retrieve the order by ID")
     public void iRetrieveTheOrderByID() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
+            response = given()
+                    .spec(PetstoreClient.base())
                     .header("api_key", apiKey)
                     .when()
                     .get("/store/order/" + orderId);
 
             if (response.getStatusCode() == 200) {
+                AssertionReporter.verifyContract("Order response", ResponseContracts.ORDER, response.asByteArray());
                 orderResponse = response.getBody().as(OrderResponse.class);
 
                 Serenity.recordReportData()
@@ -126,10 +141,7 @@ public class StoreSteps {
                                 "\nPet ID: " + orderResponse.getPetId() +
                                 "\nStatus: " + orderResponse.getStatus());
             } else {
-                Serenity.recordReportData()
-                        .withTitle("Order Retrieval Failed")
-                        .andContents("Status code: " + response.getStatusCode() +
-                                "\nResponse: " + response.getBody().asString());
+                Evidence.recordResponse("Order Retrieval Failed", response);
             }
         } catch (Exception e) {
             Serenity.recordReportData()
@@ -142,8 +154,8 @@ public class StoreSteps {
 
     @Then("I should get status code {int}")
     public void iShouldGetStatusCode(int expectedStatusCode) {
-        then().statusCode(expectedStatusCode);
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), expectedStatusCode);
+        response.then().statusCode(expectedStatusCode);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), expectedStatusCode);
     }
 
     @And("the order details should match the created order")
@@ -162,7 +174,7 @@ public class StoreSteps {
         try {
             // Get the current order data first
             Response getResponse = given()
-                    .baseUri("https://petstore.swagger.io/v2")
+                    .spec(PetstoreClient.base())
                     .header("api_key", apiKey)
                     .when()
                     .get("/store/order/" + orderId);
@@ -183,10 +195,8 @@ public class StoreSteps {
             // Send the update request
             // Note: Pet Store API doesn't have a direct endpoint to update an order
             // In a real API that supports PUT for orders, we would use:
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
-                    .contentType(ContentType.JSON)
-                    .accept(ContentType.JSON)
+            response = given()
+                    .spec(PetstoreClient.json())
                     .header("api_key", apiKey)
                     .body(updatedOrder)
                     .when()
@@ -208,8 +218,8 @@ public class StoreSteps {
 
     @Then("the order should be updated successfully")
     public void theOrderShouldBeUpdatedSuccessfully() {
-        then().statusCode(200);
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), 200);
+        response.then().statusCode(200);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), 200);
     }
 
     @And("the updated order should have status {string}")
@@ -221,8 +231,8 @@ public class StoreSteps {
     @When("I delete the order")
     public void iDeleteTheOrder() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
+            response = given()
+                    .spec(PetstoreClient.base())
                     .header("api_key", apiKey)
                     .when()
                     .delete("/store/order/" + orderId);
@@ -241,17 +251,18 @@ public class StoreSteps {
 
     @Then("the order should be deleted successfully")
     public void theOrderShouldBeDeletedSuccessfully() {
-        then().statusCode(200);
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), 200);
+        response.then().statusCode(200);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), 200);
     }
 
     @And("I should not be able to retrieve the order")
     public void iShouldNotBeAbleToRetrieveTheOrder() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
+            // Checks that the delete took effect, so always asks the server
+            response = ResponseCache.bypass(() -> given()
+                    .spec(PetstoreClient.base())
                     .when()
-                    .get("/store/order/" + orderId);
+                    .get("/store/order/" + orderId));
 
             // The Pet Store API returns 404 for non-existent orders
             assertThat(response.getStatusCode()).isEqualTo(404);
@@ -265,11 +276,7 @@ public class StoreSteps {
     @When("I request the store inventory")
     public void iRequestTheStoreInventory() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
-                    .header("api_key", apiKey)
-                    .when()
-                    .get("/store/inventory");
+            response = getInventory(given());
 
             inventoryMap = response.getBody().as(Map.class);
 
@@ -294,11 +301,61 @@ public class StoreSteps {
         }
     }
 
+    @When("I send {int} requests to get the store inventory with concurrency {int}")
+    public void iSendRequestsToGetTheStoreInventoryWithConcurrency(int requests, int concurrency) {
+        LatencyProbe.run("GET /store/inventory", requests, concurrency, () -> getInventory(RestAssured.given()));
+    }
+
+    /**
+     * Builds the inventory request on a SerenityRest start for the scenario's own calls, or a
+     * plain RestAssured one for measured runs.
+     */
+    private Response getInventory(RequestSpecification request) {
+        return request
+                .spec(PetstoreClient.base())
+                .header("api_key", apiKey)
+                .when()
+                .get("/store/inventory");
+    }
+
+    /**
+     * Sends the order and inventory lookups together on the async client and waits for both,
+     * instead of one after the other.
+     */
+    @When("I retrieve the order and the store inventory concurrently")
+    public void iRetrieveTheOrderAndTheStoreInventoryConcurrently() throws IOException {
+        AsyncPetstoreClient client = AsyncPetstoreClient.shared();
+        CompletableFuture<HttpResponse<byte[]>> order = client.get("/store/order/" + orderId, "api_key", apiKey);
+        CompletableFuture<HttpResponse<byte[]>> inventory = client.get("/store/inventory", "api_key", apiKey);
+        orderLookup = AsyncPetstoreClient.join(order);
+        inventoryLookup = AsyncPetstoreClient.join(inventory);
+
+        if (orderLookup.statusCode() == 200) {
+            orderResponse = JsonUtils.mapper().readValue(orderLookup.body(), OrderResponse.class);
+        }
+        if (inventoryLookup.statusCode() == 200) {
+            inventoryMap = JsonUtils.mapper().readValue(inventoryLookup.body(),
+                    new TypeReference<Map<String, Integer>>() {
+                    });
+        }
+    }
+
+    @Then("both lookups should succeed")
+    public void bothLookupsShouldSucceed() {
+        assertThat(orderLookup.statusCode()).isEqualTo(200);
+        assertThat(inventoryLookup.statusCode()).isEqualTo(200);
+        AssertionReporter.verifyNumberEquals("Order status code", orderLookup.statusCode(), 200);
+        AssertionReporter.verifyNumberEquals("Inventory status code", inventoryLookup.statusCode(), 200);
+        AssertionReporter.verifyContract("Order response", ResponseContracts.ORDER, orderLookup.body());
+        AssertionReporter.verifyContract("Inventory response", ResponseContracts.INVENTORY, inventoryLookup.body());
+    }
+
     @Then("I should get the inventory status")
     public void iShouldGetTheInventoryStatus() {
-        then().statusCode(200);
+        response.then().statusCode(200);
         assertThat(inventoryMap).isNotNull();
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), 200);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), 200);
+        AssertionReporter.verifyContract("Inventory response", ResponseContracts.INVENTORY, response.asByteArray());
     }
 
     @And("the inventory should contain status counts")
@@ -327,16 +384,13 @@ public class StoreSteps {
     @When("I try to retrieve an order with ID {long}")
     public void iTryToRetrieveAnOrderWithID(long invalidId) {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
+            response = given()
+                    .spec(PetstoreClient.base())
                     .header("api_key", apiKey)
                     .when()
                     .get("/store/order/" + invalidId);
 
-            Serenity.recordReportData()
-                    .withTitle("Invalid Order Retrieval")
-                    .andContents("Status code: " + response.getStatusCode() +
-                            "\nResponse: " + response.getBody().asString());
+            Evidence.recordResponse("Invalid Order Retrieval", response);
         } catch (Exception e) {
             Serenity.recordReportData()
                     .withTitle("Order Retrieval Error")
@@ -348,23 +402,23 @@ public class StoreSteps {
 
     @And("I should receive an error message with {string} for the order")
     public void iShouldReceiveAnErrorMessageForTheOrder(String expectedErrorMessage) {
-        String responseBody = lastResponse().getBody().asString();
+        String responseBody = response.getBody().asString();
 
         try {
             //JSON path extraction
-            String errorMessage = lastResponse().jsonPath().getString("message");
+            String errorMessage = response.jsonPath().getString("message");
             assertThat(errorMessage.toLowerCase()).contains(expectedErrorMessage);
 
             Serenity.recordReportData()
                     .withTitle("Error Message")
-                    .andContents("JSON Response: " + responseBody +
+                    .andContents("JSON Response: " + Evidence.preview(response) +
                             "\nExtracted Error Message: " + errorMessage);
         } catch (Exception e) {
             assertThat(responseBody.toLowerCase()).contains(expectedErrorMessage);
 
             Serenity.recordReportData()
                     .withTitle("Error Message (Raw)")
-                    .andContents("JSON Response: " + responseBody +
+                    .andContents("JSON Response: " + Evidence.preview(response) +
                             "\nNote: JSON parsing failed, using raw string check");
         }
     }
@@ -372,16 +426,13 @@ public class StoreSteps {
     @When("I try to delete an order with ID {long}")
     public void iTryToDeleteAnOrderWithID(long invalidId) {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
+            response = given()
+                    .spec(PetstoreClient.base())
                     .header("api_key", apiKey)
                     .when()
                     .delete("/store/order/" + invalidId);
 
-            Serenity.recordReportData()
-                    .withTitle("Invalid Order Deletion")
-                    .andContents("Status code: " + response.getStatusCode() +
-                            "\nResponse: " + response.getBody().asString());
+            Evidence.recordResponse("Invalid Order Deletion", response);
         } catch (Exception e) {
             Serenity.recordReportData()
                     .withTitle("Order Deletion Error")
@@ -404,19 +455,14 @@ public class StoreSteps {
     @When("I try to place the invalid order")
     public void iTryToPlaceTheInvalidOrder() {
         try {
-            Response response = given()
-                    .baseUri("https://petstore.swagger.io/v2")
-                    .contentType(ContentType.JSON)
-                    .accept(ContentType.JSON)
+            response = given()
+                    .spec(PetstoreClient.json())
                     .header("api_key", apiKey)
                     .body(orderRequest)
                     .when()
                     .post("/store/order");
 
-            Serenity.recordReportData()
-                    .withTitle("Invalid Order Placement")
-                    .andContents("Status code: " + response.getStatusCode() +
-                            "\nResponse: " + response.getBody().asString());
+            Evidence.recordResponse("Invalid Order Placement", response);
         } catch (Exception e) {
             Serenity.recordReportData()
                     .withTitle("Order Placement Error")
@@ -428,25 +474,23 @@ public class StoreSteps {
 
     @Then("the order creation should fail")
     public void theOrderCreationShouldFail() {
-        assertThat(lastResponse().getStatusCode()).isNotEqualTo(200); // The API might return 400
+        assertThat(response.getStatusCode()).isNotEqualTo(200); // The API might return 400
 
         AssertionReporter.recordComparison(
                 "Order Creation",
                 "Status code",
                 "Not 200 (expected to fail)",
-                lastResponse().getStatusCode()
+                response.getStatusCode()
         );
     }
 
     @And("I should get appropriate validation errors")
     public void iShouldGetAppropriateValidationErrors() {
-        String responseBody = lastResponse().getBody().asString();
+        String responseBody = response.getBody().asString();
 
         assertThat(responseBody).containsAnyOf("error", "invalid", "missing");
 
-        Serenity.recordReportData()
-                .withTitle("Validation Error Response")
-                .andContents(responseBody);
+        Evidence.recordBody("Validation Error Response", response);
     }
 
 }
\ No newline at end of file
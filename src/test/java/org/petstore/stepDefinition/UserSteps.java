@@ -2,11 +2,12 @@ package org.petstore.stepDefinition;
 
 import io.cucumber.java.en.*;
 import io.cucumber.datatable.DataTable;
-import io.restassured.http.ContentType;
 import io.restassured.response.Response;
-import net.serenitybdd.core.Serenity;
+import org.petstore.client.PetstoreClient;
 import org.petstore.pojo.request.UserRequest;
 import org.petstore.utils.AssertionReporter;
+import org.petstore.utils.Evidence;
+import org.petstore.utils.ResponseContracts;
 
 import java.util.List;
 import java.util.Map;
@@ -21,6 +22,7 @@ public class UserSteps {
     private String password;
     private String adminUsername;
     private String adminPassword;
+    private Response response; // last response of this scenario; glue instances are per scenario
 
     @Given("I have admin credentials")
     public void iHaveAdminCredentials(DataTable dataTable) {
@@ -51,38 +53,46 @@ public class UserSteps {
 
     @When("I send request to create a new user")
     public void iSendRequestToCreateANewUser() {
-        Response response = given()
-                .baseUri("https://petstore.swagger.io/v2")
-                .contentType(ContentType.JSON)
-                .accept(ContentType.JSON)
+        response = given()
+                .spec(PetstoreClient.json())
                 .header("api_key", "special-key") // Example API key
                 .body(userRequest)
                 .when()
                 .post("/user");
 
-        Serenity.recordReportData()
-                .withTitle("User Creation Response")
-                .andContents(response.getBody().asString());
+        Evidence.recordBody("User Creation Response", response);
     }
 
     @Then("the user should be created successfully")
     public void theUserShouldBeCreatedSuccessfully() {
-        then().statusCode(200);
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), 200);
+        response.then().statusCode(200);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), 200);
+        AssertionReporter.verifyContract("User creation response", ResponseContracts.API_RESPONSE,
+                response.asByteArray());
+
+        Response created = given()
+                .spec(PetstoreClient.base())
+                .when()
+                .get("/user/" + username);
+
+        AssertionReporter.verifyNumberEquals("User lookup status code", created.statusCode(), 200);
+        AssertionReporter.verifyContract("User response", ResponseContracts.USER, created.asByteArray());
+        AssertionReporter.verifyStringEquals("Username", created.jsonPath().getString("username"), username);
     }
 
     @And("I can login with the new user credentials")
     public void iCanLoginWithTheNewUserCredentials() {
-        Response response = given()
-                .baseUri("https://petstore.swagger.io/v2")
+        response = given()
+                .spec(PetstoreClient.base())
                 .queryParam("username", username)
                 .queryParam("password", password)
                 .when()
                 .get("/user/login");
 
-        then().statusCode(200);
+        response.then().statusCode(200);
 
         AssertionReporter.verifyNumberEquals("Login Status code", response.getStatusCode(), 200);
+        AssertionReporter.verifyContract("Login response", ResponseContracts.API_RESPONSE, response.asByteArray());
     }
 
     @Given("I have an existing user {string}")
@@ -92,33 +102,31 @@ public class UserSteps {
 
     @When("I send request to delete the user")
     public void iSendRequestToDeleteTheUser() {
-        Response response = given()
-                .baseUri("https://petstore.swagger.io/v2")
+        response = given()
+                .spec(PetstoreClient.base())
                 .header("api_key", "special-key") // Example API key
                 .when()
                 .delete("/user/" + username);
 
-        Serenity.recordReportData()
-                .withTitle("User Deletion Response")
-                .andContents(response.getBody().asString());
+        Evidence.recordBody("User Deletion Response", response);
     }
 
     @Then("the user should be deleted successfully")
     public void theUserShouldBeDeletedSuccessfully() {
-        then().statusCode(200);
-        AssertionReporter.verifyNumberEquals("Status code", lastResponse().statusCode(), 200);
+        response.then().statusCode(200);
+        AssertionReporter.verifyNumberEquals("Status code", response.statusCode(), 200);
     }
 
     @And("I cannot login with the deleted user credentials")
     public void iCannotLoginWithTheDeletedUserCredentials() {
-        Response response = given()
-                .baseUri("https://petstore.swagger.io/v2")
+        response = given()
+                .spec(PetstoreClient.base())
                 .queryParam("username", username)
                 .queryParam("password", password)
                 .when()
                 .get("/user/login");
 
-        then().statusCode(400); // Should fail with 400 Bad Request
+        response.then().statusCode(400); // Should fail with 400 Bad Request
 
         AssertionReporter.verifyNumberEquals("Failed Login Status code", response.getStatusCode(), 400);
     }
@@ -0,0 +1,52 @@
+package org.petstore.utils;
+
+import org.petstore.server.PetstoreStubServer;
+
+import java.io.IOException;
+
+/**
+ * Resolves the Petstore base URI used by every step definition.
+ * <p>
+ * By default the public API is targeted. Running with {@code -Dpetstore.stub=true}
+ * starts the embedded {@link PetstoreStubServer} once per JVM and points all steps at it,
+ * while {@code -Dpetstore.baseUri=...} targets any other deployment (e.g. a staging host).
+ */
+public class ApiConfig {
+
+    public static final String DEFAULT_BASE_URI = "https://petstore.swagger.io/v2";
+
+    private static volatile String baseUri;
+
+    /**
+     * @return The base URI the step definitions should send requests to
+     */
+    public static String baseUri() {
+        String resolved = baseUri;
+        if (resolved == null) {
+            synchronized (ApiConfig.class) {
+                resolved = baseUri;
+                if (resolved == null) {
+                    resolved = resolveBaseUri();
+                    baseUri = resolved;
+                }
+            }
+        }
+        return resolved;
+    }
+
+    private static String resolveBaseUri() {
+        if (Boolean.getBoolean("petstore.stub")) {
+            try {
+                int port = Integer.getInteger("petstore.stub.port", 0);
+                int threads = Integer.getInteger("petstore.stub.threads",
+                        Runtime.getRuntime().availableProcessors() * 4);
+                PetstoreStubServer stub = new PetstoreStubServer(port, threads).start();
+                Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+                return stub.getBaseUri();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to start the Petstore stand-in server", e);
+            }
+        }
+        return System.getProperty("petstore.baseUri", DEFAULT_BASE_URI);
+    }
+}
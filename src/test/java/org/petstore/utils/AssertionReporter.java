@@ -1,18 +1,41 @@
 package org.petstore.utils;
 
+import net.serenitybdd.core.Reportable;
 import net.serenitybdd.core.Serenity;
 import net.serenitybdd.annotations.Step;
+import net.thucydides.core.steps.StepEventBus;
+import org.petstore.contract.JsonContract;
+import org.petstore.jfr.CheckEvent;
+
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * Utility class for creating detailed assertions in Serenity reports.
  * This class provides methods to verify different types of values and display
  * the actual and expected values in the Serenity reports.
+ * <p>
+ * Passing checks take a fast path: nothing is formatted and nothing is sent to Serenity,
+ * the field name is only remembered and {@link #flushPassedChecks()} writes one evidence
+ * record per step. Messages are built only when a check fails, or for every check when
+ * verbose evidence is enabled with {@code -Dpetstore.assertions.verbose=true}.
+ * Outside a Serenity run (e.g. inside load loops) failures are thrown as plain
+ * {@link AssertionError}s, so the same verifications can be used there.
  */
 public class AssertionReporter {
 
+    private static final boolean VERBOSE = Boolean.getBoolean("petstore.assertions.verbose");
+
+    private static final int MAX_REMEMBERED_CHECKS = 64;
+
+    private static final ThreadLocal<PassedChecks> passedChecks = ThreadLocal.withInitial(PassedChecks::new);
+
+    private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
     /**
      * Verifies that a string value matches the expected value.
      *
@@ -22,12 +45,14 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} '{1}' matches expected value '{2}'")
     public static void verifyStringEquals(String fieldName, String actualValue, String expectedValue) {
-        boolean result = Objects.equals(actualValue, expectedValue);
-
+        if (!VERBOSE && Objects.equals(actualValue, expectedValue)) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Field '%s' - Expected: '%s', Actual: '%s'",
                 fieldName, expectedValue, actualValue);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
                 .isEqualTo(expectedValue));
     }
 
@@ -40,10 +65,14 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} '{1}' matches expected value '{2}'")
     public static void verifyNumberEquals(String fieldName, Number actualValue, Number expectedValue) {
+        if (!VERBOSE && Objects.equals(actualValue, expectedValue)) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Field '%s' - Expected: '%s', Actual: '%s'",
                 fieldName, expectedValue, actualValue);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
                 .isEqualTo(expectedValue));
     }
 
@@ -56,10 +85,14 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} '{1}' matches expected value '{2}'")
     public static void verifyLongEquals(String fieldName, Long actualValue, Long expectedValue) {
+        if (!VERBOSE && Objects.equals(actualValue, expectedValue)) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Field '%s' - Expected: '%s', Actual: '%s'",
                 fieldName, expectedValue, actualValue);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
                 .isEqualTo(expectedValue));
     }
 
@@ -72,10 +105,14 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} '{1}' matches expected value '{2}'")
     public static void verifyBooleanEquals(String fieldName, Boolean actualValue, Boolean expectedValue) {
+        if (!VERBOSE && Objects.equals(actualValue, expectedValue)) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Field '%s' - Expected: '%s', Actual: '%s'",
                 fieldName, expectedValue, actualValue);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
                 .isEqualTo(expectedValue));
     }
 
@@ -88,10 +125,14 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} matches expected value")
     public static <T> void verifyObjectEquals(String fieldName, T actualValue, T expectedValue) {
+        if (!VERBOSE && Objects.equals(actualValue, expectedValue)) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Field '%s' - Expected: '%s', Actual: '%s'",
                 fieldName, expectedValue, actualValue);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
                 .isEqualTo(expectedValue));
     }
 
@@ -104,9 +145,13 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} contains expected value '{2}'")
     public static <T> void verifyCollectionContains(String fieldName, Collection<T> actualValues, T expectedValue) {
+        if (!VERBOSE && actualValues != null && actualValues.contains(expectedValue)) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Collection '%s' should contain: '%s'", fieldName, expectedValue);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValues)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValues)
                 .contains(expectedValue));
     }
 
@@ -119,10 +164,14 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} '{1}' contains '{2}'")
     public static void verifyStringContains(String fieldName, String actualValue, String expectedPart) {
+        if (!VERBOSE && actualValue != null && expectedPart != null && actualValue.contains(expectedPart)) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Field '%s' with value '%s' should contain '%s'",
                 fieldName, actualValue, expectedPart);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
                 .contains(expectedPart));
     }
 
@@ -135,10 +184,14 @@ public class AssertionReporter {
      */
     @Step("Verify that {0} '{1}' matches pattern '{2}'")
     public static void verifyStringMatches(String fieldName, String actualValue, String pattern) {
+        if (!VERBOSE && actualValue != null && patterns.computeIfAbsent(pattern, Pattern::compile).matcher(actualValue).matches()) {
+            passed(fieldName);
+            return;
+        }
         String message = String.format("Field '%s' with value '%s' should match pattern '%s'",
                 fieldName, actualValue, pattern);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
                 .matches(pattern));
     }
 
@@ -183,13 +236,57 @@ public class AssertionReporter {
      */
     @Step("Verify HTTP status code")
     public static void verifyStatusCode(int actualStatusCode, int expectedStatusCode) {
+        if (!VERBOSE && actualStatusCode == expectedStatusCode) {
+            passed("HTTP Status Code");
+            return;
+        }
         String message = String.format("HTTP Status Code - Expected: %d, Actual: %d",
                 expectedStatusCode, actualStatusCode);
 
-        Serenity.reportThat(message, () -> org.assertj.core.api.Assertions.assertThat(actualStatusCode)
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualStatusCode)
                 .isEqualTo(expectedStatusCode));
     }
 
+    /**
+     * Verifies that a measured value does not exceed a limit.
+     *
+     * @param fieldName   Name of the value being verified
+     * @param actualValue The measured value
+     * @param limit       The largest acceptable value
+     */
+    @Step("Verify that {0} '{1}' is at most '{2}'")
+    public static void verifyNumberAtMost(String fieldName, double actualValue, double limit) {
+        if (!VERBOSE && actualValue <= limit) {
+            passed(fieldName);
+            return;
+        }
+        String message = String.format("Field '%s' - Expected at most: '%s', Actual: '%s'",
+                fieldName, limit, actualValue);
+
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+                .isLessThanOrEqualTo(limit));
+    }
+
+    /**
+     * Verifies that a measured value reaches a limit.
+     *
+     * @param fieldName   Name of the value being verified
+     * @param actualValue The measured value
+     * @param limit       The smallest acceptable value
+     */
+    @Step("Verify that {0} '{1}' is at least '{2}'")
+    public static void verifyNumberAtLeast(String fieldName, double actualValue, double limit) {
+        if (!VERBOSE && actualValue >= limit) {
+            passed(fieldName);
+            return;
+        }
+        String message = String.format("Field '%s' - Expected at least: '%s', Actual: '%s'",
+                fieldName, limit, actualValue);
+
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(actualValue)
+                .isGreaterThanOrEqualTo(limit));
+    }
+
     /**
      * Records a comparison between expected and actual values with formatting.
      *
@@ -204,4 +301,119 @@ public class AssertionReporter {
                 .andContents(String.format("%s:\n- Expected: %s\n- Actual: %s",
                         fieldName, expectedValue, actualValue));
     }
+
+    /**
+     * Verifies that a response body honours a compiled contract.
+     *
+     * @param fieldName Name of the body being verified (e.g. "Pet response")
+     * @param contract  The contract of the body
+     * @param body      The raw response body
+     */
+    @Step("Verify that {0} honours its contract")
+    public static void verifyContract(String fieldName, JsonContract contract, byte[] body) {
+        List<String> violations = contract.validate(body);
+        if (!VERBOSE && violations.isEmpty()) {
+            passed(fieldName);
+            return;
+        }
+        String message = String.format("Field '%s' - Contract violations: %s", fieldName, violations);
+
+        report(message, () -> org.assertj.core.api.Assertions.assertThat(violations)
+                .isEmpty());
+    }
+
+    /**
+     * Writes the checks that passed on this thread since the last flush as a single evidence
+     * record, and resets the batch. Called once per step by the Cucumber hooks.
+     *
+     * @return Number of passed checks that were flushed
+     */
+    public static int flushPassedChecks() {
+        PassedChecks checks = passedChecks.get();
+        int count = checks.count;
+        if (count > 0 && serenityIsRunning()) {
+            CheckEvent event = new CheckEvent();
+            event.begin();
+            Serenity.recordReportData()
+                    .withTitle("Passed checks (" + count + ")")
+                    .andContents(checks.describe());
+            event.end();
+            if (event.shouldCommit()) {
+                event.check = "Passed checks";
+                event.checks = count;
+                event.passed = true;
+                event.commit();
+            }
+        }
+        checks.reset();
+        return count;
+    }
+
+    private static void passed(String fieldName) {
+        passedChecks.get().add(fieldName);
+    }
+
+    private static void report(String message, Reportable assertion) {
+        CheckEvent event = new CheckEvent();
+        event.begin();
+        boolean passed = false;
+        try {
+            if (serenityIsRunning()) {
+                Serenity.reportThat(message, assertion);
+            } else {
+                try {
+                    assertion.perform();
+                } catch (AssertionError e) {
+                    throw new AssertionError(message, e);
+                }
+            }
+            passed = true;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.check = message;
+                event.checks = 1;
+                event.passed = passed;
+                event.commit();
+            }
+        }
+    }
+
+    static boolean serenityIsRunning() {
+        return StepEventBus.getEventBus().isBaseStepListenerRegistered();
+    }
+
+    /**
+     * Names of the checks that passed on one thread, bounded so load loops that never flush
+     * keep a constant footprint.
+     */
+    private static final class PassedChecks {
+        private final String[] names = new String[MAX_REMEMBERED_CHECKS];
+        private int count;
+
+        void add(String name) {
+            if (count < names.length) {
+                names[count] = name;
+            }
+            count++;
+        }
+
+        String describe() {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < Math.min(count, names.length); i++) {
+                content.append("- ").append(names[i]).append('\n');
+            }
+            if (count > names.length) {
+                content.append("... and ").append(count - names.length).append(" more\n");
+            }
+            return content.toString();
+        }
+
+        void reset() {
+            for (int i = 0; i < Math.min(count, names.length); i++) {
+                names[i] = null;
+            }
+            count = 0;
+        }
+    }
 }
\ No newline at end of file
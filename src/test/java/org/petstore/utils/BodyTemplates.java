@@ -0,0 +1,43 @@
+package org.petstore.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.petstore.load.BodyTemplate;
+
+/**
+ * Request bodies serialized once and patched per request, for steps that send the same
+ * POJO over and over with only an id or status changed (see {@link BodyTemplate}).
+ * <p>
+ * The bytes are sent with {@code .body(byte[])} under the JSON spec, so RestAssured does not
+ * map the POJO again.
+ */
+public class BodyTemplates {
+
+    private static final class KnownPet {
+        private static final BodyTemplate TEMPLATE = of(JsonUtils.loadKnownPet()).text("status", 32).build();
+        private static final int STATUS = TEMPLATE.slot("status");
+    }
+
+    /**
+     * Serializes a request POJO, to be templated.
+     *
+     * @param pojo Request object holding the values shared by every request
+     * @return Builder to name the slots on
+     */
+    public static BodyTemplate.Builder of(Object pojo) {
+        try {
+            return BodyTemplate.builder(JsonUtils.mapper().writeValueAsBytes(pojo));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize " + pojo.getClass().getSimpleName() + " template", e);
+        }
+    }
+
+    /**
+     * @param status Status to give the known pet
+     * @return PUT /pet body of the known pet fixture with the given status
+     */
+    public static byte[] knownPet(String status) {
+        byte[] body = KnownPet.TEMPLATE.newBody();
+        KnownPet.TEMPLATE.set(body, KnownPet.STATUS, status);
+        return body;
+    }
+}
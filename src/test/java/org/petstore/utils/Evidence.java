@@ -0,0 +1,273 @@
+package org.petstore.utils;
+
+import io.restassured.response.Response;
+import net.serenitybdd.core.Serenity;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records response bodies as Serenity report data without letting large bodies dominate memory and I/O.
+ * <p>
+ * The report only gets the first {@code petstore.evidence.maxInlineBytes} bytes of a body (4 KiB by default).
+ * When a body is longer, the full body (capped at {@code petstore.evidence.maxFileBytes}, 1 MiB by default)
+ * is handed to a background writer under {@code petstore.evidence.dir} ({@code target/evidence} by default)
+ * and the report links to the file. The writer holds at most {@code petstore.evidence.queueBytes} (64 MiB)
+ * of pending bodies; anything beyond that is dropped and counted, the request thread never waits on disk.
+ * Bodies are cut to the file size as soon as they are recorded, so neither held back nor queued bodies
+ * keep a longer copy alive.
+ * <p>
+ * Sampling: {@code -Dpetstore.evidence.sampleEvery=N} keeps the body of every Nth response only, and
+ * {@code -Dpetstore.evidence.failuresOnly=true} holds bodies back until the scenario ends and records
+ * them only if it failed.
+ */
+public final class Evidence {
+
+    private static final int MAX_INLINE_BYTES = Integer.getInteger("petstore.evidence.maxInlineBytes", 4 * 1024);
+    private static final int MAX_FILE_BYTES = Integer.getInteger("petstore.evidence.maxFileBytes", 1024 * 1024);
+    private static final int SAMPLE_EVERY = Math.max(1, Integer.getInteger("petstore.evidence.sampleEvery", 1));
+    private static final boolean FAILURES_ONLY = Boolean.getBoolean("petstore.evidence.failuresOnly");
+    private static final int MAX_PENDING_PER_SCENARIO = 32;
+
+    private static final AtomicLong sequence = new AtomicLong();
+    private static final ThreadLocal<List<Entry>> pending = ThreadLocal.withInitial(ArrayList::new);
+
+    // Set once the writer holder class is initialized, so flush() does not start a writer just to stop it
+    private static volatile boolean writerStarted;
+
+    private Evidence() {
+    }
+
+    /**
+     * Records the status code and (a preview of) the body of a response.
+     *
+     * @param title    Title of the report data
+     * @param response The response to record
+     */
+    public static void recordResponse(String title, Response response) {
+        record(title, "Status code: " + response.getStatusCode() + "\nResponse: ", response);
+    }
+
+    /**
+     * Records (a preview of) the body of a response.
+     *
+     * @param title    Title of the report data
+     * @param response The response to record
+     */
+    public static void recordBody(String title, Response response) {
+        record(title, "", response);
+    }
+
+    /**
+     * Returns the body of a response cut to the inline size, for use in messages and exceptions.
+     *
+     * @param response The response
+     * @return The (possibly truncated) body
+     */
+    public static String preview(Response response) {
+        byte[] body = response.asByteArray();
+        String preview = utf8Prefix(body, MAX_INLINE_BYTES);
+        return body.length > MAX_INLINE_BYTES ? preview + "... (" + body.length + " bytes)" : preview;
+    }
+
+    /**
+     * Ends the evidence of the current scenario: in failures-only mode the held back bodies are
+     * recorded if the scenario failed and discarded otherwise.
+     *
+     * @param failed Whether the scenario failed
+     */
+    public static void scenarioFinished(boolean failed) {
+        List<Entry> entries = pending.get();
+        if (failed) {
+            entries.forEach(Evidence::publish);
+        }
+        entries.clear();
+    }
+
+    /**
+     * Waits until the background writer has written everything queued so far.
+     *
+     * @return A one-line summary of the files written and bodies dropped
+     */
+    public static String flush() {
+        if (!writerStarted) {
+            return "no files written";
+        }
+        Writer.INSTANCE.awaitDrained();
+        return Writer.INSTANCE.summary();
+    }
+
+    private static void record(String title, String prefix, Response response) {
+        long seq = sequence.incrementAndGet();
+        if (seq % SAMPLE_EVERY != 0) {
+            Serenity.recordReportData()
+                    .withTitle(title)
+                    .andContents(prefix + "(body not sampled)");
+            return;
+        }
+
+        byte[] body = response.asByteArray();
+        Entry entry = new Entry(seq, title, prefix,
+                body.length > MAX_FILE_BYTES ? Arrays.copyOf(body, MAX_FILE_BYTES) : body, body.length);
+        if (FAILURES_ONLY) {
+            List<Entry> entries = pending.get();
+            if (entries.size() < MAX_PENDING_PER_SCENARIO) {
+                entries.add(entry);
+            }
+            return;
+        }
+        publish(entry);
+    }
+
+    private static void publish(Entry entry) {
+        StringBuilder contents = new StringBuilder(entry.prefix).append(utf8Prefix(entry.body, MAX_INLINE_BYTES));
+
+        if (entry.totalLength > MAX_INLINE_BYTES) {
+            contents.append("\n... truncated, ").append(entry.totalLength).append(" bytes in total");
+            Path file = Writer.INSTANCE.submit(entry);
+            if (file != null) {
+                contents.append(", full body in ").append(file);
+            }
+        }
+
+        Serenity.recordReportData()
+                .withTitle(entry.title)
+                .andContents(contents.toString());
+    }
+
+    /**
+     * Decodes at most {@code maxBytes} of a UTF-8 body, ending before a character the cut would split.
+     */
+    private static String utf8Prefix(byte[] body, int maxBytes) {
+        int end = Math.min(body.length, maxBytes);
+        if (end < body.length) {
+            // Back off over continuation bytes (10xxxxxx) to the first byte of the character being cut
+            while (end > 0 && (body[end] & 0xC0) == 0x80) {
+                end--;
+            }
+        }
+        return new String(body, 0, end, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+        private final long sequence;
+        private final String title;
+        private final String prefix;
+        /** Body cut to {@code MAX_FILE_BYTES} */
+        private final byte[] body;
+        private final int totalLength;
+
+        private Entry(long sequence, String title, String prefix, byte[] body, int totalLength) {
+            this.sequence = sequence;
+            this.title = title;
+            this.prefix = prefix;
+            this.body = body;
+            this.totalLength = totalLength;
+        }
+    }
+
+    /**
+     * Single daemon thread writing bodies to disk, bounded by the bytes it holds rather than by entries.
+     */
+    private static final class Writer implements Runnable {
+
+        private static final Writer INSTANCE = new Writer();
+
+        private final Path directory = Paths.get(System.getProperty("petstore.evidence.dir", "target/evidence"));
+        private final long maxQueuedBytes = Long.getLong("petstore.evidence.queueBytes", 64L * 1024 * 1024);
+        private final LinkedBlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+        private final AtomicLong queuedBytes = new AtomicLong();
+        private final LongAdder written = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private Writer() {
+            Thread thread = new Thread(this, "petstore-evidence-writer");
+            thread.setDaemon(true);
+            thread.start();
+            writerStarted = true;
+        }
+
+        Path submit(Entry entry) {
+            int length = entry.body.length;
+            if (queuedBytes.addAndGet(length) > maxQueuedBytes) {
+                queuedBytes.addAndGet(-length);
+                dropped.increment();
+                return null;
+            }
+            Path file = directory.resolve(String.format("%06d-%s.txt", entry.sequence, slug(entry.title)));
+            queue.add(new Job(file, entry.body, length));
+            return file;
+        }
+
+        void awaitDrained() {
+            CountDownLatch drained = new CountDownLatch(1);
+            queue.add(drained);
+            try {
+                drained.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        String summary() {
+            return String.format("%d files written to %s, %d dropped", written.sum(), directory, dropped.sum());
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Object item;
+                try {
+                    item = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (item instanceof CountDownLatch) {
+                    ((CountDownLatch) item).countDown();
+                    continue;
+                }
+                Job job = (Job) item;
+                try {
+                    Files.createDirectories(directory);
+                    try (OutputStream out = Files.newOutputStream(job.file)) {
+                        out.write(job.body, 0, job.length);
+                    }
+                    written.increment();
+                } catch (IOException e) {
+                    dropped.increment();
+                    System.err.println("Could not write evidence " + job.file + ": " + e.getMessage());
+                } finally {
+                    queuedBytes.addAndGet(-job.length);
+                }
+            }
+        }
+
+        private static String slug(String title) {
+            return title.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+        }
+    }
+
+    private static final class Job {
+        private final Path file;
+        private final byte[] body;
+        private final int length;
+
+        private Job(Path file, byte[] body, int length) {
+            this.file = file;
+            this.body = body;
+            this.length = length;
+        }
+    }
+}
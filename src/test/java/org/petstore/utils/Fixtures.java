@@ -0,0 +1,111 @@
+package org.petstore.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Repository of the JSON fixtures under {@code resources/payloads}.
+ * <p>
+ * Each file is read and parsed once into a tree that is kept private and never modified.
+ * Callers get a fresh object of whatever POJO type they ask for, so they can change it
+ * freely (e.g. a step updating the known pet's status) without affecting other scenarios.
+ * {@link #preload()} parses every payload in parallel up front, so parallel runs do not
+ * pay for fixture I/O inside scenarios.
+ */
+public class Fixtures {
+
+    private static final String DIRECTORY = "payloads";
+
+    private static final Map<String, JsonNode> snapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Returns a new object populated from a fixture.
+     *
+     * @param filename The name of the JSON file (without path)
+     * @param type     The POJO type to map the fixture to
+     * @return A fresh copy the caller owns
+     */
+    public static <T> T get(String filename, Class<T> type) {
+        try {
+            return JsonUtils.mapper().treeToValue(snapshot(filename), type);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to map fixture " + filename + " to " + type.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Parses every fixture in the payloads directory in parallel.
+     *
+     * @return Number of fixtures in the repository
+     */
+    public static int preload() {
+        listFixtures().parallelStream().forEach(Fixtures::snapshot);
+        return snapshots.size();
+    }
+
+    private static JsonNode snapshot(String filename) {
+        return snapshots.computeIfAbsent(filename, Fixtures::parse);
+    }
+
+    private static JsonNode parse(String filename) {
+        try (InputStream inputStream = Fixtures.class.getClassLoader()
+                .getResourceAsStream(DIRECTORY + "/" + filename)) {
+
+            if (inputStream == null) {
+                throw new RuntimeException("File not found: " + DIRECTORY + "/" + filename);
+            }
+
+            return JsonUtils.mapper().readTree(inputStream);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load fixture from JSON file: " + filename, e);
+        }
+    }
+
+    private static List<String> listFixtures() {
+        URL url = Fixtures.class.getClassLoader().getResource(DIRECTORY);
+        if (url == null) {
+            return Collections.emptyList();
+        }
+        try {
+            URI uri = url.toURI();
+            if ("jar".equals(uri.getScheme())) {
+                FileSystem fileSystem;
+                try {
+                    fileSystem = FileSystems.newFileSystem(uri, Collections.emptyMap());
+                } catch (FileSystemAlreadyExistsException e) {
+                    fileSystem = FileSystems.getFileSystem(uri);
+                }
+                return list(fileSystem.getPath(DIRECTORY));
+            }
+            return list(Paths.get(uri));
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException("Failed to list fixtures in " + url, e);
+        }
+    }
+
+    private static List<String> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".json"))
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.petstore.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compares an expected object tree against a raw JSON body in a single streaming pass.
+ * <p>
+ * The body is walked token by token with the expected tree followed alongside, so the cost
+ * grows with the body size only, instead of evaluating one JSON path over the whole body per
+ * checked element. Every mismatch is collected with its path (e.g. {@code tags[1].name}).
+ * Objects are matched leniently (fields the expectation does not mention are skipped), arrays
+ * must have the same size and elements in the same order.
+ */
+public class JsonStreamValidator {
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final JsonNode expected;
+    private final Set<String> ignoredPaths = new HashSet<>();
+
+    private JsonStreamValidator(JsonNode expected) {
+        this.expected = expected;
+    }
+
+    /**
+     * @param expected The expected value: a POJO (null fields are not checked) or a {@link JsonNode}
+     * @return A validator for that expectation
+     */
+    public static JsonStreamValidator expecting(Object expected) {
+        JsonNode tree = expected instanceof JsonNode
+                ? (JsonNode) expected
+                : withoutNullFields(JsonUtils.mapper().valueToTree(expected));
+        return new JsonStreamValidator(tree);
+    }
+
+    /**
+     * Drops the null fields of every object in a tree converted from a POJO, so they are not checked.
+     */
+    private static JsonNode withoutNullFields(JsonNode node) {
+        if (node.isObject()) {
+            List<String> nulls = new ArrayList<>();
+            node.fieldNames().forEachRemaining(name -> {
+                if (node.get(name).isNull()) {
+                    nulls.add(name);
+                }
+            });
+            ((ObjectNode) node).remove(nulls);
+        }
+        for (JsonNode child : node) {
+            withoutNullFields(child);
+        }
+        return node;
+    }
+
+    /**
+     * @param paths Paths that are not compared, e.g. {@code "status"} or {@code "tags[0].id"}
+     * @return This validator
+     */
+    public JsonStreamValidator ignoring(String... paths) {
+        ignoredPaths.addAll(Arrays.asList(paths));
+        return this;
+    }
+
+    /**
+     * @param body The raw JSON body
+     * @return Every mismatch found, empty when the body matches the expectation
+     */
+    public List<String> validate(byte[] body) {
+        List<String> mismatches = new ArrayList<>();
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() == null) {
+                mismatches.add("$ - Expected: '" + expected + "', Actual: empty body");
+            } else {
+                validate(parser, expected, "", mismatches);
+            }
+        } catch (IOException e) {
+            mismatches.add("$ - Invalid JSON: " + e.getMessage());
+        }
+        return mismatches;
+    }
+
+    private void validate(JsonParser parser, JsonNode expected, String path, List<String> mismatches) throws IOException {
+        if (ignoredPaths.contains(path)) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken token = parser.currentToken();
+
+        if (expected.isObject()) {
+            if (token != JsonToken.START_OBJECT) {
+                mismatch(mismatches, path, expected, describe(parser));
+                return;
+            }
+            Set<String> seen = new HashSet<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                JsonNode child = expected.get(name);
+                if (child == null) {
+                    parser.skipChildren();
+                } else {
+                    seen.add(name);
+                    validate(parser, child, child(path, name), mismatches);
+                }
+            }
+            for (Iterator<String> names = expected.fieldNames(); names.hasNext(); ) {
+                String name = names.next();
+                String childPath = child(path, name);
+                if (!seen.contains(name) && !ignoredPaths.contains(childPath)) {
+                    mismatches.add(childPath + " - Expected: '" + expected.get(name) + "', Actual: missing");
+                }
+            }
+        } else if (expected.isArray()) {
+            if (token != JsonToken.START_ARRAY) {
+                mismatch(mismatches, path, expected, describe(parser));
+                return;
+            }
+            int index = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (index < expected.size()) {
+                    validate(parser, expected.get(index), path + "[" + index + "]", mismatches);
+                } else {
+                    parser.skipChildren();
+                }
+                index++;
+            }
+            if (index != expected.size()) {
+                mismatches.add((path.isEmpty() ? "$" : path) + " - Expected size: " + expected.size() + ", Actual size: " + index);
+            }
+        } else if (!scalarMatches(parser, token, expected)) {
+            mismatch(mismatches, path, expected, describe(parser));
+        }
+    }
+
+    private static boolean scalarMatches(JsonParser parser, JsonToken token, JsonNode expected) throws IOException {
+        if (expected.isNull()) {
+            return token == JsonToken.VALUE_NULL;
+        }
+        if (expected.isTextual()) {
+            return token == JsonToken.VALUE_STRING && expected.textValue().equals(parser.getText());
+        }
+        if (expected.isNumber()) {
+            return token.isNumeric() && new BigDecimal(parser.getText()).compareTo(expected.decimalValue()) == 0;
+        }
+        if (expected.isBoolean()) {
+            return token.isBoolean() && expected.booleanValue() == (token == JsonToken.VALUE_TRUE);
+        }
+        return false;
+    }
+
+    /**
+     * Describes the current value for a mismatch message and moves past it.
+     */
+    private static String describe(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isStructStart()) {
+            parser.skipChildren();
+            return token == JsonToken.START_OBJECT ? "an object" : "an array";
+        }
+        return token == JsonToken.VALUE_NULL ? "null" : "'" + parser.getText() + "'";
+    }
+
+    private static void mismatch(List<String> mismatches, String path, JsonNode expected, String actual) {
+        String expectedText = expected.isValueNode() ? "'" + expected.asText() + "'" : expected.toString();
+        mismatches.add((path.isEmpty() ? "$" : path) + " - Expected: " + expectedText + ", Actual: " + actual);
+    }
+
+    private static String child(String path, String name) {
+        return path.isEmpty() ? name : path + "." + name;
+    }
+}
@@ -0,0 +1,99 @@
+package org.petstore.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+import org.petstore.pojo.common.Category;
+import org.petstore.pojo.response.PetResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonStreamValidatorTest {
+
+    private static final String PET = "{\"id\":99,\"name\":\"Rex\",\"category\":{\"id\":1,\"name\":\"Dogs\"},"
+            + "\"photoUrls\":[\"a.png\",\"b.png\"],"
+            + "\"tags\":[{\"id\":1,\"name\":\"good\"},{\"id\":2,\"name\":\"loud\"}],"
+            + "\"status\":\"available\"}";
+
+    @Test
+    void acceptsAnExactMatch() throws Exception {
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)), PET)).isEmpty();
+    }
+
+    @Test
+    void reportsAChangedScalarWithItsPath() throws Exception {
+        // Numbers are compared by value, so 99.0 still matches 99
+        String body = PET.replace("\"loud\"", "\"quiet\"").replace("\"id\":99", "\"id\":99.0");
+
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)), body))
+                .containsExactly("tags[1].name - Expected: 'loud', Actual: 'quiet'");
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)), PET.replace("\"Rex\"", "7")))
+                .containsExactly("name - Expected: 'Rex', Actual: '7'");
+    }
+
+    @Test
+    void reportsMissingFieldsAndSkipsExtraOnes() throws Exception {
+        String body = PET.replace("\"status\":\"available\"", "\"extra\":{\"nested\":[1,2]}");
+
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)), body))
+                .containsExactly("status - Expected: '\"available\"', Actual: missing");
+    }
+
+    @Test
+    void checksArrayLengthAndOrder() throws Exception {
+        JsonStreamValidator validator = JsonStreamValidator.expecting(tree(PET));
+
+        assertThat(validate(validator, PET.replace("[\"a.png\",\"b.png\"]", "[\"b.png\",\"a.png\"]")))
+                .containsExactly("photoUrls[0] - Expected: 'a.png', Actual: 'b.png'",
+                        "photoUrls[1] - Expected: 'b.png', Actual: 'a.png'");
+        assertThat(validate(validator, PET.replace("\"b.png\"", "\"b.png\",\"c.png\"")))
+                .containsExactly("photoUrls - Expected size: 2, Actual size: 3");
+        assertThat(validate(JsonStreamValidator.expecting(tree("[1,2]")), "[1]"))
+                .containsExactly("$ - Expected size: 2, Actual size: 1");
+    }
+
+    @Test
+    void skipsIgnoredPaths() throws Exception {
+        String body = PET.replace("\"available\"", "\"sold\"")
+                .replace("{\"id\":1,\"name\":\"good\"}", "{\"id\":7}");
+
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)).ignoring("status", "tags[0]"), body)).isEmpty();
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)).ignoring("status"), body))
+                .containsExactly("tags[0].id - Expected: '1', Actual: '7'",
+                        "tags[0].name - Expected: '\"good\"', Actual: missing");
+    }
+
+    @Test
+    void doesNotCheckTheNullFieldsOfAPojo() {
+        PetResponse pet = new PetResponse();
+        pet.setId(99L);
+        pet.setName("Rex");
+        Category category = new Category();
+        category.setName("Dogs");
+        pet.setCategory(category);
+
+        assertThat(validate(JsonStreamValidator.expecting(pet), PET)).isEmpty();
+        assertThat(validate(JsonStreamValidator.expecting(pet), "{\"id\":99,\"name\":\"Rex\",\"category\":{}}"))
+                .containsExactly("category.name - Expected: '\"Dogs\"', Actual: missing");
+    }
+
+    @Test
+    void reportsBodiesThatAreNotJson() throws Exception {
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)), "")).hasSize(1)
+                .allMatch(mismatch -> mismatch.endsWith("Actual: empty body"));
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)), "[]"))
+                .containsExactly("$ - Expected: " + PET + ", Actual: an array");
+        assertThat(validate(JsonStreamValidator.expecting(tree(PET)), "{\"id\":"))
+                .singleElement().asString().startsWith("$ - Invalid JSON");
+    }
+
+    private static JsonNode tree(String json) throws Exception {
+        return JsonUtils.mapper().readTree(json);
+    }
+
+    private static List<String> validate(JsonStreamValidator validator, String body) {
+        return validator.validate(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,41 +1,35 @@
 package org.petstore.utils;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.petstore.pojo.response.PetResponse;
 
-import java.io.InputStream;
-
 public class JsonUtils {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     /**
-     * Loads a pet from a JSON file in the resources/payloads directory
-     *
-     * @param filename The name of the JSON file (without path)
-     * @return PetResponse object populated with the JSON data
+     * Status the known pet is expected to have at rest, i.e. when no scenario is updating it
      */
-    public static PetResponse loadPetFromJson(String filename) {
-        try {
-            InputStream inputStream = JsonUtils.class.getClassLoader()
-                    .getResourceAsStream("payloads/" + filename);
+    public static final String KNOWN_PET_STATUS = "available";
 
-            if (inputStream == null) {
-                throw new RuntimeException("File not found: payloads/" + filename);
-            }
-
-            return objectMapper.readValue(inputStream, PetResponse.class);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to load pet from JSON file: " + filename, e);
-        }
+    /**
+     * Loads the known pet from the known_pet.json fixture
+     *
+     * @return A fresh PetResponse object representing the known pet
+     */
+    public static PetResponse loadKnownPet() {
+        return Fixtures.get("known_pet.json", PetResponse.class);
     }
 
     /**
-     * Loads the known pet from the known_pet.json file
+     * The one mapper of the suite, thread-safe once configured; it ignores properties the POJOs
+     * do not declare
      *
-     * @return PetResponse object representing the known pet
+     * @return The shared ObjectMapper, never to be reconfigured
      */
-    public static PetResponse loadKnownPet() {
-        return loadPetFromJson("known_pet.json");
+    public static ObjectMapper mapper() {
+        return objectMapper;
     }
 }
\ No newline at end of file
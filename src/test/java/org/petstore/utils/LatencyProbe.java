@@ -0,0 +1,249 @@
+package org.petstore.utils;
+
+import io.restassured.response.Response;
+import net.serenitybdd.core.Serenity;
+import org.HdrHistogram.Histogram;
+import org.petstore.client.ResponseCache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Sends a request many times from a few threads and measures it, for latency and throughput
+ * checks inside functional scenarios.
+ * <p>
+ * Warm-up requests are sent first, with the same concurrency, and left out of the statistics:
+ * {@code petstore.perf.warmup} of them (20 by default), or the number set for the scenario with
+ * {@link #warmUp(int)}. Latencies go into one HDR histogram per thread, merged when the run
+ * ends; a response with a status outside 2xx, or an exception, counts as an error. The result
+ * is recorded as a percentile table in the Serenity report and kept for the scenario's
+ * threshold steps ({@link #last()}).
+ * <p>
+ * The request must not go through SerenityRest, which reports every call into the current
+ * step: build it on {@code RestAssured.given()} instead.
+ */
+public final class LatencyProbe {
+
+    private static final int DEFAULT_WARMUP = Integer.getInteger("petstore.perf.warmup", 20);
+
+    // Scenarios run on one thread each, so per-thread state is per-scenario state
+    private static final ThreadLocal<Integer> warmUp = new ThreadLocal<>();
+    private static final ThreadLocal<Result> last = new ThreadLocal<>();
+
+    private LatencyProbe() {
+    }
+
+    /**
+     * Sets the number of warm-up requests of the next runs in this scenario.
+     *
+     * @param requests Warm-up requests, 0 to measure from the first request
+     */
+    public static void warmUp(int requests) {
+        warmUp.set(requests);
+    }
+
+    /**
+     * Measures a request.
+     *
+     * @param label       Name of the request in the report
+     * @param requests    Number of measured requests
+     * @param concurrency Number of threads sending them
+     * @param request     Sends the request once and returns its response
+     * @return The statistics of the measured requests
+     */
+    public static Result run(String label, int requests, int concurrency, Supplier<Response> request) {
+        if (requests < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("Need at least one request and one thread, got " + requests
+                    + " requests with concurrency " + concurrency);
+        }
+        int threads = Math.min(concurrency, requests);
+        Integer scenarioWarmUp = warmUp.get();
+        int warmUpRequests = scenarioWarmUp == null ? DEFAULT_WARMUP : scenarioWarmUp;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "petstore-latency-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            if (warmUpRequests > 0) {
+                send(executor, threads, warmUpRequests, request);
+            }
+            long start = System.nanoTime();
+            List<Worker> workers = send(executor, threads, requests, request);
+            long end = System.nanoTime();
+
+            Result result = new Result(label, concurrency, warmUpRequests, (end - start) / 1_000_000_000.0);
+            for (Worker worker : workers) {
+                result.histogram.add(worker.histogram);
+                result.errors += worker.errors;
+            }
+            last.set(result);
+            if (AssertionReporter.serenityIsRunning()) {
+                Serenity.recordReportData()
+                        .withTitle("Latency percentiles: " + label)
+                        .andContents(result.toTable());
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Worker> send(ExecutorService executor, int threads, int requests, Supplier<Response> request) {
+        AtomicInteger remaining = new AtomicInteger(requests);
+        List<Worker> workers = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Worker worker = new Worker(remaining, request);
+            workers.add(worker);
+            futures.add(executor.submit(worker));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while measuring", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Measuring failed", e.getCause());
+        }
+        return workers;
+    }
+
+    /**
+     * @return The last result measured in this scenario
+     * @throws IllegalStateException if nothing was measured yet
+     */
+    public static Result last() {
+        Result result = last.get();
+        if (result == null) {
+            throw new IllegalStateException("No requests were measured in this scenario");
+        }
+        return result;
+    }
+
+    /**
+     * Forgets the warm-up setting and the last result. Called by the Cucumber hooks after every scenario.
+     */
+    public static void scenarioFinished() {
+        warmUp.remove();
+        last.remove();
+    }
+
+    private static final class Worker implements Runnable {
+        private final AtomicInteger remaining;
+        private final Supplier<Response> request;
+        private final Histogram histogram = new Histogram(3_600_000_000L, 3);
+        private long errors;
+
+        private Worker(AtomicInteger remaining, Supplier<Response> request) {
+            this.remaining = remaining;
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            while (remaining.getAndDecrement() > 0) {
+                long start = System.nanoTime();
+                boolean success;
+                try {
+                    // Measures the server, never the response cache
+                    int status = ResponseCache.bypass(request).getStatusCode();
+                    success = status >= 200 && status < 300;
+                } catch (RuntimeException e) {
+                    success = false;
+                }
+                long micros = (System.nanoTime() - start) / 1_000;
+                histogram.recordValue(Math.min(Math.max(micros, 0), histogram.getHighestTrackableValue()));
+                if (!success) {
+                    errors++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Statistics of one measured run; latencies in milliseconds.
+     */
+    public static final class Result {
+        private final String label;
+        private final int concurrency;
+        private final int warmUpRequests;
+        private final double durationSeconds;
+        private final Histogram histogram = new Histogram(3_600_000_000L, 3);
+        private long errors;
+
+        private Result(String label, int concurrency, int warmUpRequests, double durationSeconds) {
+            this.label = label;
+            this.concurrency = concurrency;
+            this.warmUpRequests = warmUpRequests;
+            this.durationSeconds = durationSeconds;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getSamples() {
+            return histogram.getTotalCount();
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getErrorPercent() {
+            return getSamples() == 0 ? 0 : 100.0 * errors / getSamples();
+        }
+
+        /**
+         * @param percentile Percentile, e.g. 95 or 99.9
+         * @return Latency at that percentile, in milliseconds
+         */
+        public double getPercentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1_000.0;
+        }
+
+        public double getMeanMillis() {
+            return histogram.getMean() / 1_000.0;
+        }
+
+        public double getMaxMillis() {
+            return histogram.getMaxValue() / 1_000.0;
+        }
+
+        public double getThroughputPerSecond() {
+            return durationSeconds == 0 ? 0 : getSamples() / durationSeconds;
+        }
+
+        /**
+         * @return The result as a fixed-width table, for the report
+         */
+        public String toTable() {
+            return String.format(Locale.ROOT,
+                    "%-28s %8s %7s %8s %12s %9s %9s %9s %9s %9s %9s%n"
+                            + "%-28s %8d %7d %8.2f %12.1f %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n"
+                            + "(%d warm-up requests excluded, concurrency %d, times in ms)",
+                    "Label", "Samples", "Errors", "Error %", "Throughput/s", "Mean", "p50", "p90", "p95", "p99",
+                    "Max",
+                    label, getSamples(), errors, getErrorPercent(), getThroughputPerSecond(),
+                    getMeanMillis(), getPercentileMillis(50), getPercentileMillis(90), getPercentileMillis(95),
+                    getPercentileMillis(99), getMaxMillis(),
+                    warmUpRequests, concurrency);
+        }
+
+        @Override
+        public String toString() {
+            return toTable();
+        }
+    }
+}
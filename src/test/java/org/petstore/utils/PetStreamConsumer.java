@@ -0,0 +1,216 @@
+package org.petstore.utils;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.petstore.pojo.response.PetResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Consumes a {@code /pet/findByStatus} array one pet at a time instead of mapping it into a
+ * {@code List<PetResponse>}.
+ * <p>
+ * Each element is read from the token stream into a single {@link PetResponse}, run through the
+ * registered checks and dropped. Only running aggregates are kept: per check violation counts,
+ * counts per status, the first few violations as examples, and (when {@link #uniqueIds()} is on)
+ * the ids seen so far in a primitive long set of about 16 bytes per pet.
+ */
+public class PetStreamConsumer {
+
+    private static final int MAX_EXAMPLES = 20;
+
+    private static final ObjectReader petReader = JsonUtils.mapper().readerFor(PetResponse.class);
+
+    private final Map<String, Predicate<PetResponse>> checks = new LinkedHashMap<>();
+    private boolean uniqueIds;
+
+    /**
+     * @param status The status every pet is expected to have
+     * @return A consumer checking the status, the presence of an id and unique ids
+     */
+    public static PetStreamConsumer forStatus(String status) {
+        return new PetStreamConsumer()
+                .check(Summary.HAS_STATUS, pet -> status.equals(pet.getStatus()))
+                .check(Summary.HAS_ID, pet -> pet.getId() != null)
+                .uniqueIds();
+    }
+
+    /**
+     * @param name      Name of the check, used in the summary
+     * @param predicate Condition every pet must meet
+     * @return This consumer
+     */
+    public PetStreamConsumer check(String name, Predicate<PetResponse> predicate) {
+        checks.put(name, predicate);
+        return this;
+    }
+
+    /**
+     * @return This consumer, also counting pets whose id was already seen
+     */
+    public PetStreamConsumer uniqueIds() {
+        uniqueIds = true;
+        return this;
+    }
+
+    /**
+     * Reads the whole JSON array from the stream.
+     *
+     * @param inputStream The response body, positioned at the start of the array
+     * @return The aggregates of the run
+     * @throws IOException When the body is not an array of objects, e.g. holds a null element
+     */
+    public Summary consume(InputStream inputStream) throws IOException {
+        Summary summary = new Summary(checks.keySet());
+        LongSet seenIds = uniqueIds ? new LongSet() : null;
+
+        try (JsonParser parser = petReader.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array but found " + parser.currentToken());
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected pet " + summary.pets + " to be an object but found "
+                            + (token == null ? "the end of the body" : token));
+                }
+                PetResponse pet = petReader.readValue(parser);
+                summary.pets++;
+                summary.statusCounts.merge(String.valueOf(pet.getStatus()), 1L, Long::sum);
+
+                for (Map.Entry<String, Predicate<PetResponse>> check : checks.entrySet()) {
+                    if (!check.getValue().test(pet)) {
+                        summary.violation(check.getKey(), pet);
+                    }
+                }
+                if (seenIds != null && pet.getId() != null && !seenIds.add(pet.getId())) {
+                    summary.violation(Summary.DUPLICATE_ID, pet);
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Aggregates of one consumed response.
+     */
+    public static class Summary {
+
+        /** Check of {@link #forStatus(String)} that the pet has the status searched for */
+        public static final String HAS_STATUS = "has the searched status";
+        /** Check of {@link #forStatus(String)} that the pet has an id */
+        public static final String HAS_ID = "has an id";
+        /** Counted when {@link #uniqueIds()} is on */
+        public static final String DUPLICATE_ID = "id is unique";
+
+        private long pets;
+        private final Map<String, Long> violations = new LinkedHashMap<>();
+        private final Map<String, Long> statusCounts = new LinkedHashMap<>();
+        private final List<String> examples = new ArrayList<>();
+
+        private Summary(Iterable<String> checkNames) {
+            checkNames.forEach(name -> violations.put(name, 0L));
+            violations.put(DUPLICATE_ID, 0L);
+        }
+
+        private void violation(String check, PetResponse pet) {
+            violations.merge(check, 1L, Long::sum);
+            if (examples.size() < MAX_EXAMPLES) {
+                examples.add("Pet " + pet.getId() + " (" + pet.getName() + ") fails: " + check);
+            }
+        }
+
+        public long getPets() {
+            return pets;
+        }
+
+        /**
+         * @param check Name of the check
+         * @return Number of pets that failed it
+         * @throws IllegalArgumentException When no check of that name was registered
+         */
+        public long getViolations(String check) {
+            Long count = violations.get(check);
+            if (count == null) {
+                throw new IllegalArgumentException("Unknown check '" + check + "', expected one of "
+                        + violations.keySet());
+            }
+            return count;
+        }
+
+        public Map<String, Long> getStatusCounts() {
+            return statusCounts;
+        }
+
+        public List<String> getExamples() {
+            return examples;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder()
+                    .append("Pets: ").append(pets)
+                    .append("\nBy status: ").append(statusCounts)
+                    .append("\nViolations: ").append(violations);
+            examples.forEach(example -> text.append("\n- ").append(example));
+            return text.toString();
+        }
+    }
+
+    /**
+     * Open addressing set of longs, so tracking ids does not box every one of them.
+     */
+    private static final class LongSet {
+        private static final long EMPTY = 0L;
+
+        private long[] slots = new long[1024];
+        private int size;
+        private boolean containsEmpty;
+
+        boolean add(long value) {
+            if (value == EMPTY) {
+                boolean added = !containsEmpty;
+                containsEmpty = true;
+                return added;
+            }
+            if ((size + 1) * 2 > slots.length) {
+                resize();
+            }
+            if (!insert(slots, value)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private static boolean insert(long[] table, long value) {
+            int mask = table.length - 1;
+            int index = Long.hashCode(value * 0x9E3779B97F4A7C15L) & mask;
+            while (table[index] != EMPTY) {
+                if (table[index] == value) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            table[index] = value;
+            return true;
+        }
+
+        private void resize() {
+            long[] larger = new long[slots.length * 2];
+            for (long value : slots) {
+                if (value != EMPTY) {
+                    insert(larger, value);
+                }
+            }
+            slots = larger;
+        }
+    }
+}
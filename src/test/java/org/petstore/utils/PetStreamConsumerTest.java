@@ -0,0 +1,71 @@
+package org.petstore.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PetStreamConsumerTest {
+
+    @Test
+    void countsPetsPerStatusWithoutViolations() throws IOException {
+        PetStreamConsumer.Summary summary = consume("sold",
+                "[{\"id\":1,\"name\":\"Rex\",\"status\":\"sold\",\"tags\":[{\"id\":1}]},{\"id\":2,\"status\":\"sold\"}]");
+
+        assertThat(summary.getPets()).isEqualTo(2);
+        assertThat(summary.getStatusCounts()).containsExactly(Map.entry("sold", 2L));
+        assertThat(summary.getViolations(PetStreamConsumer.Summary.HAS_STATUS)).isZero();
+        assertThat(summary.getViolations(PetStreamConsumer.Summary.HAS_ID)).isZero();
+        assertThat(summary.getViolations(PetStreamConsumer.Summary.DUPLICATE_ID)).isZero();
+        assertThat(summary.getExamples()).isEmpty();
+    }
+
+    @Test
+    void countsMismatchedStatusesMissingAndDuplicateIds() throws IOException {
+        PetStreamConsumer.Summary summary = consume("sold", "[{\"id\":1,\"status\":\"sold\"},"
+                + "{\"id\":2,\"status\":\"pending\"},{\"status\":\"sold\"},{\"id\":1,\"status\":\"sold\"},"
+                + "{\"id\":0,\"status\":\"sold\"},{\"id\":0,\"status\":\"sold\"}]");
+
+        assertThat(summary.getPets()).isEqualTo(6);
+        assertThat(summary.getViolations(PetStreamConsumer.Summary.HAS_STATUS)).isEqualTo(1);
+        assertThat(summary.getViolations(PetStreamConsumer.Summary.HAS_ID)).isEqualTo(1);
+        assertThat(summary.getViolations(PetStreamConsumer.Summary.DUPLICATE_ID)).isEqualTo(2);
+        assertThat(summary.getExamples()).hasSize(4)
+                .contains("Pet 2 (null) fails: " + PetStreamConsumer.Summary.HAS_STATUS);
+    }
+
+    @Test
+    void countsAnEmptyArrayAsNoPets() throws IOException {
+        assertThat(consume("sold", "[]").getPets()).isZero();
+    }
+
+    @Test
+    void rejectsElementsThatAreNoObject() {
+        assertThatThrownBy(() -> consume("sold", "[{\"id\":1,\"status\":\"sold\"},null,{\"id\":2}]"))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("pet 1").hasMessageContaining("VALUE_NULL");
+        assertThatThrownBy(() -> consume("sold", "[[{\"id\":1}]]"))
+                .isInstanceOf(IOException.class).hasMessageContaining("START_ARRAY");
+        assertThatThrownBy(() -> consume("sold", "{\"id\":1}"))
+                .isInstanceOf(IOException.class).hasMessageContaining("Expected a JSON array");
+    }
+
+    @Test
+    void rejectsUnknownCheckNames() throws IOException {
+        PetStreamConsumer.Summary summary = consume("sold", "[]");
+
+        assertThatThrownBy(() -> summary.getViolations("status is sold"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(PetStreamConsumer.Summary.HAS_STATUS);
+    }
+
+    private static PetStreamConsumer.Summary consume(String status, String body) throws IOException {
+        return PetStreamConsumer.forStatus(status)
+                .consume(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,27 @@
+package org.petstore.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.petstore.contract.JsonContract;
+import org.petstore.pojo.request.UserRequest;
+import org.petstore.pojo.response.ApiResponse;
+import org.petstore.pojo.response.OrderResponse;
+import org.petstore.pojo.response.PetResponse;
+
+import java.util.Map;
+
+/**
+ * Contracts of the responses the steps check, derived from the POJOs (see {@link JsonContract}).
+ */
+public final class ResponseContracts {
+
+    public static final JsonContract PET = JsonContract.of(PetResponse.class);
+    public static final JsonContract ORDER = JsonContract.of(OrderResponse.class);
+    public static final JsonContract INVENTORY = JsonContract.of(new TypeReference<Map<String, Integer>>() { });
+    /** A user as {@code GET /user/{username}} returns it; the Petstore's User model is the request body */
+    public static final JsonContract USER = JsonContract.of(UserRequest.class);
+    /** The code, type and message the other /user calls answer with */
+    public static final JsonContract API_RESPONSE = JsonContract.of(ApiResponse.class);
+
+    private ResponseContracts() {
+    }
+}
@@ -0,0 +1,25 @@
+@performance
+Feature: Performance smoke tests
+  As a store admin
+  I want the most used endpoints to stay fast under a little concurrency
+  So that slowdowns are caught with the functional tests, before a full load test
+
+  Scenario: Pet details stay fast under concurrent reads
+    Given I have pet details with following attributes
+      | name   | category | status    | tags   |
+      | Speedy | Dog      | available | active |
+    And I send request to add new pet
+    And a warm-up of 10 requests before measuring
+    When I send 100 requests to get pet details with concurrency 4
+    Then the p95 response time should be below 2000 ms
+    And the p99 response time should be below 5000 ms
+    And the error rate should be at most 1%
+
+  Scenario: Store inventory keeps up with concurrent readers
+    Given I am authenticated as a store manager
+      | username | password |
+      | admin    | admin123 |
+    When I send 100 requests to get the store inventory with concurrency 4
+    Then the p95 response time should be below 2000 ms
+    And the throughput should be at least 2 requests per second
+    And the error rate should be at most 1%
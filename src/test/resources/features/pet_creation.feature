@@ -11,6 +11,7 @@ Feature: Pet Management in the store
     Then the pet should be created successfully
     And the response should include the correct pet details
 
+  @known-pet
   Scenario: Retrieve pet by ID
     Given I use a known pet ID
     When I send request to get pet details
@@ -0,0 +1,13 @@
+Feature: Pet search by status
+  As a store admin
+  I want to find pets by their status
+  So that I can see which pets are available
+
+  Scenario: Find available pets
+    Given I have pet details with following attributes
+      | name  | category | status    | tags   |
+      | Rocky | Dog      | available | active |
+    And I send request to add new pet
+    When I search for pets with status "available"
+    Then every pet found should have status "available"
+    And every pet found should have a unique ID
@@ -1,3 +1,4 @@
+@known-pet
 Feature: Pet Status Management
   As a pet store manager
   I want to update pet statuses
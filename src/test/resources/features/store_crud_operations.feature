@@ -38,6 +38,15 @@ Feature: Store Order Management
       | 5      | 1   | placed  | false |
       | 10     | 5   | placed  | false |
 
+  Scenario: Read an order and the store inventory concurrently
+    Given I have an order with the following details
+      | petId | quantity | status | complete |
+      | 3     | 1        | placed | false    |
+    When I send request to place the order
+    And I retrieve the order and the store inventory concurrently
+    Then both lookups should succeed
+    And the order details should match the created order
+
   Scenario: Get store inventory
     When I request the store inventory
     Then I should get the inventory status